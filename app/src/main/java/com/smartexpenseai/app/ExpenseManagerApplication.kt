@@ -1,9 +1,15 @@
 package com.smartexpenseai.app
 
 import android.app.Application
+import com.smartexpenseai.app.parsing.engine.RuleLoader
 import com.smartexpenseai.app.utils.logging.StructuredLogger
 import com.smartexpenseai.app.utils.logging.TimberFileTree
+import com.smartexpenseai.app.utils.logging.TimberLogSink
 import dagger.hilt.android.HiltAndroidApp
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
 import javax.inject.Inject
 import timber.log.Timber
 
@@ -12,6 +18,9 @@ class ExpenseManagerApplication : Application() {
     @Inject
     lateinit var timberFileTree: TimberFileTree
 
+    @Inject
+    lateinit var ruleLoader: RuleLoader
+
     private val logger = StructuredLogger("APP", ExpenseManagerApplication::class.java.simpleName)
 
     override fun onCreate() {
@@ -19,6 +28,21 @@ class ExpenseManagerApplication : Application() {
         logger.debug("onCreate","Application onCreate() starting with Timber logging...")
         initializeTimber()
         logger.debug("onCreate","Timber logging system initialized successfully")
+        warmUpParsingRules()
+    }
+
+    /**
+     * Load and compile bank rules off the main thread as soon as the process starts.
+     * A process woken by an incoming SMS then finds the rules (mostly) ready.
+     */
+    private fun warmUpParsingRules() {
+        CoroutineScope(SupervisorJob() + Dispatchers.IO).launch {
+            try {
+                ruleLoader.warmUp()
+            } catch (e: Exception) {
+                logger.warn("warmUpParsingRules", "Bank rules warm-up failed: ${e.message}")
+            }
+        }
     }
 
     /**
@@ -27,6 +51,9 @@ class ExpenseManagerApplication : Application() {
     private fun initializeTimber() {
         Timber.uprootAll()
 
+        // StructuredLogger lives in the JVM-only parsing engine module; send its lines to Timber
+        StructuredLogger.sink = TimberLogSink
+
         // Plant debug tree when running debug builds so logs appear in Logcat while developing.
         if (BuildConfig.DEBUG) {
             Timber.plant(object : Timber.DebugTree() {
@@ -19,6 +19,16 @@ interface MerchantDao {
     
     @Query("SELECT * FROM merchants WHERE normalized_name = :normalizedName")
     suspend fun getMerchantByNormalizedName(normalizedName: String): MerchantEntity?
+
+    // Normalized name behind a merchant name as lists show it: COALESCE(display_name,
+    // normalized_name). An exact normalized match wins over a display-name match.
+    @Query("""
+        SELECT normalized_name FROM merchants
+        WHERE normalized_name = :merchantName OR display_name = :merchantName COLLATE NOCASE
+        ORDER BY normalized_name = :merchantName DESC
+        LIMIT 1
+    """)
+    suspend fun findNormalizedName(merchantName: String): String?
     
     @Query("SELECT * FROM merchants WHERE category_id = :categoryId ORDER BY display_name ASC")
     suspend fun getMerchantsByCategory(categoryId: Long): List<MerchantEntity>
@@ -40,6 +50,12 @@ interface MerchantDao {
     @Query("SELECT is_deleted FROM merchants WHERE normalized_name = :normalizedName")
     suspend fun isMerchantDeleted(normalizedName: String): Boolean?
 
+    @Query("SELECT normalized_name FROM merchants")
+    suspend fun getAllMerchantNames(): List<String>
+
+    @Query("SELECT normalized_name FROM merchants WHERE is_deleted = 1")
+    suspend fun getDeletedMerchantNames(): List<String>
+
     @Query("UPDATE merchants SET is_deleted = 0 WHERE normalized_name = :normalizedName")
     suspend fun unmarkMerchantDeleted(normalizedName: String)
 
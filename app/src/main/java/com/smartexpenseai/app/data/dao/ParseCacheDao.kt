@@ -0,0 +1,24 @@
+package com.smartexpenseai.app.data.dao
+
+import androidx.room.*
+import com.smartexpenseai.app.data.entities.ParseCacheEntity
+
+@Dao
+interface ParseCacheDao {
+
+    /**
+     * Cached outcomes for the given body hashes under [rulesVersion].
+     * Keep [bodyHashes] under SQLite's 999 bind-variable limit.
+     */
+    @Query("SELECT * FROM parse_cache WHERE rules_version = :rulesVersion AND body_hash IN (:bodyHashes)")
+    suspend fun getOutcomes(rulesVersion: String, bodyHashes: List<String>): List<ParseCacheEntity>
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertOutcomes(outcomes: List<ParseCacheEntity>)
+
+    @Query("DELETE FROM parse_cache WHERE rules_version != :rulesVersion")
+    suspend fun deleteStaleOutcomes(rulesVersion: String): Int
+
+    @Query("DELETE FROM parse_cache")
+    suspend fun clearAll()
+}
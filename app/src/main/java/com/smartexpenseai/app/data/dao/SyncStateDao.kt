@@ -34,6 +34,40 @@ interface SyncStateDao {
         status: String
     )
     
+    @Query("UPDATE sync_state SET last_sms_row_id = :smsRowId WHERE id = 1")
+    suspend fun updateLastSmsRowId(smsRowId: Long)
+
+    @Query("""
+        UPDATE sync_state
+        SET checkpoint_sms_row_id = :smsRowId,
+            checkpoint_sms_date = :smsDate,
+            checkpoint_scan_since = :scanSince,
+            checkpoint_parsed = :parsed,
+            checkpoint_duplicates = :duplicates,
+            checkpoint_inserted = :inserted
+        WHERE id = 1
+    """)
+    suspend fun updateCheckpoint(
+        smsRowId: Long,
+        smsDate: Date?,
+        scanSince: Date?,
+        parsed: Int,
+        duplicates: Int,
+        inserted: Int
+    )
+
+    @Query("""
+        UPDATE sync_state
+        SET checkpoint_sms_row_id = 0,
+            checkpoint_sms_date = NULL,
+            checkpoint_scan_since = NULL,
+            checkpoint_parsed = 0,
+            checkpoint_duplicates = 0,
+            checkpoint_inserted = 0
+        WHERE id = 1
+    """)
+    suspend fun clearCheckpoint()
+
     @Query("UPDATE sync_state SET sync_status = :status WHERE id = 1")
     suspend fun updateSyncStatus(status: String)
     
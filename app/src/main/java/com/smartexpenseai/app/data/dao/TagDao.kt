@@ -26,6 +26,9 @@ interface TagDao {
     @Query("SELECT * FROM tags ORDER BY name ASC")
     suspend fun getAllTagsSync(): List<TagEntity>
 
+    @Query("SELECT COUNT(*) FROM tags")
+    suspend fun getTagCount(): Int
+
     @Query("SELECT * FROM tags WHERE id = :tagId")
     suspend fun getTagById(tagId: Long): TagEntity?
 
@@ -91,11 +94,14 @@ interface TagDao {
     suspend fun getTagsForTransactions(transactionIds: List<Long>): List<TransactionTagJoin>
 
     // ----- Filter by tag -----
+    // CROSS JOIN pins the join order to transaction_tags first (SQLite never reorders
+    // a CROSS JOIN): without table statistics the planner would otherwise start from
+    // the is_active index and probe every active transaction.
 
     /** Active transactions carrying ANY of the given tags (OR semantics). */
     @Query(
-        """SELECT DISTINCT tx.* FROM transactions tx
-           JOIN transaction_tags tt ON tx.id = tt.transaction_id
+        """SELECT DISTINCT tx.* FROM transaction_tags tt
+           CROSS JOIN transactions tx ON tx.id = tt.transaction_id
            WHERE tt.tag_id IN (:tagIds) AND tx.is_active = 1
            ORDER BY tx.transaction_date DESC"""
     )
@@ -103,8 +109,8 @@ interface TagDao {
 
     /** Active transactions carrying ALL of the given tags (AND semantics). */
     @Query(
-        """SELECT tx.* FROM transactions tx
-           JOIN transaction_tags tt ON tx.id = tt.transaction_id
+        """SELECT tx.* FROM transaction_tags tt
+           CROSS JOIN transactions tx ON tx.id = tt.transaction_id
            WHERE tt.tag_id IN (:tagIds) AND tx.is_active = 1
            GROUP BY tx.id
            HAVING COUNT(DISTINCT tt.tag_id) = :tagCount
@@ -115,7 +121,7 @@ interface TagDao {
     /** Ids of active transactions carrying ANY of the given tags. */
     @Query(
         """SELECT DISTINCT tt.transaction_id FROM transaction_tags tt
-           JOIN transactions tx ON tx.id = tt.transaction_id
+           CROSS JOIN transactions tx ON tx.id = tt.transaction_id
            WHERE tt.tag_id IN (:tagIds) AND tx.is_active = 1"""
     )
     suspend fun getTransactionIdsWithAnyTag(tagIds: List<Long>): List<Long>
@@ -123,7 +129,7 @@ interface TagDao {
     /** Ids of active transactions carrying ALL of the given tags. */
     @Query(
         """SELECT tt.transaction_id FROM transaction_tags tt
-           JOIN transactions tx ON tx.id = tt.transaction_id
+           CROSS JOIN transactions tx ON tx.id = tt.transaction_id
            WHERE tt.tag_id IN (:tagIds) AND tx.is_active = 1
            GROUP BY tt.transaction_id
            HAVING COUNT(DISTINCT tt.tag_id) = :tagCount"""
@@ -1,6 +1,7 @@
 package com.smartexpenseai.app.data.dao
 
 import androidx.room.*
+import com.smartexpenseai.app.data.entities.SmsBodyEntity
 import com.smartexpenseai.app.data.entities.TransactionEntity
 import kotlinx.coroutines.flow.Flow
 import java.util.Date
@@ -25,8 +26,124 @@ interface TransactionDao {
     @Query("SELECT * FROM transactions WHERE is_active = 1 AND transaction_date >= :startDate AND transaction_date <= :endDate ORDER BY transaction_date DESC")
     suspend fun getTransactionsByDateRange(startDate: Date, endDate: Date): List<TransactionEntity>
 
-    @Query("SELECT * FROM transactions WHERE is_active = 1 AND transaction_date >= :startDate AND transaction_date <= :endDate ORDER BY transaction_date DESC LIMIT :limit OFFSET :offset")
-    suspend fun getTransactionsByDateRangePaginated(startDate: Date, endDate: Date, limit: Int, offset: Int): List<TransactionEntity>
+    /**
+     * Keyset page of active transactions from startDate on, in (transaction_date DESC, id DESC)
+     * order: the rows after position (beforeDate, beforeId). The first page passes the end
+     * of the range and Long.MAX_VALUE. Every page is one index range read, however deep;
+     * build pages through TransactionPageCursor rather than calling these directly.
+     * Pages are TransactionRow projections; bodies come from getSmsBodies when shown.
+     */
+    @Query("""
+        SELECT $TRANSACTION_ROW_COLUMNS FROM transactions
+        WHERE is_active = 1
+          AND transaction_date >= :startDate
+          AND transaction_date <= :beforeDate
+          AND (transaction_date < :beforeDate OR id < :beforeId)
+        ORDER BY transaction_date DESC, id DESC
+        LIMIT :limit
+    """)
+    suspend fun getTransactionPageByDateRange(startDate: Date, beforeDate: Date, beforeId: Long, limit: Int): List<TransactionRow>
+
+    @Query("""
+        SELECT $TRANSACTION_ROW_COLUMNS FROM transactions
+        WHERE normalized_merchant = :merchantName
+          AND is_active = 1
+          AND transaction_date >= :startDate
+          AND transaction_date <= :beforeDate
+          AND (transaction_date < :beforeDate OR id < :beforeId)
+        ORDER BY transaction_date DESC, id DESC
+        LIMIT :limit
+    """)
+    suspend fun getTransactionPageByMerchant(
+        merchantName: String,
+        startDate: Date,
+        beforeDate: Date,
+        beforeId: Long,
+        limit: Int
+    ): List<TransactionRow>
+
+    @Query("""
+        SELECT $TRANSACTION_ROW_COLUMNS FROM transactions
+        WHERE category_id = :categoryId
+          AND is_active = 1
+          AND transaction_date >= :startDate
+          AND transaction_date <= :beforeDate
+          AND (transaction_date < :beforeDate OR id < :beforeId)
+        ORDER BY transaction_date DESC, id DESC
+        LIMIT :limit
+    """)
+    suspend fun getTransactionPageByCategory(
+        categoryId: Long,
+        startDate: Date,
+        beforeDate: Date,
+        beforeId: Long,
+        limit: Int
+    ): List<TransactionRow>
+
+    /**
+     * The category list in the other TransactionSort orders, up to endDate: the rows
+     * after position (afterDate or afterAmount, afterId). The first page passes the
+     * start of the range (or the lowest/highest amount) and Long.MIN_VALUE/MAX_VALUE.
+     * All read the category's range from the (category_id, is_active, transaction_date)
+     * index; the amount orders sort that range rather than the whole category.
+     */
+    @Query("""
+        SELECT $TRANSACTION_ROW_COLUMNS FROM transactions
+        WHERE category_id = :categoryId
+          AND is_active = 1
+          AND transaction_date >= :afterDate
+          AND transaction_date <= :endDate
+          AND (transaction_date > :afterDate OR id > :afterId)
+        ORDER BY transaction_date ASC, id ASC
+        LIMIT :limit
+    """)
+    suspend fun getTransactionPageByCategoryOldestFirst(
+        categoryId: Long,
+        endDate: Date,
+        afterDate: Date,
+        afterId: Long,
+        limit: Int
+    ): List<TransactionRow>
+
+    @Query("""
+        SELECT $TRANSACTION_ROW_COLUMNS FROM transactions
+        WHERE category_id = :categoryId
+          AND is_active = 1
+          AND transaction_date >= :startDate
+          AND transaction_date <= :endDate
+          AND amount <= :afterAmount
+          AND (amount < :afterAmount OR id < :afterId)
+        ORDER BY amount DESC, id DESC
+        LIMIT :limit
+    """)
+    suspend fun getTransactionPageByCategoryHighestAmount(
+        categoryId: Long,
+        startDate: Date,
+        endDate: Date,
+        afterAmount: Double,
+        afterId: Long,
+        limit: Int
+    ): List<TransactionRow>
+
+    @Query("""
+        SELECT $TRANSACTION_ROW_COLUMNS FROM transactions
+        WHERE category_id = :categoryId
+          AND is_active = 1
+          AND transaction_date >= :startDate
+          AND transaction_date <= :endDate
+          AND amount >= :afterAmount
+          AND (amount > :afterAmount OR id > :afterId)
+        ORDER BY amount ASC, id ASC
+        LIMIT :limit
+    """)
+    suspend fun getTransactionPageByCategoryLowestAmount(
+        categoryId: Long,
+        startDate: Date,
+        endDate: Date,
+        afterAmount: Double,
+        afterId: Long,
+        limit: Int
+    ): List<TransactionRow>
 
     @Query("SELECT * FROM transactions WHERE is_active = 1 AND normalized_merchant = :merchantName ORDER BY transaction_date DESC")
     suspend fun getTransactionsByMerchant(merchantName: String): List<TransactionEntity>
@@ -40,37 +157,206 @@ interface TransactionDao {
     @Query("SELECT * FROM transactions WHERE is_active = 1 AND bank_name = :bankName ORDER BY transaction_date DESC")
     suspend fun getTransactionsByBank(bankName: String): List<TransactionEntity>
 
+    /**
+     * Full-text hits among active transactions for a MATCH expression (built by
+     * TransactionSearch), with matchinfo('pcx') for ranking. Reads only the index and
+     * the rowid lookup; the rows of a result page come from getTransactionsByIds.
+     */
     @Query("""
-        SELECT * FROM transactions
-        WHERE is_active = 1
-          AND (raw_merchant LIKE '%' || :query || '%' OR normalized_merchant LIKE '%' || :query || '%')
-        ORDER BY transaction_date DESC
-        LIMIT :limit
+        SELECT t.id, t.transaction_date, matchinfo(transactions_fts, 'pcx') AS match_info
+        FROM transactions_fts
+        CROSS JOIN transactions t ON t.id = transactions_fts.rowid
+        WHERE transactions_fts MATCH :match AND t.is_active = 1
+    """)
+    suspend fun getSearchHits(match: String): List<SearchHit>
+
+    // Rows dated within [startDate, endDate] matching a MATCH expression, soft-deleted
+    // rows included (the Messages screen also searches its DELETED tab)
+    @Query("""
+        SELECT t.id FROM transactions_fts
+        CROSS JOIN transactions t ON t.id = transactions_fts.rowid
+        WHERE transactions_fts MATCH :match
+        AND t.transaction_date >= :startDate AND t.transaction_date <= :endDate
+    """)
+    suspend fun getMatchingTransactionIds(match: String, startDate: Date, endDate: Date): List<Long>
+
+    /**
+     * getSearchHits over SMS bodies (sms_bodies_fts). That table is created outside Room
+     * (SmsBodyStorage), so its queries skip Room's verification. The join also drops
+     * entries left behind by hard-deleted transactions.
+     */
+    @Query("""
+        SELECT t.id, t.transaction_date, matchinfo(sms_bodies_fts, 'pcx') AS match_info
+        FROM sms_bodies_fts
+        CROSS JOIN transactions t ON t.id = sms_bodies_fts.docid
+        WHERE sms_bodies_fts MATCH :match AND t.is_active = 1
     """)
-    suspend fun searchTransactions(query: String, limit: Int = 50): List<TransactionEntity>
+    @SkipQueryVerification
+    suspend fun getBodySearchHits(match: String): List<SearchHit>
+
+    @Query("""
+        SELECT t.id FROM sms_bodies_fts
+        CROSS JOIN transactions t ON t.id = sms_bodies_fts.docid
+        WHERE sms_bodies_fts MATCH :match
+        AND t.transaction_date >= :startDate AND t.transaction_date <= :endDate
+    """)
+    @SkipQueryVerification
+    suspend fun getBodyMatchingTransactionIds(match: String, startDate: Date, endDate: Date): List<Long>
+
+    @Query("SELECT * FROM transactions WHERE id IN (:transactionIds)")
+    suspend fun getTransactionsByIds(transactionIds: List<Long>): List<TransactionEntity>
+
+    // SMS bodies, compressed (SmsBodyCodec): read only when a detail view, export or
+    // re-parse asks for them, and decoded by the repository
+    @Query("SELECT * FROM sms_bodies WHERE transaction_id = :transactionId")
+    suspend fun getSmsBody(transactionId: Long): SmsBodyEntity?
+
+    @Query("SELECT * FROM sms_bodies WHERE transaction_id IN (:transactionIds)")
+    suspend fun getSmsBodies(transactionIds: List<Long>): List<SmsBodyEntity>
+
+    // Bodies of newly inserted transactions; the words go to SmsBodyStorage.index
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertSmsBodies(bodies: List<SmsBodyEntity>)
 
     @Query("SELECT COUNT(*) FROM transactions WHERE is_active = 1")
     suspend fun getTransactionCount(): Int
 
-    @Query("SELECT COUNT(*) FROM transactions WHERE is_active = 1 AND transaction_date >= :startDate AND transaction_date <= :endDate")
+    /**
+     * Active transactions (both directions) in a range, counted from the daily_spend
+     * rollup with the same whole-day / partial-day split as getTotalSpentByDateRange.
+     */
+    @Query("""
+        SELECT COALESCE(SUM(s.transaction_count), 0)
+        FROM (
+            SELECT d.transaction_count
+            FROM daily_spend d
+            WHERE d.day >= (:startDate + 86399999) / 86400000
+              AND d.day < (:endDate + 1) / 86400000
+            UNION ALL
+            SELECT 1
+            FROM transactions t
+            WHERE t.is_active = 1
+              AND t.transaction_date >= :startDate
+              AND t.transaction_date < (:startDate + 86399999) / 86400000 * 86400000
+              AND t.transaction_date <= :endDate
+            UNION ALL
+            SELECT 1
+            FROM transactions t
+            WHERE t.is_active = 1
+              AND t.transaction_date >= MAX((:endDate + 1) / 86400000, (:startDate + 86399999) / 86400000) * 86400000
+              AND t.transaction_date <= :endDate
+        ) s
+    """)
     suspend fun getTransactionCountByDateRange(startDate: Date, endDate: Date): Int
 
+    // Count and amount sum (both directions) of one merchant's active transactions in a
+    // range, from daily_spend plus the partial days at either end
+    @Query("""
+        SELECT COALESCE(SUM(s.transaction_count), 0) AS transaction_count,
+               COALESCE(SUM(s.amount), 0) AS total_amount
+        FROM (
+            SELECT d.transaction_count, d.total_amount AS amount
+            FROM daily_spend d
+            WHERE d.day >= (:startDate + 86399999) / 86400000
+              AND d.day < (:endDate + 1) / 86400000
+              AND d.normalized_merchant = :merchantName
+            UNION ALL
+            SELECT 1, t.amount
+            FROM transactions t
+            WHERE t.normalized_merchant = :merchantName AND t.is_active = 1
+              AND t.transaction_date >= :startDate
+              AND t.transaction_date < (:startDate + 86399999) / 86400000 * 86400000
+              AND t.transaction_date <= :endDate
+            UNION ALL
+            SELECT 1, t.amount
+            FROM transactions t
+            WHERE t.normalized_merchant = :merchantName AND t.is_active = 1
+              AND t.transaction_date >= MAX((:endDate + 1) / 86400000, (:startDate + 86399999) / 86400000) * 86400000
+              AND t.transaction_date <= :endDate
+        ) s
+    """)
+    suspend fun getMerchantSummaryByDateRange(merchantName: String, startDate: Date, endDate: Date): TransactionRangeSummary
+
+    // Same for one category, leaving out merchants excluded from expense tracking (as the
+    // category transactions list does)
+    @Query("""
+        SELECT COALESCE(SUM(s.transaction_count), 0) AS transaction_count,
+               COALESCE(SUM(s.amount), 0) AS total_amount
+        FROM (
+            SELECT d.normalized_merchant, d.transaction_count, d.total_amount AS amount
+            FROM daily_spend d
+            WHERE d.day >= (:startDate + 86399999) / 86400000
+              AND d.day < (:endDate + 1) / 86400000
+              AND d.category_id = :categoryId
+            UNION ALL
+            SELECT t.normalized_merchant, 1, t.amount
+            FROM transactions t
+            WHERE t.category_id = :categoryId AND t.is_active = 1
+              AND t.transaction_date >= :startDate
+              AND t.transaction_date < (:startDate + 86399999) / 86400000 * 86400000
+              AND t.transaction_date <= :endDate
+            UNION ALL
+            SELECT t.normalized_merchant, 1, t.amount
+            FROM transactions t
+            WHERE t.category_id = :categoryId AND t.is_active = 1
+              AND t.transaction_date >= MAX((:endDate + 1) / 86400000, (:startDate + 86399999) / 86400000) * 86400000
+              AND t.transaction_date <= :endDate
+        ) s
+        LEFT JOIN merchants m ON s.normalized_merchant = m.normalized_name
+        WHERE (m.is_excluded_from_expense_tracking = 0 OR m.is_excluded_from_expense_tracking IS NULL)
+    """)
+    suspend fun getCategorySummaryByDateRange(categoryId: Long, startDate: Date, endDate: Date): TransactionRangeSummary
+
     // EXPENSE-SPECIFIC QUERIES (Only debit transactions)
     @Query("SELECT * FROM transactions WHERE is_active = 1 AND is_debit = 1 AND transaction_date >= :startDate AND transaction_date <= :endDate ORDER BY transaction_date DESC")
     suspend fun getExpenseTransactionsByDateRange(startDate: Date, endDate: Date): List<TransactionEntity>
 
+    // Debit totals per merchant name pair, for exclusion rules that match raw names too
+    @Query("""
+        SELECT normalized_merchant, raw_merchant, SUM(amount) AS total_amount
+        FROM transactions
+        WHERE is_active = 1 AND is_debit = 1 AND transaction_date >= :startDate AND transaction_date <= :endDate
+        GROUP BY normalized_merchant, raw_merchant
+    """)
+    suspend fun getExpenseTotalsByMerchantName(startDate: Date, endDate: Date): List<MerchantNameTotal>
+
     @Query("SELECT COUNT(*) FROM transactions WHERE is_active = 1 AND is_debit = 1 AND transaction_date >= :startDate AND transaction_date <= :endDate")
     suspend fun getExpenseTransactionCount(startDate: Date, endDate: Date): Int
 
+    /**
+     * Debit spend over a range, read from the daily_spend rollup (see DailySpendRollup).
+     * The range is split in three arms:
+     * - from startDate up to the first whole UTC day: transactions
+     * - whole days, ceil(startDate / day) until floor((endDate + 1) / day): daily_spend,
+     *   one row per day and merchant
+     * - from the end of the last whole day to endDate: transactions
+     * When the range lies inside one day, the first arm covers all of it. The category
+     * breakdown and top merchants use the same split.
+     */
     @Query("""
-        SELECT SUM(t.amount)
-        FROM transactions t
-        LEFT JOIN merchants m ON t.normalized_merchant = m.normalized_name
-        WHERE t.transaction_date >= :startDate
-          AND t.transaction_date <= :endDate
-          AND t.is_debit = 1
-          AND t.is_active = 1
-          AND (m.is_excluded_from_expense_tracking = 0 OR m.is_excluded_from_expense_tracking IS NULL)
+        SELECT SUM(s.amount)
+        FROM (
+            SELECT d.normalized_merchant, d.total_amount AS amount
+            FROM daily_spend d
+            WHERE d.is_debit = 1
+              AND d.day >= (:startDate + 86399999) / 86400000
+              AND d.day < (:endDate + 1) / 86400000
+            UNION ALL
+            SELECT t.normalized_merchant, t.amount
+            FROM transactions t
+            WHERE t.is_active = 1 AND t.is_debit = 1
+              AND t.transaction_date >= :startDate
+              AND t.transaction_date < (:startDate + 86399999) / 86400000 * 86400000
+              AND t.transaction_date <= :endDate
+            UNION ALL
+            SELECT t.normalized_merchant, t.amount
+            FROM transactions t
+            WHERE t.is_active = 1 AND t.is_debit = 1
+              AND t.transaction_date >= MAX((:endDate + 1) / 86400000, (:startDate + 86399999) / 86400000) * 86400000
+              AND t.transaction_date <= :endDate
+        ) s
+        LEFT JOIN merchants m ON s.normalized_merchant = m.normalized_name
+        WHERE (m.is_excluded_from_expense_tracking = 0 OR m.is_excluded_from_expense_tracking IS NULL)
     """)
     suspend fun getTotalSpentByDateRange(startDate: Date, endDate: Date): Double?
 
@@ -81,49 +367,77 @@ interface TransactionDao {
     @Query("SELECT COUNT(*) FROM transactions WHERE is_active = 1 AND is_debit = 0 AND transaction_date >= :startDate AND transaction_date <= :endDate")
     suspend fun getCreditTransactionCount(startDate: Date, endDate: Date): Int
 
-    // Salary-specific queries for monthly balance calculation
+    // Salary-specific queries for monthly balance calculation (full-text, see SALARY_TRANSACTION_IDS)
     @Query("""
-        SELECT * FROM transactions
-        WHERE is_active = 1
-        AND is_debit = 0
-        AND (raw_sms_body LIKE '%salary%' OR raw_merchant LIKE '%SALARY%'
-             OR raw_sms_body LIKE '%sal %' OR raw_merchant LIKE '%SAL%'
-             OR raw_sms_body LIKE '%wages%' OR raw_merchant LIKE '%WAGE%'
-             OR raw_sms_body LIKE '%payroll%' OR raw_merchant LIKE '%PAYROLL%')
-        ORDER BY transaction_date DESC
+        SELECT t.id, t.amount, t.transaction_date, t.raw_merchant, t.normalized_merchant, t.category_id,
+               t.bank_name, t.confidence_score, t.is_debit, t.is_active
+        FROM ($SALARY_TRANSACTION_IDS) salary
+        CROSS JOIN transactions t ON t.id = salary.docid
+        WHERE t.is_active = 1
+          AND t.is_debit = 0
+        ORDER BY t.transaction_date DESC
         LIMIT 1
     """)
-    suspend fun getLastSalaryTransaction(): TransactionEntity?
+    @SkipQueryVerification
+    suspend fun getLastSalaryTransaction(): TransactionRow?
 
+    // Largest active credit up to endDate: the balance fallback when no salary SMS is found.
+    // The inner query ranks from the covering debit/credit index; one row is read.
     @Query("""
-        SELECT * FROM transactions
-        WHERE is_active = 1
-        AND is_debit = 0
-        AND amount >= :minAmount
-        AND (raw_sms_body LIKE '%salary%' OR raw_merchant LIKE '%SALARY%'
-             OR raw_sms_body LIKE '%sal %' OR raw_merchant LIKE '%SAL%'
-             OR raw_sms_body LIKE '%wages%' OR raw_merchant LIKE '%WAGE%'
-             OR raw_sms_body LIKE '%payroll%' OR raw_merchant LIKE '%PAYROLL%')
-        ORDER BY transaction_date DESC
+        SELECT $TRANSACTION_ROW_COLUMNS FROM transactions
+        WHERE id = (
+            SELECT id FROM transactions
+            WHERE is_active = 1 AND is_debit = 0 AND transaction_date <= :endDate
+            ORDER BY amount DESC, transaction_date DESC
+            LIMIT 1
+        )
+    """)
+    suspend fun getLargestCredit(endDate: Date): TransactionRow?
+
+    @Query("""
+        SELECT t.* FROM ($SALARY_TRANSACTION_IDS) salary
+        CROSS JOIN transactions t ON t.id = salary.docid
+        WHERE t.is_active = 1
+          AND t.is_debit = 0
+          AND t.amount >= :minAmount
+        ORDER BY t.transaction_date DESC
         LIMIT :limit
     """)
+    @SkipQueryVerification
     suspend fun getSalaryTransactions(minAmount: Double = 10000.0, limit: Int = 10): List<TransactionEntity>
 
+    // Reads the daily_spend rollup for whole days (see getTotalSpentByDateRange)
     @Query("""
         SELECT
-            COALESCE(m.display_name, t.normalized_merchant) as normalized_merchant,
-            SUM(t.amount) as total_amount,
-            COUNT(*) as transaction_count,
+            COALESCE(m.display_name, s.normalized_merchant) as normalized_merchant,
+            SUM(s.amount) as total_amount,
+            SUM(s.transaction_count) as transaction_count,
             COALESCE(c.name, 'Unknown') as category_name,
             COALESCE(c.color, '#9e9e9e') as category_color
-        FROM transactions t
-        LEFT JOIN merchants m ON t.normalized_merchant = m.normalized_name
-        LEFT JOIN categories c ON t.category_id = c.id
-        WHERE t.transaction_date >= :startDate AND t.transaction_date <= :endDate
-          AND t.is_debit = 1
-          AND t.is_active = 1
-          AND (m.is_excluded_from_expense_tracking = 0 OR m.is_excluded_from_expense_tracking IS NULL)
-        GROUP BY COALESCE(m.display_name, t.normalized_merchant), c.name, c.color
+        FROM (
+            SELECT d.normalized_merchant, d.category_id, d.total_amount AS amount, d.transaction_count
+            FROM daily_spend d
+            WHERE d.is_debit = 1
+              AND d.day >= (:startDate + 86399999) / 86400000
+              AND d.day < (:endDate + 1) / 86400000
+            UNION ALL
+            SELECT t.normalized_merchant, t.category_id, t.amount, 1
+            FROM transactions t
+            WHERE t.is_active = 1 AND t.is_debit = 1
+              AND t.transaction_date >= :startDate
+              AND t.transaction_date < (:startDate + 86399999) / 86400000 * 86400000
+              AND t.transaction_date <= :endDate
+            UNION ALL
+            SELECT t.normalized_merchant, t.category_id, t.amount, 1
+            FROM transactions t
+            WHERE t.is_active = 1 AND t.is_debit = 1
+              AND t.transaction_date >= MAX((:endDate + 1) / 86400000, (:startDate + 86399999) / 86400000) * 86400000
+              AND t.transaction_date <= :endDate
+        ) s
+        LEFT JOIN merchants m ON s.normalized_merchant = m.normalized_name
+        LEFT JOIN categories c ON s.category_id = c.id
+        WHERE (m.is_excluded_from_expense_tracking = 0 OR m.is_excluded_from_expense_tracking IS NULL)
+        GROUP BY COALESCE(m.display_name, s.normalized_merchant), c.name, c.color
         ORDER BY total_amount DESC
         LIMIT :limit
     """)
@@ -161,6 +475,19 @@ interface TransactionDao {
         bankName: String
     ): TransactionEntity?
 
+    /**
+     * Lightweight dedup keys for every row dated on/after [since], loaded once per
+     * SMS sync so duplicate detection can run in memory instead of per-row queries.
+     * Deliberately includes inactive rows (see getTransactionBySmsId); `is_active IN (0, 1)`
+     * matches every row but lets the date range use the (is_active, transaction_date) index
+     */
+    @Query("""
+        SELECT id, sms_id, normalized_merchant, bank_name, amount, transaction_date, reference_number
+        FROM transactions
+        WHERE is_active IN (0, 1) AND transaction_date >= :since
+    """)
+    suspend fun getDedupCandidatesSince(since: Date): List<DedupCandidate>
+
     @Insert(onConflict = OnConflictStrategy.IGNORE)
     suspend fun insertTransaction(transaction: TransactionEntity): Long
 
@@ -170,6 +497,25 @@ interface TransactionDao {
     @Update
     suspend fun updateTransaction(transaction: TransactionEntity)
 
+    /**
+     * Set-based auto-categorization for freshly imported rows: copies each row's
+     * merchant category onto the transaction in one statement instead of one
+     * read-modify-write per row. Rows without a merchant keep their category.
+     */
+    @Query("""
+        UPDATE transactions
+        SET category_id = (
+            SELECT m.category_id FROM merchants m
+            WHERE m.normalized_name = transactions.normalized_merchant
+        )
+        WHERE id IN (:transactionIds)
+          AND EXISTS (
+            SELECT 1 FROM merchants m
+            WHERE m.normalized_name = transactions.normalized_merchant
+          )
+    """)
+    suspend fun applyMerchantCategories(transactionIds: List<Long>): Int
+
     /**
      * Re-normalize a transaction's merchant name in place. Used by the one-time
      * merchant-name cleanup to strip embedded dates/refs from legacy rows.
@@ -233,18 +579,36 @@ interface TransactionDao {
     ): Int
 
     // For dashboard category breakdown - uses direct category_id from transactions
+    // Reads the daily_spend rollup for whole days (see getTotalSpentByDateRange)
     @Query("""
-        SELECT t.category_id, c.name as category_name, c.color,
-               SUM(t.amount) as total_amount, COUNT(t.id) as transaction_count,
-               MAX(t.transaction_date) as last_transaction_date
-        FROM transactions t
-        JOIN categories c ON t.category_id = c.id
-        LEFT JOIN merchants m ON t.normalized_merchant = m.normalized_name
-        WHERE t.transaction_date >= :startDate AND t.transaction_date <= :endDate
-          AND t.is_debit = 1
-          AND t.is_active = 1
-          AND (m.is_excluded_from_expense_tracking = 0 OR m.is_excluded_from_expense_tracking IS NULL)
-        GROUP BY t.category_id, c.name, c.color
+        SELECT s.category_id, c.name as category_name, c.color,
+               SUM(s.amount) as total_amount, SUM(s.transaction_count) as transaction_count,
+               MAX(s.last_date) as last_transaction_date
+        FROM (
+            SELECT d.category_id, d.normalized_merchant, d.total_amount AS amount,
+                   d.transaction_count, d.last_transaction_date AS last_date
+            FROM daily_spend d
+            WHERE d.is_debit = 1
+              AND d.day >= (:startDate + 86399999) / 86400000
+              AND d.day < (:endDate + 1) / 86400000
+            UNION ALL
+            SELECT t.category_id, t.normalized_merchant, t.amount, 1, t.transaction_date
+            FROM transactions t
+            WHERE t.is_active = 1 AND t.is_debit = 1
+              AND t.transaction_date >= :startDate
+              AND t.transaction_date < (:startDate + 86399999) / 86400000 * 86400000
+              AND t.transaction_date <= :endDate
+            UNION ALL
+            SELECT t.category_id, t.normalized_merchant, t.amount, 1, t.transaction_date
+            FROM transactions t
+            WHERE t.is_active = 1 AND t.is_debit = 1
+              AND t.transaction_date >= MAX((:endDate + 1) / 86400000, (:startDate + 86399999) / 86400000) * 86400000
+              AND t.transaction_date <= :endDate
+        ) s
+        JOIN categories c ON s.category_id = c.id
+        LEFT JOIN merchants m ON s.normalized_merchant = m.normalized_name
+        WHERE (m.is_excluded_from_expense_tracking = 0 OR m.is_excluded_from_expense_tracking IS NULL)
+        GROUP BY s.category_id, c.name, c.color
         ORDER BY total_amount DESC
     """)
     suspend fun getCategorySpendingBreakdown(startDate: Date, endDate: Date): List<CategorySpendingResult>
@@ -286,13 +650,77 @@ interface TransactionDao {
     ): Int
 }
 
+/**
+ * Salary credits: "salary", "sal", "wages" or "payroll" in the SMS body (sms_bodies_fts),
+ * or a merchant name starting with "sal", "wage" or "payroll" (transactions_fts). Token
+ * matches (case-insensitive), so "UNIVERSAL" no longer counts the way LIKE '%SAL%' did.
+ */
+private const val SALARY_TRANSACTION_IDS =
+    "SELECT docid FROM transactions_fts " +
+        "WHERE transactions_fts MATCH 'raw_merchant:sal* OR raw_merchant:wage* OR raw_merchant:payroll*' " +
+        "UNION SELECT docid FROM sms_bodies_fts " +
+        "WHERE sms_bodies_fts MATCH 'salary* OR sal OR wages* OR payroll*'"
+
+// Columns of TransactionRow, for queries on transactions without a table alias
+private const val TRANSACTION_ROW_COLUMNS =
+    "id, amount, transaction_date, raw_merchant, normalized_merchant, category_id, " +
+        "bank_name, confidence_score, is_debit, is_active"
+
 // Data classes for query results
+/**
+ * A transaction without its SMS body and bookkeeping columns: what lists and balances
+ * read. The body is loaded separately (getSmsBody / getSmsBodies) when it is shown.
+ */
+data class TransactionRow(
+    val id: Long,
+    val amount: Double,
+    @ColumnInfo(name = "transaction_date") val transactionDate: Date,
+    @ColumnInfo(name = "raw_merchant") val rawMerchant: String,
+    @ColumnInfo(name = "normalized_merchant") val normalizedMerchant: String,
+    @ColumnInfo(name = "category_id") val categoryId: Long,
+    @ColumnInfo(name = "bank_name") val bankName: String,
+    @ColumnInfo(name = "confidence_score") val confidenceScore: Float,
+    @ColumnInfo(name = "is_debit") val isDebit: Boolean,
+    @ColumnInfo(name = "is_active") val isActive: Boolean
+)
+
+data class MerchantNameTotal(
+    val normalized_merchant: String,
+    val raw_merchant: String,
+    val total_amount: Double
+)
+
+/**
+ * A full-text hit: transaction id, date (ranking tie-break) and the raw
+ * matchinfo('pcx') blob that TransactionSearch scores.
+ */
+class SearchHit(
+    val id: Long,
+    val transaction_date: Date,
+    val match_info: ByteArray
+)
+
+data class TransactionRangeSummary(
+    val transaction_count: Int,
+    val total_amount: Double
+)
+
 data class MerchantSpending(
     val normalized_merchant: String,
     val total_amount: Double,
     val transaction_count: Int
 )
 
+data class DedupCandidate(
+    val id: Long,
+    val sms_id: String,
+    val normalized_merchant: String,
+    val bank_name: String,
+    val amount: Double,
+    val transaction_date: Date,
+    val reference_number: String?
+)
+
 data class SyncInfo(
     val last_sync_date: Date?,
     val last_sms_id: String?
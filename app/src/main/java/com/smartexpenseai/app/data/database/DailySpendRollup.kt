@@ -0,0 +1,80 @@
+package com.smartexpenseai.app.data.database
+
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * Maintenance of the `daily_spend` rollup (DailySpendEntity).
+ *
+ * Triggers on `transactions` recompute the rollup row of every key a changed row leaves
+ * or enters, from the active transactions of that key and day (a short range on the
+ * composite category_id index of `transactions`). Recomputing instead of adding and
+ * subtracting keeps the rollup exact under soft delete, restore, recategorization and
+ * merchant renames, and needs no DAO hooks: every write path, including bulk UPDATEs,
+ * goes through the triggers.
+ *
+ * Days are UTC epoch days, so the rollup does not depend on the device time zone.
+ * Range queries read whole days from the rollup and the partial days at either end of
+ * the range from `transactions` (see TransactionDao.getTotalSpentByDateRange).
+ */
+object DailySpendRollup {
+
+    const val DAY_MILLIS = 86_400_000L
+
+    /** Creates the maintenance triggers. Call after `daily_spend` exists. */
+    fun createTriggers(db: SupportSQLiteDatabase) {
+        db.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS daily_spend_after_insert " +
+                "AFTER INSERT ON transactions BEGIN " +
+                refreshKey("NEW") +
+                "END"
+        )
+        db.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS daily_spend_after_update " +
+                "AFTER UPDATE OF amount, normalized_merchant, category_id, transaction_date, is_debit, is_active " +
+                "ON transactions BEGIN " +
+                refreshKey("OLD") +
+                refreshKey("NEW") +
+                "END"
+        )
+        db.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS daily_spend_after_delete " +
+                "AFTER DELETE ON transactions BEGIN " +
+                refreshKey("OLD") +
+                "END"
+        )
+    }
+
+    /**
+     * Recomputes the whole rollup from `transactions`. For migrations that create the
+     * table or rewrite transactions with the triggers absent.
+     */
+    fun rebuild(db: SupportSQLiteDatabase) {
+        db.execSQL("DELETE FROM daily_spend")
+        db.execSQL(
+            "INSERT INTO daily_spend " +
+                "(day, category_id, normalized_merchant, is_debit, total_amount, transaction_count, last_transaction_date) " +
+                "SELECT transaction_date / $DAY_MILLIS, category_id, normalized_merchant, is_debit, " +
+                "SUM(amount), COUNT(*), MAX(transaction_date) " +
+                "FROM transactions WHERE is_active = 1 " +
+                "GROUP BY transaction_date / $DAY_MILLIS, category_id, normalized_merchant, is_debit"
+        )
+    }
+
+    // Replaces the rollup row for the key of `row` (NEW or OLD) with a fresh aggregate,
+    // or leaves it deleted when no active transaction has that key any more
+    private fun refreshKey(row: String): String {
+        val day = "($row.transaction_date / $DAY_MILLIS)"
+        return "DELETE FROM daily_spend " +
+            "WHERE day = $day AND category_id = $row.category_id " +
+            "AND normalized_merchant = $row.normalized_merchant AND is_debit = $row.is_debit; " +
+            "INSERT INTO daily_spend " +
+            "(day, category_id, normalized_merchant, is_debit, total_amount, transaction_count, last_transaction_date) " +
+            "SELECT $day, $row.category_id, $row.normalized_merchant, $row.is_debit, " +
+            "SUM(amount), COUNT(*), MAX(transaction_date) " +
+            "FROM transactions " +
+            "WHERE normalized_merchant = $row.normalized_merchant AND is_active = 1 " +
+            "AND transaction_date >= $day * $DAY_MILLIS AND transaction_date < ($day + 1) * $DAY_MILLIS " +
+            "AND category_id = $row.category_id AND is_debit = $row.is_debit " +
+            "HAVING COUNT(*) > 0; "
+    }
+}
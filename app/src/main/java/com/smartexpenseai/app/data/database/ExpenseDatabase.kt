@@ -22,10 +22,14 @@ import com.smartexpenseai.app.data.dao.*
         com.smartexpenseai.app.data.models.AICallTracker::class,
         UserEntity::class,
         TagEntity::class,
-        TransactionTagEntity::class
+        TransactionTagEntity::class,
+        ParseCacheEntity::class,
+        DailySpendEntity::class,
+        TransactionFtsEntity::class,
+        SmsBodyEntity::class
     ],
-    version = 15,
-    exportSchema = false
+    version = 23,
+    exportSchema = true
 )
 @TypeConverters(DateConverter::class)
 abstract class ExpenseDatabase : RoomDatabase() {
@@ -38,6 +42,7 @@ abstract class ExpenseDatabase : RoomDatabase() {
     abstract fun aiCallDao(): AICallDao
     abstract fun userDao(): UserDao
     abstract fun tagDao(): TagDao
+    abstract fun parseCacheDao(): ParseCacheDao
     
     companion object {
         @Volatile
@@ -65,7 +70,15 @@ abstract class ExpenseDatabase : RoomDatabase() {
                     MIGRATION_11_12, // Fix inconsistent transaction category_ids
                     MIGRATION_12_13, // Add is_active flag for soft-delete support
                     MIGRATION_13_14, // Add is_deleted flag to merchants for auto-hiding future SMS
-                    MIGRATION_14_15  // Add tags + transaction_tags tables (many-to-many tagging)
+                    MIGRATION_14_15, // Add tags + transaction_tags tables (many-to-many tagging)
+                    MIGRATION_15_16, // Add resumable sync checkpoint columns to sync_state
+                    MIGRATION_16_17, // Add SMS _ID high-water mark to sync_state
+                    MIGRATION_17_18, // Add parse_cache (remembered SMS parse outcomes)
+                    MIGRATION_18_19, // Add composite indices on transactions
+                    MIGRATION_19_20, // Add daily_spend rollup maintained by triggers
+                    MIGRATION_20_21, // Add transactions_fts full-text index
+                    MIGRATION_21_22, // Add category keyset-pagination index
+                    MIGRATION_22_23  // Move SMS bodies into compressed sms_bodies
                 )
                 .build()
                 INSTANCE = instance
@@ -424,11 +437,302 @@ abstract class ExpenseDatabase : RoomDatabase() {
                 )
             }
         }
+
+        // Migration from version 15 to 16: Add checkpoint columns to sync_state so an
+        // interrupted historical scan resumes after the last committed SMS instead of
+        // starting over. Defaults mean "no checkpoint".
+        val MIGRATION_15_16 = object : Migration(15, 16) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "ALTER TABLE sync_state ADD COLUMN checkpoint_sms_row_id INTEGER NOT NULL DEFAULT 0"
+                )
+                database.execSQL(
+                    "ALTER TABLE sync_state ADD COLUMN checkpoint_sms_date INTEGER"
+                )
+                database.execSQL(
+                    "ALTER TABLE sync_state ADD COLUMN checkpoint_scan_since INTEGER"
+                )
+                database.execSQL(
+                    "ALTER TABLE sync_state ADD COLUMN checkpoint_parsed INTEGER NOT NULL DEFAULT 0"
+                )
+                database.execSQL(
+                    "ALTER TABLE sync_state ADD COLUMN checkpoint_duplicates INTEGER NOT NULL DEFAULT 0"
+                )
+                database.execSQL(
+                    "ALTER TABLE sync_state ADD COLUMN checkpoint_inserted INTEGER NOT NULL DEFAULT 0"
+                )
+            }
+        }
+
+        // Migration from version 16 to 17: Track the highest SMS _ID covered by the last
+        // completed sync so incremental syncs query `_ID > mark` instead of re-reading a
+        // 24h overlap. 0 keeps the old timestamp window until the first sync sets it.
+        val MIGRATION_16_17 = object : Migration(16, 17) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "ALTER TABLE sync_state ADD COLUMN last_sms_row_id INTEGER NOT NULL DEFAULT 0"
+                )
+            }
+        }
+
+        // Migration from version 17 to 18: Add parse_cache, remembered SMS parse outcomes
+        // keyed by body/sender hash and rules version. Starts empty; it is only a cache.
+        val MIGRATION_17_18 = object : Migration(17, 18) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "CREATE TABLE IF NOT EXISTS parse_cache (" +
+                        "body_hash TEXT NOT NULL, " +
+                        "sender_hash TEXT NOT NULL, " +
+                        "rules_version TEXT NOT NULL, " +
+                        "accepted INTEGER NOT NULL, " +
+                        "reject_reason TEXT, " +
+                        "reject_counted INTEGER NOT NULL, " +
+                        "amount REAL, " +
+                        "merchant TEXT, " +
+                        "bank_name TEXT, " +
+                        "transaction_date INTEGER, " +
+                        "is_debit INTEGER NOT NULL, " +
+                        "reference_number TEXT, " +
+                        "confidence REAL NOT NULL, " +
+                        "PRIMARY KEY(body_hash, sender_hash))"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_parse_cache_rules_version ON parse_cache(rules_version)"
+                )
+            }
+        }
+
+        // Migration from version 18 to 19: Composite indices on transactions for the DAO
+        // access paths (active-by-date lists, debit/credit totals and breakdowns, merchant,
+        // bank and category lookups, duplicate checks). Until now only sms_id was indexed,
+        // so every screen query scanned the whole table. Index-only; no data changes.
+        val MIGRATION_18_19 = object : Migration(18, 19) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_transactions_is_active_transaction_date " +
+                        "ON transactions(is_active, transaction_date)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_transactions_is_active_is_debit_transaction_date_amount_category_id_normalized_merchant " +
+                        "ON transactions(is_active, is_debit, transaction_date, amount, category_id, normalized_merchant)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_transactions_normalized_merchant_is_active_transaction_date " +
+                        "ON transactions(normalized_merchant, is_active, transaction_date)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_transactions_normalized_merchant_amount_bank_name_transaction_date_is_active " +
+                        "ON transactions(normalized_merchant, amount, bank_name, transaction_date, is_active)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_transactions_bank_name_is_active_transaction_date " +
+                        "ON transactions(bank_name, is_active, transaction_date)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_transactions_category_id_is_active_is_debit_transaction_date_amount_normalized_merchant " +
+                        "ON transactions(category_id, is_active, is_debit, transaction_date, amount, normalized_merchant)"
+                )
+            }
+        }
+
+        // Migration from version 19 to 20: Add the daily_spend rollup (sum and count per UTC
+        // day, category, merchant and direction) so range aggregates stop re-reading every
+        // transaction. Triggers on transactions keep it current; it is filled here once.
+        val MIGRATION_19_20 = object : Migration(19, 20) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "CREATE TABLE IF NOT EXISTS daily_spend (" +
+                        "day INTEGER NOT NULL, " +
+                        "category_id INTEGER NOT NULL, " +
+                        "normalized_merchant TEXT NOT NULL, " +
+                        "is_debit INTEGER NOT NULL, " +
+                        "total_amount REAL NOT NULL, " +
+                        "transaction_count INTEGER NOT NULL, " +
+                        "last_transaction_date INTEGER NOT NULL, " +
+                        "PRIMARY KEY(day, category_id, normalized_merchant, is_debit))"
+                )
+                DailySpendRollup.createTriggers(database)
+                DailySpendRollup.rebuild(database)
+            }
+        }
+
+        // Migration from version 20 to 21: Add transactions_fts, an FTS4 external-content
+        // index over merchant names, bank and SMS body (TransactionFtsEntity). The table and
+        // content-sync triggers match what Room generates for the entity; 'rebuild' indexes
+        // the existing rows from transactions.
+        val MIGRATION_20_21 = object : Migration(20, 21) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "CREATE VIRTUAL TABLE IF NOT EXISTS `transactions_fts` USING FTS4(" +
+                        "`raw_merchant` TEXT NOT NULL, " +
+                        "`normalized_merchant` TEXT NOT NULL, " +
+                        "`bank_name` TEXT NOT NULL, " +
+                        "`raw_sms_body` TEXT NOT NULL, " +
+                        "tokenize=unicode61, content=`transactions`)"
+                )
+                val ftsDelete = "DELETE FROM `transactions_fts` WHERE `docid`=OLD.`rowid`;"
+                val ftsInsert = "INSERT INTO `transactions_fts`" +
+                    "(`docid`, `raw_merchant`, `normalized_merchant`, `bank_name`, `raw_sms_body`) " +
+                    "VALUES (NEW.`rowid`, NEW.`raw_merchant`, NEW.`normalized_merchant`, NEW.`bank_name`, NEW.`raw_sms_body`);"
+                database.execSQL(
+                    "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_BEFORE_UPDATE " +
+                        "BEFORE UPDATE ON `transactions` BEGIN $ftsDelete END"
+                )
+                database.execSQL(
+                    "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_BEFORE_DELETE " +
+                        "BEFORE DELETE ON `transactions` BEGIN $ftsDelete END"
+                )
+                database.execSQL(
+                    "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_AFTER_UPDATE " +
+                        "AFTER UPDATE ON `transactions` BEGIN $ftsInsert END"
+                )
+                database.execSQL(
+                    "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_AFTER_INSERT " +
+                        "AFTER INSERT ON `transactions` BEGIN $ftsInsert END"
+                )
+                database.execSQL("INSERT INTO transactions_fts(transactions_fts) VALUES('rebuild')")
+            }
+        }
+
+        // Migration from version 21 to 22: Add the (category_id, is_active, transaction_date)
+        // index so the category transactions list can page in (transaction_date, id) order
+        val MIGRATION_21_22 = object : Migration(21, 22) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_transactions_category_id_is_active_transaction_date " +
+                        "ON transactions(category_id, is_active, transaction_date)"
+                )
+            }
+        }
+
+        // Migration from version 22 to 23: Move raw_sms_body out of transactions. Bodies go
+        // to sms_bodies, compressed (SmsBodyEntity), and their words to the contentless
+        // sms_bodies_fts; transactions_fts keeps indexing merchant and bank only. SQLite on
+        // older devices cannot drop a column, so transactions is rebuilt: copy to
+        // transactions_new, drop, rename. Bodies are copied in batches (SmsBodyStorage).
+        val MIGRATION_22_23 = object : Migration(22, 23) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `sms_bodies` (" +
+                        "`transaction_id` INTEGER NOT NULL, " +
+                        "`body` BLOB NOT NULL, " +
+                        "PRIMARY KEY(`transaction_id`), " +
+                        "FOREIGN KEY(`transaction_id`) REFERENCES `transactions`(`id`) " +
+                        "ON UPDATE NO ACTION ON DELETE CASCADE )"
+                )
+                SmsBodyStorage.createIndex(database)
+                SmsBodyStorage.copyFromTransactions(database)
+
+                // The old index reads raw_sms_body from transactions; recreated below
+                database.execSQL("DROP TABLE IF EXISTS `transactions_fts`")
+
+                // Dropping the table forgets its AUTOINCREMENT mark; ids must never be
+                // reused (stale sms_bodies_fts entries), so it is carried over
+                val lastId = database.query(
+                    "SELECT MAX(seq) FROM (" +
+                        "SELECT seq FROM sqlite_sequence WHERE name = 'transactions' " +
+                        "UNION ALL SELECT MAX(id) FROM transactions)"
+                ).use { cursor -> if (cursor.moveToFirst()) cursor.getLong(0) else 0L }
+
+                val columns = "`id`, `sms_id`, `amount`, `raw_merchant`, `normalized_merchant`, " +
+                    "`category_id`, `bank_name`, `transaction_date`, `confidence_score`, `is_debit`, " +
+                    "`reference_number`, `is_active`, `created_at`, `updated_at`"
+                database.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `transactions_new` (" +
+                        "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                        "`sms_id` TEXT NOT NULL, " +
+                        "`amount` REAL NOT NULL, " +
+                        "`raw_merchant` TEXT NOT NULL, " +
+                        "`normalized_merchant` TEXT NOT NULL, " +
+                        "`category_id` INTEGER NOT NULL, " +
+                        "`bank_name` TEXT NOT NULL, " +
+                        "`transaction_date` INTEGER NOT NULL, " +
+                        "`confidence_score` REAL NOT NULL, " +
+                        "`is_debit` INTEGER NOT NULL, " +
+                        "`reference_number` TEXT, " +
+                        "`is_active` INTEGER NOT NULL, " +
+                        "`created_at` INTEGER NOT NULL, " +
+                        "`updated_at` INTEGER NOT NULL)"
+                )
+                database.execSQL("INSERT INTO `transactions_new` ($columns) SELECT $columns FROM `transactions`")
+                database.execSQL("DROP TABLE `transactions`")
+                database.execSQL("ALTER TABLE `transactions_new` RENAME TO `transactions`")
+                database.execSQL("DELETE FROM sqlite_sequence WHERE name = 'transactions'")
+                database.execSQL("INSERT INTO sqlite_sequence (name, seq) VALUES ('transactions', $lastId)")
+
+                database.execSQL(
+                    "CREATE UNIQUE INDEX IF NOT EXISTS index_transactions_sms_id ON transactions(sms_id)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_transactions_is_active_transaction_date " +
+                        "ON transactions(is_active, transaction_date)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_transactions_is_active_is_debit_transaction_date_amount_category_id_normalized_merchant " +
+                        "ON transactions(is_active, is_debit, transaction_date, amount, category_id, normalized_merchant)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_transactions_normalized_merchant_is_active_transaction_date " +
+                        "ON transactions(normalized_merchant, is_active, transaction_date)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_transactions_normalized_merchant_amount_bank_name_transaction_date_is_active " +
+                        "ON transactions(normalized_merchant, amount, bank_name, transaction_date, is_active)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_transactions_bank_name_is_active_transaction_date " +
+                        "ON transactions(bank_name, is_active, transaction_date)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_transactions_category_id_is_active_is_debit_transaction_date_amount_normalized_merchant " +
+                        "ON transactions(category_id, is_active, is_debit, transaction_date, amount, normalized_merchant)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS index_transactions_category_id_is_active_transaction_date " +
+                        "ON transactions(category_id, is_active, transaction_date)"
+                )
+
+                // The rollup triggers went with the old table; its rows are unchanged
+                DailySpendRollup.createTriggers(database)
+
+                database.execSQL(
+                    "CREATE VIRTUAL TABLE IF NOT EXISTS `transactions_fts` USING FTS4(" +
+                        "`raw_merchant` TEXT NOT NULL, " +
+                        "`normalized_merchant` TEXT NOT NULL, " +
+                        "`bank_name` TEXT NOT NULL, " +
+                        "tokenize=unicode61, content=`transactions`)"
+                )
+                val ftsDelete = "DELETE FROM `transactions_fts` WHERE `docid`=OLD.`rowid`;"
+                val ftsInsert = "INSERT INTO `transactions_fts`" +
+                    "(`docid`, `raw_merchant`, `normalized_merchant`, `bank_name`) " +
+                    "VALUES (NEW.`rowid`, NEW.`raw_merchant`, NEW.`normalized_merchant`, NEW.`bank_name`);"
+                database.execSQL(
+                    "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_BEFORE_UPDATE " +
+                        "BEFORE UPDATE ON `transactions` BEGIN $ftsDelete END"
+                )
+                database.execSQL(
+                    "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_BEFORE_DELETE " +
+                        "BEFORE DELETE ON `transactions` BEGIN $ftsDelete END"
+                )
+                database.execSQL(
+                    "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_AFTER_UPDATE " +
+                        "AFTER UPDATE ON `transactions` BEGIN $ftsInsert END"
+                )
+                database.execSQL(
+                    "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_AFTER_INSERT " +
+                        "AFTER INSERT ON `transactions` BEGIN $ftsInsert END"
+                )
+                database.execSQL("INSERT INTO transactions_fts(transactions_fts) VALUES('rebuild')")
+            }
+        }
     }
 
     private class DatabaseCallback : RoomDatabase.Callback() {
         override fun onCreate(db: SupportSQLiteDatabase) {
             super.onCreate(db)
+            // Room creates tables, not triggers or the contentless body index
+            DailySpendRollup.createTriggers(db)
+            SmsBodyStorage.createIndex(db)
             // Pre-populate with default categories
             insertDefaultCategories(db)
         }
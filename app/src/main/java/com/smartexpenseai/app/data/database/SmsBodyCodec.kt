@@ -0,0 +1,105 @@
+package com.smartexpenseai.app.data.database
+
+import java.io.ByteArrayOutputStream
+import java.util.zip.DataFormatException
+import java.util.zip.Deflater
+import java.util.zip.Inflater
+
+/**
+ * Storage format of `sms_bodies.body` (SmsBodyEntity).
+ *
+ * The first byte names the format and the rest is the payload:
+ * - [FORMAT_PLAIN]: UTF-8 text, for bodies DEFLATE does not shrink (very short ones)
+ * - [FORMAT_DEFLATE_V1]: raw DEFLATE of the UTF-8 text with [DICTIONARY_V1] preset
+ *
+ * Bank SMS are too short for plain DEFLATE to find repeats within one message (about
+ * 10% smaller). The preset dictionary holds phrases that recur across banks, so a
+ * typical alert compresses to roughly 60% of its size.
+ *
+ * Stored rows are never rewritten: a changed dictionary needs a new format byte, and
+ * [DICTIONARY_V1] must stay byte-for-byte as it is.
+ */
+object SmsBodyCodec {
+
+    private const val FORMAT_PLAIN: Byte = 0
+    private const val FORMAT_DEFLATE_V1: Byte = 1
+
+    // Ordered from rare to common: DEFLATE reaches the end of the dictionary most cheaply
+    private const val DICTIONARY_V1 =
+        "Dear Customer, your OTP is valid for 10 minutes. Do not share it with anyone. " +
+            "Download the mobile app. Apply now Your KYC update is pending. Card ending " +
+            " Credit Card  Debit Card  ATM withdrawal  POS txn  EMI  auto-debit  mandate  NACH " +
+            " ECS  cheque  clearing  - HDFC Bank - ICICI Bank - Axis Bank - Kotak Bank -SBI " +
+            "- Yes Bank - IndusInd Bank - Bank of Baroda - Punjab National Bank - Canara Bank " +
+            "- IDFC FIRST Bank - Federal Bank  NEFT  IMPS  RTGS  by a/c linked to mobile " +
+            " linked to VPA @okaxis @oksbi @okhdfcbank @okicici @ybl @paytm @upi  Not you? " +
+            "Call 1800 If not done by you, call  To dispute, call  to report fraud SMS BLOCK " +
+            " to  Avl Lmt: INR  Avl Bal: INR  Available balance is Rs. Avbl Bal: Rs. " +
+            "Total Bal: Rs. Clr Bal  Info: UPI/ Ref No  Refno  UPI Ref No  UPI:  Txn ID " +
+            " transaction  txn of INR  spent on  at  on  from  to  Salary credited to your A/c " +
+            " has been credited to your account  has been debited from your account " +
+            " is credited with INR  is debited with INR  credited by Rs. debited by Rs. " +
+            " Sent Rs. Received Rs. Rs. debited from A/c XX Rs. credited to A/c XX INR  Rs. "
+
+    private val dictionaryV1 = DICTIONARY_V1.toByteArray(Charsets.UTF_8)
+
+    /** Encodes [bodies] in order, sharing one compressor across the batch. */
+    fun encode(bodies: List<String>): List<ByteArray> {
+        val deflater = Deflater(Deflater.BEST_COMPRESSION, true)
+        val buffer = ByteArray(1024)
+        try {
+            return bodies.map { body ->
+                val text = body.toByteArray(Charsets.UTF_8)
+                deflater.reset()
+                deflater.setDictionary(dictionaryV1)
+                deflater.setInput(text)
+                deflater.finish()
+                val compressed = ByteArrayOutputStream(text.size + 1)
+                compressed.write(FORMAT_DEFLATE_V1.toInt())
+                while (!deflater.finished()) {
+                    compressed.write(buffer, 0, deflater.deflate(buffer))
+                }
+                if (compressed.size() < text.size + 1) {
+                    compressed.toByteArray()
+                } else {
+                    byteArrayOf(FORMAT_PLAIN) + text
+                }
+            }
+        } finally {
+            deflater.end()
+        }
+    }
+
+    fun encode(body: String): ByteArray = encode(listOf(body)).single()
+
+    /** The body text of a stored value; throws [DataFormatException] if it is corrupt. */
+    fun decode(stored: ByteArray): String {
+        if (stored.isEmpty()) throw DataFormatException("Empty SMS body value")
+        return when (stored[0]) {
+            FORMAT_PLAIN -> String(stored, 1, stored.size - 1, Charsets.UTF_8)
+            FORMAT_DEFLATE_V1 -> inflate(stored, dictionaryV1)
+            else -> throw DataFormatException("Unknown SMS body format ${stored[0]}")
+        }
+    }
+
+    private fun inflate(stored: ByteArray, dictionary: ByteArray): String {
+        val inflater = Inflater(true)
+        try {
+            inflater.setDictionary(dictionary)
+            // Raw inflate wants one byte past the end of the stream ("nowrap" in Inflater)
+            inflater.setInput(stored.copyOf(stored.size + 1), 1, stored.size)
+            val text = ByteArrayOutputStream(stored.size * 2)
+            val buffer = ByteArray(1024)
+            while (!inflater.finished()) {
+                val count = inflater.inflate(buffer)
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw DataFormatException("Truncated SMS body value")
+                }
+                text.write(buffer, 0, count)
+            }
+            return text.toString("UTF-8")
+        } finally {
+            inflater.end()
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.smartexpenseai.app.data.database
+
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * Cold storage for SMS bodies: `sms_bodies` (SmsBodyEntity) holds each transaction's
+ * text compressed with SmsBodyCodec, and `sms_bodies_fts` indexes its words for search.
+ *
+ * sms_bodies_fts is a contentless FTS4 table: it keeps the index but not the text, so
+ * bodies are not stored a second time uncompressed. Room cannot declare such a table, so
+ * it is created here, written through [index] and read by TransactionDao queries marked
+ * @SkipQueryVerification. A contentless table cannot delete rows. Entries of hard-deleted
+ * transactions stay behind but never match again: transaction ids are AUTOINCREMENT and
+ * never reused, and every query joins back to `transactions`.
+ */
+object SmsBodyStorage {
+
+    const val CREATE_INDEX_SQL =
+        "CREATE VIRTUAL TABLE IF NOT EXISTS sms_bodies_fts USING FTS4(body, content='', tokenize=unicode61)"
+
+    // Rows per step of the migration copy; bounds its memory to one batch of bodies
+    private const val COPY_BATCH_SIZE = 500
+
+    /** Creates sms_bodies_fts. Room creates sms_bodies itself. */
+    fun createIndex(db: SupportSQLiteDatabase) {
+        db.execSQL(CREATE_INDEX_SQL)
+    }
+
+    /** Adds the words of [bodies] to sms_bodies_fts under the matching [transactionIds]. */
+    fun index(db: SupportSQLiteDatabase, transactionIds: List<Long>, bodies: List<String>) {
+        require(transactionIds.size == bodies.size) { "One body per transaction id" }
+        db.compileStatement("INSERT INTO sms_bodies_fts (docid, body) VALUES (?, ?)").use { statement ->
+            transactionIds.forEachIndexed { index, transactionId ->
+                statement.bindLong(1, transactionId)
+                statement.bindString(2, bodies[index])
+                statement.executeInsert()
+            }
+        }
+    }
+
+    /**
+     * Moves `transactions.raw_sms_body` into sms_bodies and sms_bodies_fts, for the
+     * migration that drops the column. Reads in id order, [COPY_BATCH_SIZE] rows at a
+     * time, so memory use does not grow with the number of transactions. Both tables
+     * must exist; the column is left for the caller to drop.
+     */
+    fun copyFromTransactions(db: SupportSQLiteDatabase) {
+        db.compileStatement("INSERT INTO sms_bodies (transaction_id, body) VALUES (?, ?)").use { insert ->
+            var afterId = 0L
+            while (true) {
+                val transactionIds = ArrayList<Long>(COPY_BATCH_SIZE)
+                val bodies = ArrayList<String>(COPY_BATCH_SIZE)
+                db.query(
+                    "SELECT id, raw_sms_body FROM transactions WHERE id > ? ORDER BY id LIMIT $COPY_BATCH_SIZE",
+                    arrayOf<Any?>(afterId)
+                ).use { cursor ->
+                    while (cursor.moveToNext()) {
+                        transactionIds.add(cursor.getLong(0))
+                        bodies.add(cursor.getString(1).orEmpty())
+                    }
+                }
+                if (transactionIds.isEmpty()) break
+
+                SmsBodyCodec.encode(bodies).forEachIndexed { index, stored ->
+                    insert.bindLong(1, transactionIds[index])
+                    insert.bindBlob(2, stored)
+                    insert.executeInsert()
+                }
+                index(db, transactionIds, bodies)
+                afterId = transactionIds.last()
+            }
+        }
+    }
+}
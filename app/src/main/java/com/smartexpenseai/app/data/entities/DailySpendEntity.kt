@@ -0,0 +1,41 @@
+package com.smartexpenseai.app.data.entities
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import java.util.Date
+
+/**
+ * Per-day rollup of active transactions: one row per (day, category, merchant, direction)
+ * with the amount sum and count, so range aggregates read one row per day and merchant
+ * instead of every transaction.
+ *
+ * Never written by app code. SQLite triggers on `transactions` keep it current (see
+ * DailySpendRollup); a row exists only while at least one active transaction backs it.
+ */
+@Entity(
+    tableName = "daily_spend",
+    primaryKeys = ["day", "category_id", "normalized_merchant", "is_debit"]
+)
+data class DailySpendEntity(
+    // UTC epoch day: transaction_date / 86_400_000
+    @ColumnInfo(name = "day")
+    val day: Long,
+
+    @ColumnInfo(name = "category_id")
+    val categoryId: Long,
+
+    @ColumnInfo(name = "normalized_merchant")
+    val normalizedMerchant: String,
+
+    @ColumnInfo(name = "is_debit")
+    val isDebit: Boolean,
+
+    @ColumnInfo(name = "total_amount")
+    val totalAmount: Double,
+
+    @ColumnInfo(name = "transaction_count")
+    val transactionCount: Int,
+
+    @ColumnInfo(name = "last_transaction_date")
+    val lastTransactionDate: Date
+)
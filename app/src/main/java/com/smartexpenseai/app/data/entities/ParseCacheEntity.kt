@@ -0,0 +1,62 @@
+package com.smartexpenseai.app.data.entities
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Index
+import java.util.Date
+
+/**
+ * Remembered outcome of parsing one SMS, so history rescans skip messages that were
+ * already accepted or rejected under the same rules.
+ *
+ * Keyed by hashes of the body and sender; rows whose [rulesVersion] differs from the
+ * current parser rules are ignored and purged at the start of the next scan.
+ */
+@Entity(
+    tableName = "parse_cache",
+    primaryKeys = ["body_hash", "sender_hash"],
+    indices = [Index(value = ["rules_version"])]
+)
+data class ParseCacheEntity(
+    @ColumnInfo(name = "body_hash")
+    val bodyHash: String,
+
+    @ColumnInfo(name = "sender_hash")
+    val senderHash: String,
+
+    @ColumnInfo(name = "rules_version")
+    val rulesVersion: String,
+
+    @ColumnInfo(name = "accepted")
+    val accepted: Boolean,
+
+    // Rejected outcomes: reason written to the rejection log, and whether the scan
+    // tallies it as a rejection (parse failures of non-bank SMS are not tallied)
+    @ColumnInfo(name = "reject_reason")
+    val rejectReason: String? = null,
+
+    @ColumnInfo(name = "reject_counted")
+    val rejectCounted: Boolean = false,
+
+    // Accepted outcomes: extracted fields
+    @ColumnInfo(name = "amount")
+    val amount: Double? = null,
+
+    @ColumnInfo(name = "merchant")
+    val merchant: String? = null,
+
+    @ColumnInfo(name = "bank_name")
+    val bankName: String? = null,
+
+    @ColumnInfo(name = "transaction_date")
+    val transactionDate: Date? = null,
+
+    @ColumnInfo(name = "is_debit")
+    val isDebit: Boolean = true,
+
+    @ColumnInfo(name = "reference_number")
+    val referenceNumber: String? = null,
+
+    @ColumnInfo(name = "confidence")
+    val confidence: Float = 0f
+)
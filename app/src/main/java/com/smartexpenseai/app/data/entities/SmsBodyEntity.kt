@@ -0,0 +1,35 @@
+package com.smartexpenseai.app.data.entities
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.PrimaryKey
+
+/**
+ * The SMS text of a transaction, kept out of `transactions` so scans and aggregates over
+ * that table read only the narrow columns. One row per transaction; deleting the
+ * transaction deletes it.
+ *
+ * [body] is compressed (see SmsBodyCodec). Read it through ExpenseRepository.getSmsBody
+ * or getSmsBodies, which decode it. The words are indexed separately in sms_bodies_fts
+ * (see SmsBodyStorage).
+ */
+@Entity(
+    tableName = "sms_bodies",
+    foreignKeys = [
+        ForeignKey(
+            entity = TransactionEntity::class,
+            parentColumns = ["id"],
+            childColumns = ["transaction_id"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ]
+)
+class SmsBodyEntity(
+    @PrimaryKey
+    @ColumnInfo(name = "transaction_id")
+    val transactionId: Long,
+
+    @ColumnInfo(name = "body", typeAffinity = ColumnInfo.BLOB)
+    val body: ByteArray
+)
@@ -23,5 +23,33 @@ data class SyncStateEntity(
     val lastFullSync: Date,
     
     @ColumnInfo(name = "sync_status")
-    val syncStatus: String = "COMPLETED" // COMPLETED, IN_PROGRESS, FAILED
-)
\ No newline at end of file
+    val syncStatus: String = "COMPLETED", // COMPLETED, IN_PROGRESS, FAILED
+
+    // High-water mark: highest Telephony.Sms._ID covered by the last completed sync.
+    // 0 = unknown, the next incremental sync falls back to the timestamp window.
+    @ColumnInfo(name = "last_sms_row_id", defaultValue = "0")
+    val lastSmsRowId: Long = 0,
+
+    // Checkpoint of an unfinished historical scan, written with every committed batch.
+    // checkpoint_sms_row_id = 0 means there is nothing to resume.
+    @ColumnInfo(name = "checkpoint_sms_row_id", defaultValue = "0")
+    val checkpointSmsRowId: Long = 0, // Telephony.Sms._ID of the last committed SMS
+
+    @ColumnInfo(name = "checkpoint_sms_date")
+    val checkpointSmsDate: Date? = null, // Newest transaction date committed so far
+
+    @ColumnInfo(name = "checkpoint_scan_since")
+    val checkpointScanSince: Date? = null, // Lower bound of the interrupted scan (null = full scan)
+
+    @ColumnInfo(name = "checkpoint_parsed", defaultValue = "0")
+    val checkpointParsed: Int = 0,
+
+    @ColumnInfo(name = "checkpoint_duplicates", defaultValue = "0")
+    val checkpointDuplicates: Int = 0,
+
+    @ColumnInfo(name = "checkpoint_inserted", defaultValue = "0")
+    val checkpointInserted: Int = 0
+) {
+    val hasCheckpoint: Boolean
+        get() = checkpointSmsRowId > 0
+}
\ No newline at end of file
@@ -7,9 +7,27 @@ import androidx.room.Index
 import java.util.Date
 
 // FIXED: Add unique index on sms_id to prevent duplicate SMS entries
+// The composite indices cover the DAO access paths (see MIGRATION_18_19); QueryPlanTest
+// fails if a query falls back to scanning this table.
+// The SMS text is kept out of this table, in sms_bodies (SmsBodyEntity).
 @Entity(
     tableName = "transactions",
-    indices = [Index(value = ["sms_id"], unique = true)]
+    indices = [
+        Index(value = ["sms_id"], unique = true),
+        // Screen lists and counts: active rows by date, newest first
+        Index(value = ["is_active", "transaction_date"]),
+        // Expense/income totals and breakdowns, answered from the index alone
+        Index(value = ["is_active", "is_debit", "transaction_date", "amount", "category_id", "normalized_merchant"]),
+        // Per-merchant lists, soft delete/restore and recategorization by merchant
+        Index(value = ["normalized_merchant", "is_active", "transaction_date"]),
+        // Duplicate lookups and auto-tag siblings (same merchant and amount)
+        Index(value = ["normalized_merchant", "amount", "bank_name", "transaction_date", "is_active"]),
+        Index(value = ["bank_name", "is_active", "transaction_date"]),
+        // Category drill-down and reassignment
+        Index(value = ["category_id", "is_active", "is_debit", "transaction_date", "amount", "normalized_merchant"]),
+        // Category transaction list: keyset pages in (transaction_date, id) order
+        Index(value = ["category_id", "is_active", "transaction_date"])
+    ]
 )
 data class TransactionEntity(
     @PrimaryKey(autoGenerate = true)
@@ -36,9 +54,6 @@ data class TransactionEntity(
     
     @ColumnInfo(name = "transaction_date")
     val transactionDate: Date,
-    
-    @ColumnInfo(name = "raw_sms_body")
-    val rawSmsBody: String,
 
     @ColumnInfo(name = "confidence_score")
     val confidenceScore: Float,
@@ -61,6 +76,8 @@ data class TransactionEntity(
     val updatedAt: Date
 ) {
     companion object {
+        private val SYNTHETIC_REFERENCE_REGEX = Regex("CARD\\d{4}[TH].*")
+
         /**
          * True for pseudo-references synthesized by the parser for card SMS that
          * carry no real reference number ("CARD1234H<bodyHash>", older "CARD1234T<ts>").
@@ -68,7 +85,20 @@ data class TransactionEntity(
          * refs can still describe the same transaction.
          */
         fun isSyntheticReference(referenceNumber: String?): Boolean =
-            referenceNumber != null && referenceNumber.matches(Regex("CARD\\d{4}[TH].*"))
+            referenceNumber != null && SYNTHETIC_REFERENCE_REGEX.matches(referenceNumber)
+
+        /**
+         * True when two otherwise similar transactions carry different, authoritative
+         * reference numbers and therefore must NOT be treated as duplicates.
+         * Blank or synthetic refs never conflict (see [isSyntheticReference]).
+         */
+        fun referencesConflict(newReference: String?, existingReference: String?): Boolean {
+            val newRef = newReference?.trim()
+            val existingRef = existingReference?.trim()
+            if (newRef.isNullOrBlank() || existingRef.isNullOrBlank()) return false
+            if (isSyntheticReference(newRef) || isSyntheticReference(existingRef)) return false
+            return newRef != existingRef
+        }
 
         /**
          * Generate a consistent SMS ID from SMS content to prevent duplicates
@@ -0,0 +1,34 @@
+package com.smartexpenseai.app.data.entities
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Fts4
+import androidx.room.FtsOptions
+import androidx.room.PrimaryKey
+
+/**
+ * Full-text index over the merchant names and bank of `transactions`. External content:
+ * the text stays in `transactions`, and Room's content-sync triggers keep the index
+ * current on insert, update and delete. rowid = transaction id. SMS bodies have their
+ * own index, sms_bodies_fts (see SmsBodyStorage).
+ *
+ * Soft-deleted rows stay indexed; queries that feed screens join back to `transactions`
+ * and filter on is_active. Query through TransactionSearch, which builds MATCH
+ * expressions and ranks hits.
+ */
+@Fts4(contentEntity = TransactionEntity::class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "transactions_fts")
+data class TransactionFtsEntity(
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    val rowId: Long,
+
+    @ColumnInfo(name = "raw_merchant")
+    val rawMerchant: String,
+
+    @ColumnInfo(name = "normalized_merchant")
+    val normalizedMerchant: String,
+
+    @ColumnInfo(name = "bank_name")
+    val bankName: String
+)
@@ -58,16 +58,17 @@ data class Transaction(
         }
 
         /**
-         * Convert TransactionEntity to Transaction domain model
+         * Convert TransactionEntity to Transaction domain model. The entity carries no SMS
+         * body; pass [rawSMS] when the caller has loaded it (ExpenseRepository.getSmsBody).
          */
-        fun fromEntity(entity: TransactionEntity): Transaction {
+        fun fromEntity(entity: TransactionEntity, rawSMS: String = ""): Transaction {
             return Transaction(
                 id = entity.id.toString(),
                 amount = entity.amount,
                 merchant = entity.normalizedMerchant,
                 category = "General", // Default category since not available in entity
                 date = entity.transactionDate.time,
-                rawSMS = entity.rawSmsBody,
+                rawSMS = rawSMS,
                 confidence = entity.confidenceScore,
                 bankName = entity.bankName,
                 transactionType = if (entity.isDebit) TransactionType.DEBIT else TransactionType.CREDIT,
@@ -48,13 +48,15 @@ class ExpenseRepository @Inject constructor(
             return INSTANCE ?: synchronized(this) {
                 val database = ExpenseDatabase.getDatabase(context)
                 // Create dependencies for SMSParsingService
-                val ruleLoader = com.smartexpenseai.app.parsing.engine.RuleLoader(context.applicationContext)
+                val ruleLoader = com.smartexpenseai.app.parsing.engine.RuleLoader(
+                    com.smartexpenseai.app.parsing.engine.FileRuleSource(context.applicationContext)
+                )
                 val confidenceCalculator = com.smartexpenseai.app.parsing.engine.ConfidenceCalculator()
                 val unifiedParser = com.smartexpenseai.app.parsing.engine.UnifiedSMSParser(ruleLoader, confidenceCalculator)
                 val smsParsingService = SMSParsingService(context.applicationContext, unifiedParser)
 
                 // Create MerchantRuleEngine for auto-categorization
-                val merchantRuleEngine = MerchantRuleEngine(context.applicationContext)
+                val merchantRuleEngine = MerchantRuleEngine()
 
                 val instance = ExpenseRepository(
                     context.applicationContext,
@@ -84,7 +86,8 @@ class ExpenseRepository @Inject constructor(
         syncStateDao = syncStateDao,
         smsParsingService = smsParsingService,
         transactionFilterService = transactionFilterService,
-        merchantRuleEngine = merchantRuleEngine
+        merchantRuleEngine = merchantRuleEngine,
+        onTransactionsImported = { ids -> autoTagImportedTransactions(ids) }
     )
     private val merchantCategoryOperations = MerchantCategoryOperations(
         context = context,
@@ -119,16 +122,65 @@ class ExpenseRepository @Inject constructor(
     override suspend fun getTransactionsByDateRange(startDate: Date, endDate: Date): List<TransactionEntity> =
         transactionRepository.transactionsBetween(startDate, endDate)
 
-    suspend fun getTransactionsByDateRangePaginated(
+    /**
+     * Keyset-paged active transactions in a date range, newest first. Pass null for the
+     * first page, then the previous page's nextCursor. Counts come separately from
+     * getTransactionCountByDateRange.
+     */
+    suspend fun getTransactionPage(
         startDate: Date,
         endDate: Date,
-        limit: Int,
-        offset: Int
-    ): List<TransactionEntity> = transactionRepository.transactionsBetween(startDate, endDate, limit, offset)
+        cursor: String?,
+        pageSize: Int
+    ): TransactionPage = transactionRepository.transactionPage(startDate, endDate, cursor, pageSize)
 
+    suspend fun getMerchantTransactionPage(
+        normalizedMerchant: String,
+        startDate: Date,
+        endDate: Date,
+        cursor: String?,
+        pageSize: Int
+    ): TransactionPage =
+        transactionRepository.merchantTransactionPage(normalizedMerchant, startDate, endDate, cursor, pageSize)
+
+    /**
+     * Keyset-paged category list in any [TransactionSort] order. The cursor is only valid
+     * with the sort it was returned for.
+     */
+    suspend fun getCategoryTransactionPage(
+        categoryId: Long,
+        startDate: Date,
+        endDate: Date,
+        sort: TransactionSort,
+        cursor: String?,
+        pageSize: Int
+    ): TransactionPage =
+        transactionRepository.categoryTransactionPage(categoryId, startDate, endDate, sort, cursor, pageSize)
+
+    /** The SMS body of one transaction; list pages leave it out. */
+    suspend fun getSmsBody(transactionId: Long): String? =
+        transactionRepository.smsBody(transactionId)
+
+    /** SMS bodies by transaction id, for a page of a list, an export or a re-parse. */
+    suspend fun getSmsBodies(transactionIds: List<Long>): Map<Long, String> =
+        transactionRepository.smsBodies(transactionIds)
+
+    // Counts and totals for paged lists, read from the daily_spend rollup
     suspend fun getTransactionCountByDateRange(startDate: Date, endDate: Date): Int =
         transactionRepository.transactionCountBetween(startDate, endDate)
 
+    suspend fun getMerchantSummaryByDateRange(
+        normalizedMerchant: String,
+        startDate: Date,
+        endDate: Date
+    ): TransactionRangeSummary = transactionRepository.merchantSummaryBetween(normalizedMerchant, startDate, endDate)
+
+    suspend fun getCategorySummaryByDateRange(
+        categoryId: Long,
+        startDate: Date,
+        endDate: Date
+    ): TransactionRangeSummary = transactionRepository.categorySummaryBetween(categoryId, startDate, endDate)
+
     suspend fun getExpenseTransactionsByDateRange(startDate: Date, endDate: Date): List<TransactionEntity> =
         transactionRepository.expenseTransactionsBetween(startDate, endDate)
 
@@ -154,7 +206,7 @@ class ExpenseRepository @Inject constructor(
     suspend fun getActualBalance(startDate: Date, endDate: Date): Double =
         transactionRepository.actualBalance(startDate, endDate)
 
-    suspend fun getLastSalaryTransaction(): TransactionEntity? =
+    suspend fun getLastSalaryTransaction(): TransactionRow? =
         transactionRepository.lastSalaryTransaction()
 
     suspend fun getSalaryTransactions(
@@ -181,8 +233,8 @@ class ExpenseRepository @Inject constructor(
 
     override suspend fun getTransactionCount(): Int = transactionRepository.transactionCount()
 
-    override suspend fun insertTransaction(transactionEntity: TransactionEntity): Long =
-        transactionRepository.insertTransaction(transactionEntity)
+    override suspend fun insertTransaction(transactionEntity: TransactionEntity, smsBody: String): Long =
+        transactionRepository.insertTransaction(transactionEntity, smsBody)
 
     override suspend fun getTransactionBySmsId(smsId: String): TransactionEntity? =
         transactionRepository.transactionBySmsId(smsId)
@@ -197,8 +249,15 @@ class ExpenseRepository @Inject constructor(
         transactionRepository.updateSyncState(lastSyncDate)
     }
 
-    override suspend fun searchTransactions(query: String, limit: Int): List<TransactionEntity> =
-        transactionRepository.searchTransactions(query, limit)
+    override suspend fun searchTransactions(query: String, limit: Int, offset: Int): List<TransactionEntity> =
+        transactionRepository.searchTransactions(query, limit, offset)
+
+    /**
+     * Ids of the transactions dated within [startDate]..[endDate] whose merchant, bank or
+     * SMS text matches [query] (word prefixes, full-text index), soft-deleted ones included.
+     */
+    suspend fun searchTransactionIds(query: String, startDate: Date, endDate: Date): Set<Long> =
+        transactionRepository.searchTransactionIds(query, startDate, endDate)
 
     override suspend fun deleteTransaction(transaction: TransactionEntity) {
         transactionRepository.deleteTransaction(transaction)
@@ -242,6 +301,8 @@ class ExpenseRepository @Inject constructor(
 
             // Delete all transactions
             transactionDao.deleteAllTransactions()
+            // A sync checkpoint would skip SMS whose transactions were just removed
+            syncStateDao.clearCheckpoint()
 
             logger.info("deleteAllTransactions", "Successfully deleted $count transactions")
             return@withContext count
@@ -331,6 +392,19 @@ class ExpenseRepository @Inject constructor(
         }
     }
 
+    /**
+     * Auto-tag a batch of freshly imported SMS transactions. Categorization already
+     * happened set-based inside the import batch; only tagging remains.
+     * Best-effort: tagging failures never fail the sync.
+     */
+    private suspend fun autoTagImportedTransactions(transactionIds: List<Long>) {
+        try {
+            tagAutoApplyService.autoApplyOnIngest(transactionIds)
+        } catch (e: Exception) {
+            logger.warn("autoTagImportedTransactions", "Auto-tag skipped for ${transactionIds.size} imported transactions: ${e.message}")
+        }
+    }
+
     /**
      * Update category for all transactions with a specific merchant
      * This maintains data consistency when a merchant's category is changed
@@ -422,6 +496,14 @@ class ExpenseRepository @Inject constructor(
     override suspend fun getMerchantWithCategory(normalizedName: String): MerchantWithCategory? {
         return merchantDao.getMerchantWithCategory(normalizedName)
     }
+
+    /**
+     * The normalized merchant name behind a name taken from a merchant list (display name
+     * or normalized name). Falls back to [merchantName] when no merchant row matches.
+     */
+    suspend fun resolveNormalizedMerchant(merchantName: String): String {
+        return merchantDao.findNormalizedName(merchantName) ?: merchantName
+    }
     
     override suspend fun insertMerchant(merchant: MerchantEntity): Long {
         return merchantDao.insertMerchant(merchant)
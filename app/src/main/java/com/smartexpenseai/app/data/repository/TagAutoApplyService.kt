@@ -40,6 +40,16 @@ class TagAutoApplyService @Inject constructor(
         tagIds.forEach { tagDao.addTagToTransaction(TransactionTagEntity(transactionId, it)) }
     }
 
+    /**
+     * Batch variant for bulk SMS import. Skips all per-row work when no tag exists
+     * yet, which is always the case on a first-install scan.
+     */
+    suspend fun autoApplyOnIngest(transactionIds: List<Long>) = withContext(Dispatchers.IO) {
+        if (transactionIds.isEmpty() || !isEnabled()) return@withContext
+        if (tagDao.getTagCount() == 0) return@withContext
+        transactionIds.forEach { autoApplyOnIngest(it) }
+    }
+
     /** How many existing active transactions match [sourceTransactionId]'s signature. */
     suspend fun countMatchingTransactions(sourceTransactionId: Long): Int =
         withContext(Dispatchers.IO) { matchingTransactionIds(sourceTransactionId).size }
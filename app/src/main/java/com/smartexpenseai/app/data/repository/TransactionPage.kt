@@ -0,0 +1,20 @@
+package com.smartexpenseai.app.data.repository
+
+import com.smartexpenseai.app.data.dao.TransactionRow
+
+/**
+ * One page of a transaction list, newest first: (transaction_date DESC, id DESC), unless
+ * the list was asked for another TransactionSort. Rows carry no SMS body; fetch bodies
+ * with ExpenseRepository.getSmsBody(ies) where shown.
+ *
+ * [nextCursor] is an opaque token for the page after this one, or null when this is the
+ * last page. Pass it back unchanged together with the same list filters (range, merchant
+ * or category) and sort; a token is only meaningful for the list it came from.
+ */
+data class TransactionPage(
+    val transactions: List<TransactionRow>,
+    val nextCursor: String?
+) {
+    val hasMore: Boolean
+        get() = nextCursor != null
+}
@@ -0,0 +1,12 @@
+package com.smartexpenseai.app.data.repository
+
+/**
+ * Order of a keyset-paged transaction list. Every order ends with id as the tie-break,
+ * so a page position is unique; see TransactionPageCursor.
+ */
+enum class TransactionSort {
+    NEWEST_FIRST,    // (transaction_date DESC, id DESC)
+    OLDEST_FIRST,    // (transaction_date ASC, id ASC)
+    HIGHEST_AMOUNT,  // (amount DESC, id DESC)
+    LOWEST_AMOUNT    // (amount ASC, id ASC)
+}
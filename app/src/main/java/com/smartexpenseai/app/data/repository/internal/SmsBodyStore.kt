@@ -0,0 +1,46 @@
+package com.smartexpenseai.app.data.repository.internal
+
+import com.smartexpenseai.app.data.dao.TransactionDao
+import com.smartexpenseai.app.data.database.ExpenseDatabase
+import com.smartexpenseai.app.data.database.SmsBodyCodec
+import com.smartexpenseai.app.data.database.SmsBodyStorage
+import com.smartexpenseai.app.data.entities.SmsBodyEntity
+
+/**
+ * Reads and writes SMS bodies in sms_bodies (SmsBodyEntity), encoding them with
+ * SmsBodyCodec and keeping sms_bodies_fts in step for search.
+ *
+ * [store] must run inside the caller's [androidx.room.RoomDatabase.withTransaction]
+ * together with the insert of the transactions, so a body is never left without its
+ * row, or its row without a body.
+ */
+internal class SmsBodyStore(
+    private val database: ExpenseDatabase,
+    private val transactionDao: TransactionDao
+) {
+
+    companion object {
+        // Stay under SQLite's 999 bound-variable limit on older Android versions
+        private const val ID_CHUNK_SIZE = 500
+    }
+
+    suspend fun store(transactionIds: List<Long>, bodies: List<String>) {
+        if (transactionIds.isEmpty()) return
+        val encoded = SmsBodyCodec.encode(bodies)
+        transactionDao.insertSmsBodies(
+            transactionIds.mapIndexed { index, transactionId -> SmsBodyEntity(transactionId, encoded[index]) }
+        )
+        SmsBodyStorage.index(database.openHelper.writableDatabase, transactionIds, bodies)
+    }
+
+    suspend fun body(transactionId: Long): String? =
+        transactionDao.getSmsBody(transactionId)?.let { SmsBodyCodec.decode(it.body) }
+
+    suspend fun bodies(transactionIds: List<Long>): Map<Long, String> {
+        val bodies = HashMap<Long, String>(transactionIds.size * 2)
+        transactionIds.chunked(ID_CHUNK_SIZE).forEach { chunk ->
+            transactionDao.getSmsBodies(chunk).forEach { bodies[it.transactionId] = SmsBodyCodec.decode(it.body) }
+        }
+        return bodies
+    }
+}
@@ -0,0 +1,172 @@
+package com.smartexpenseai.app.data.repository.internal
+
+import androidx.room.withTransaction
+import com.smartexpenseai.app.data.dao.CategoryDao
+import com.smartexpenseai.app.data.dao.MerchantDao
+import com.smartexpenseai.app.data.dao.TransactionDao
+import com.smartexpenseai.app.data.database.ExpenseDatabase
+import com.smartexpenseai.app.data.entities.MerchantEntity
+import com.smartexpenseai.app.data.entities.TransactionEntity
+import com.smartexpenseai.app.utils.logging.StructuredLogger
+import java.util.Date
+
+/**
+ * Chunked commit stage for SMS import.
+ *
+ * Accepted rows are buffered and written [batchSize] at a time inside a single
+ * [androidx.room.RoomDatabase.withTransaction] block: missing merchants are
+ * upserted in bulk, the transactions go through one multi-row insert followed by
+ * their SMS bodies (SmsBodyStore), and categorization runs as one set-based UPDATE
+ * joined on `merchants`. Each chunk costs one fsync and one Room invalidation
+ * instead of one per row.
+ *
+ * [writeCheckpoint] runs inside the same transaction as each batch, so the sync
+ * checkpoint never points past rows that were not committed. Rows the caller drops
+ * (duplicates) are reported through [skip]; after [CHECKPOINT_INTERVAL] processed
+ * rows a checkpoint is written even if nothing was inserted.
+ *
+ * One instance per sync run. Call [flush] once the scan is done.
+ */
+internal class SmsImportBatcher private constructor(
+    private val database: ExpenseDatabase,
+    private val transactionDao: TransactionDao,
+    private val merchantDao: MerchantDao,
+    private val smsBodyStore: SmsBodyStore,
+    private val categoryIdsByName: Map<String, Long>,
+    private val knownMerchants: MutableSet<String>,
+    private val categorizeMerchant: (String) -> String,
+    private val onBatchCommitted: suspend (List<Long>) -> Unit,
+    private val writeCheckpoint: suspend (insertedSoFar: Int) -> Unit,
+    private val batchSize: Int
+) {
+
+    companion object {
+        const val DEFAULT_BATCH_SIZE = 200
+        const val CHECKPOINT_INTERVAL = 1000
+        private const val OTHER_CATEGORY_ID = 1L
+
+        suspend fun create(
+            database: ExpenseDatabase,
+            transactionDao: TransactionDao,
+            merchantDao: MerchantDao,
+            categoryDao: CategoryDao,
+            smsBodyStore: SmsBodyStore,
+            categorizeMerchant: (String) -> String,
+            onBatchCommitted: suspend (List<Long>) -> Unit,
+            writeCheckpoint: suspend (insertedSoFar: Int) -> Unit = {},
+            batchSize: Int = DEFAULT_BATCH_SIZE
+        ): SmsImportBatcher = SmsImportBatcher(
+            database = database,
+            transactionDao = transactionDao,
+            merchantDao = merchantDao,
+            smsBodyStore = smsBodyStore,
+            categoryIdsByName = categoryDao.getAllCategoriesSync().associate { it.name to it.id },
+            knownMerchants = merchantDao.getAllMerchantNames().toHashSet(),
+            categorizeMerchant = categorizeMerchant,
+            onBatchCommitted = onBatchCommitted,
+            writeCheckpoint = writeCheckpoint,
+            batchSize = batchSize
+        )
+    }
+
+    private val logger = StructuredLogger(
+        featureTag = "DATABASE",
+        className = "SmsImportBatcher"
+    )
+
+    private val pending = ArrayList<TransactionEntity>()
+    private val pendingBodies = ArrayList<String>()
+    private var processedSinceCommit = 0
+
+    /** Rows actually written (insert not ignored) and active. */
+    var insertedCount = 0
+        private set
+
+    /** Rows written inactive because their merchant was deleted by the user. */
+    var hiddenCount = 0
+        private set
+
+    suspend fun add(entity: TransactionEntity, smsBody: String) {
+        pending.add(entity)
+        pendingBodies.add(smsBody)
+        processedSinceCommit++
+        if (pending.size >= batchSize || processedSinceCommit >= CHECKPOINT_INTERVAL) {
+            flush()
+        }
+    }
+
+    /**
+     * Count a row the caller decided not to insert, so long duplicate runs still advance
+     * the checkpoint.
+     */
+    suspend fun skip() {
+        processedSinceCommit++
+        if (processedSinceCommit >= CHECKPOINT_INTERVAL) {
+            flush()
+        }
+    }
+
+    suspend fun flush() {
+        if (processedSinceCommit == 0) return
+        processedSinceCommit = 0
+
+        if (pending.isEmpty()) {
+            writeCheckpoint(insertedCount)
+            return
+        }
+
+        val batch = ArrayList(pending)
+        val bodies = ArrayList(pendingBodies)
+        pending.clear()
+        pendingBodies.clear()
+
+        val newMerchants = batch
+            .filter { knownMerchants.add(it.normalizedMerchant) }
+            .map { entity ->
+                val categoryName = categorizeMerchant(entity.rawMerchant)
+                MerchantEntity(
+                    normalizedName = entity.normalizedMerchant,
+                    displayName = entity.rawMerchant,
+                    categoryId = categoryIdsByName[categoryName]
+                        ?: categoryIdsByName["Other"]
+                        ?: OTHER_CATEGORY_ID,
+                    isUserDefined = false,
+                    createdAt = Date()
+                )
+            }
+
+        var hiddenInBatch = 0
+        val activeIds = database.withTransaction {
+            if (newMerchants.isNotEmpty()) {
+                merchantDao.insertMerchants(newMerchants)
+            }
+            val ids = transactionDao.insertTransactions(batch)
+            val written = ids.filter { it > 0 }
+            if (written.isNotEmpty()) {
+                smsBodyStore.store(written, bodies.filterIndexed { index, _ -> ids[index] > 0 })
+                transactionDao.applyMerchantCategories(written)
+            }
+
+            val active = ArrayList<Long>(ids.size)
+            ids.forEachIndexed { index, id ->
+                if (id <= 0) return@forEachIndexed
+                if (batch[index].isActive) active.add(id) else hiddenInBatch++
+            }
+            writeCheckpoint(insertedCount + active.size)
+            active
+        }
+
+        insertedCount += activeIds.size
+        hiddenCount += hiddenInBatch
+
+        logger.debug(
+            where = "flush",
+            what = "Committed batch of ${batch.size}: ${activeIds.size} active, " +
+                "${newMerchants.size} new merchants"
+        )
+
+        if (activeIds.isNotEmpty()) {
+            onBatchCommitted(activeIds)
+        }
+    }
+}
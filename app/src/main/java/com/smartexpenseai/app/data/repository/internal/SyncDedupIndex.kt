@@ -0,0 +1,135 @@
+package com.smartexpenseai.app.data.repository.internal
+
+import com.smartexpenseai.app.data.dao.DedupCandidate
+import com.smartexpenseai.app.data.dao.MerchantDao
+import com.smartexpenseai.app.data.dao.TransactionDao
+import com.smartexpenseai.app.data.entities.TransactionEntity
+import java.util.Date
+import java.util.concurrent.TimeUnit
+
+/**
+ * Sync-scoped, in-memory duplicate index for [TransactionDataRepository.syncNewSms].
+ *
+ * Loads every sms_id and similarity key for the scan window plus the deleted-merchant
+ * set up front (two queries), so each parsed SMS is classified as new or duplicate
+ * without touching SQLite. Mirrors the rules of the per-row lookups it replaces:
+ * - exact sms_id match (inactive rows included, so deleted rows never come back)
+ * - same normalized merchant + bank, amount within ±[AMOUNT_TOLERANCE], date within
+ *   ±[SIMILARITY_WINDOW_MILLIS], unless both sides carry different authoritative
+ *   reference numbers ([TransactionEntity.referencesConflict])
+ *
+ * Not thread-safe: one instance per sync run. Accepted rows must be [record]ed so
+ * duplicates within the same scan are caught too.
+ */
+internal class SyncDedupIndex private constructor(
+    private val smsIds: MutableSet<String>,
+    private val deletedMerchants: Set<String>
+) {
+
+    companion object {
+        const val AMOUNT_TOLERANCE = 1.0 // ₹1 cushion to account for rounding differences
+        val SIMILARITY_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(10)
+
+        // A rescan re-derives transaction_date from the SMS body date plus the current
+        // time of day, so the stored row for the same SMS can sit up to a day away
+        private val LOAD_MARGIN_MILLIS = TimeUnit.DAYS.toMillis(1)
+
+        /**
+         * Build the index for a scan whose transactions are dated no earlier than [windowStart].
+         */
+        suspend fun load(
+            transactionDao: TransactionDao,
+            merchantDao: MerchantDao,
+            windowStart: Date
+        ): SyncDedupIndex {
+            val since = Date((windowStart.time - LOAD_MARGIN_MILLIS).coerceAtLeast(0L))
+            val candidates = transactionDao.getDedupCandidatesSince(since)
+
+            val index = SyncDedupIndex(
+                smsIds = HashSet<String>(candidates.size * 2),
+                deletedMerchants = merchantDao.getDeletedMerchantNames().toHashSet()
+            )
+            candidates.forEach { index.add(it) }
+            return index
+        }
+    }
+
+    /**
+     * Why a parsed row was judged a duplicate, for logging.
+     */
+    sealed class Duplicate {
+        data class SmsIdMatch(val smsId: String) : Duplicate()
+        data class Similar(val existing: DedupCandidate) : Duplicate()
+    }
+
+    // (normalized_merchant, bank_name, time bucket) -> rows in that bucket. The amount
+    // is matched inside the bucket because of the ±₹1 tolerance.
+    private val buckets = HashMap<SimilarityKey, MutableList<DedupCandidate>>()
+
+    private data class SimilarityKey(val merchant: String, val bank: String, val bucket: Long)
+
+    val size: Int
+        get() = smsIds.size
+
+    fun isMerchantDeleted(normalizedMerchant: String): Boolean =
+        deletedMerchants.contains(normalizedMerchant)
+
+    /**
+     * Returns the duplicate verdict for [entity], or null when it is new.
+     */
+    fun findDuplicate(entity: TransactionEntity): Duplicate? {
+        if (smsIds.contains(entity.smsId)) {
+            return Duplicate.SmsIdMatch(entity.smsId)
+        }
+        return findSimilar(entity)?.let { Duplicate.Similar(it) }
+    }
+
+    /**
+     * Register an accepted row so later rows in the same scan dedup against it.
+     */
+    fun record(entity: TransactionEntity) {
+        add(
+            DedupCandidate(
+                id = entity.id,
+                sms_id = entity.smsId,
+                normalized_merchant = entity.normalizedMerchant,
+                bank_name = entity.bankName,
+                amount = entity.amount,
+                transaction_date = entity.transactionDate,
+                reference_number = entity.referenceNumber
+            )
+        )
+    }
+
+    private fun add(candidate: DedupCandidate) {
+        smsIds.add(candidate.sms_id)
+        val key = SimilarityKey(
+            merchant = candidate.normalized_merchant,
+            bank = candidate.bank_name,
+            bucket = bucketOf(candidate.transaction_date.time)
+        )
+        buckets.getOrPut(key) { ArrayList(2) }.add(candidate)
+    }
+
+    private fun findSimilar(entity: TransactionEntity): DedupCandidate? {
+        val time = entity.transactionDate.time
+        val minAmount = (entity.amount - AMOUNT_TOLERANCE).coerceAtLeast(0.0)
+        val maxAmount = entity.amount + AMOUNT_TOLERANCE
+        val bucket = bucketOf(time)
+
+        // The ±window can straddle a bucket boundary, so probe the neighbours as well
+        for (probe in bucket - 1..bucket + 1) {
+            val rows = buckets[SimilarityKey(entity.normalizedMerchant, entity.bankName, probe)] ?: continue
+            for (row in rows) {
+                val rowTime = row.transaction_date.time
+                if (row.amount < minAmount || row.amount > maxAmount) continue
+                if (rowTime < time - SIMILARITY_WINDOW_MILLIS || rowTime > time + SIMILARITY_WINDOW_MILLIS) continue
+                if (TransactionEntity.referencesConflict(entity.referenceNumber, row.reference_number)) continue
+                return row
+            }
+        }
+        return null
+    }
+
+    private fun bucketOf(timeMillis: Long): Long = timeMillis.floorDiv(SIMILARITY_WINDOW_MILLIS)
+}
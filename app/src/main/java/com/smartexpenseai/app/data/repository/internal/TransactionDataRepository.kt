@@ -1,25 +1,32 @@
 package com.smartexpenseai.app.data.repository.internal
 
 import android.content.Context
+import androidx.room.withTransaction
 import com.smartexpenseai.app.data.dao.CategoryDao
 import com.smartexpenseai.app.data.dao.MerchantDao
 import com.smartexpenseai.app.data.dao.MerchantSpending
 import com.smartexpenseai.app.data.dao.MerchantSpendingWithCategory
 import com.smartexpenseai.app.data.dao.SyncStateDao
 import com.smartexpenseai.app.data.dao.TransactionDao
+import com.smartexpenseai.app.data.dao.TransactionRangeSummary
+import com.smartexpenseai.app.data.dao.TransactionRow
 import com.smartexpenseai.app.data.dao.CategorySpendingResult
+import com.smartexpenseai.app.data.database.ExpenseDatabase
 import com.smartexpenseai.app.data.entities.CategoryEntity
 import com.smartexpenseai.app.data.entities.MerchantEntity
 import com.smartexpenseai.app.data.entities.SyncStateEntity
 import com.smartexpenseai.app.data.entities.TransactionEntity
-import com.smartexpenseai.app.data.repository.ExpenseRepository
+import com.smartexpenseai.app.data.repository.TransactionPage
+import com.smartexpenseai.app.data.repository.TransactionSort
 import com.smartexpenseai.app.models.ParsedTransaction
+import com.smartexpenseai.app.parsing.engine.MerchantNameNormalizer
 import com.smartexpenseai.app.parsing.engine.MerchantRuleEngine
 import com.smartexpenseai.app.services.SMSParsingService
 import com.smartexpenseai.app.services.TransactionFilterService
 import com.smartexpenseai.app.utils.logging.StructuredLogger
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.buffer
 import kotlinx.coroutines.withContext
 import java.util.Date
 import java.util.concurrent.TimeUnit
@@ -32,7 +39,9 @@ internal class TransactionDataRepository(
     private val syncStateDao: SyncStateDao,
     private val smsParsingService: SMSParsingService,
     private val transactionFilterService: TransactionFilterService?,
-    private val merchantRuleEngine: MerchantRuleEngine
+    private val merchantRuleEngine: MerchantRuleEngine,
+    // Post-commit hook for rows imported by syncNewSms (auto-tagging lives in ExpenseRepository)
+    private val onTransactionsImported: suspend (List<Long>) -> Unit = {}
 ) {
 
     private val logger = StructuredLogger(
@@ -40,6 +49,13 @@ internal class TransactionDataRepository(
         className = "TransactionDataRepository"
     )
 
+    // Shared Room instance, needed for withTransaction around batched imports
+    private val database by lazy { ExpenseDatabase.getDatabase(context) }
+
+    private val search = TransactionSearch(transactionDao)
+
+    private val smsBodyStore by lazy { SmsBodyStore(database, transactionDao) }
+
     // ---------------------------------------------------------------------
     // Basic queries
     // ---------------------------------------------------------------------
@@ -51,17 +67,63 @@ internal class TransactionDataRepository(
     suspend fun transactionsBetween(startDate: Date, endDate: Date): List<TransactionEntity> =
         transactionDao.getTransactionsByDateRange(startDate, endDate)
 
-    suspend fun transactionsBetween(
+    suspend fun transactionPage(startDate: Date, endDate: Date, cursor: String?, pageSize: Int): TransactionPage =
+        TransactionPageCursor.page(cursor, endDate, pageSize) { beforeDate, beforeId, limit ->
+            transactionDao.getTransactionPageByDateRange(startDate, beforeDate, beforeId, limit)
+        }
+
+    suspend fun merchantTransactionPage(
+        normalizedMerchant: String,
         startDate: Date,
         endDate: Date,
-        limit: Int,
-        offset: Int
-    ): List<TransactionEntity> =
-        transactionDao.getTransactionsByDateRangePaginated(startDate, endDate, limit, offset)
+        cursor: String?,
+        pageSize: Int
+    ): TransactionPage =
+        TransactionPageCursor.page(cursor, endDate, pageSize) { beforeDate, beforeId, limit ->
+            transactionDao.getTransactionPageByMerchant(normalizedMerchant, startDate, beforeDate, beforeId, limit)
+        }
+
+    suspend fun categoryTransactionPage(
+        categoryId: Long,
+        startDate: Date,
+        endDate: Date,
+        sort: TransactionSort,
+        cursor: String?,
+        pageSize: Int
+    ): TransactionPage = when (sort) {
+        TransactionSort.NEWEST_FIRST ->
+            TransactionPageCursor.page(cursor, endDate, pageSize) { beforeDate, beforeId, limit ->
+                transactionDao.getTransactionPageByCategory(categoryId, startDate, beforeDate, beforeId, limit)
+            }
+        TransactionSort.OLDEST_FIRST ->
+            TransactionPageCursor.page(cursor, pageSize) { after, limit ->
+                transactionDao.getTransactionPageByCategoryOldestFirst(
+                    categoryId, endDate, maxOf(after?.date ?: startDate, startDate), after?.id ?: Long.MIN_VALUE, limit
+                )
+            }
+        TransactionSort.HIGHEST_AMOUNT ->
+            TransactionPageCursor.page(cursor, pageSize) { after, limit ->
+                transactionDao.getTransactionPageByCategoryHighestAmount(
+                    categoryId, startDate, endDate, after?.amount ?: Double.MAX_VALUE, after?.id ?: Long.MAX_VALUE, limit
+                )
+            }
+        TransactionSort.LOWEST_AMOUNT ->
+            TransactionPageCursor.page(cursor, pageSize) { after, limit ->
+                transactionDao.getTransactionPageByCategoryLowestAmount(
+                    categoryId, startDate, endDate, after?.amount ?: -Double.MAX_VALUE, after?.id ?: Long.MIN_VALUE, limit
+                )
+            }
+    }
 
     suspend fun transactionCountBetween(startDate: Date, endDate: Date): Int =
         transactionDao.getTransactionCountByDateRange(startDate, endDate)
 
+    suspend fun merchantSummaryBetween(normalizedMerchant: String, startDate: Date, endDate: Date): TransactionRangeSummary =
+        transactionDao.getMerchantSummaryByDateRange(normalizedMerchant, startDate, endDate)
+
+    suspend fun categorySummaryBetween(categoryId: Long, startDate: Date, endDate: Date): TransactionRangeSummary =
+        transactionDao.getCategorySummaryByDateRange(categoryId, startDate, endDate)
+
     suspend fun expenseTransactionsBetween(startDate: Date, endDate: Date): List<TransactionEntity> =
         transactionDao.getExpenseTransactionsByDateRange(startDate, endDate)
 
@@ -70,8 +132,15 @@ internal class TransactionDataRepository(
     suspend fun transactionsByMerchant(merchantName: String): List<TransactionEntity> =
         transactionDao.getTransactionsByMerchant(merchantName)
 
-    suspend fun searchTransactions(query: String, limit: Int): List<TransactionEntity> =
-        transactionDao.searchTransactions(query, limit)
+    suspend fun searchTransactions(query: String, limit: Int, offset: Int = 0): List<TransactionEntity> =
+        search.search(query, limit, offset)
+
+    suspend fun searchTransactionIds(query: String, startDate: Date, endDate: Date): Set<Long> =
+        search.matchingIds(query, startDate, endDate)
+
+    suspend fun smsBody(transactionId: Long): String? = smsBodyStore.body(transactionId)
+
+    suspend fun smsBodies(transactionIds: List<Long>): Map<Long, String> = smsBodyStore.bodies(transactionIds)
 
     suspend fun transactionBySmsId(smsId: String): TransactionEntity? =
         transactionDao.getTransactionBySmsId(smsId)
@@ -79,8 +148,13 @@ internal class TransactionDataRepository(
     suspend fun transactionById(transactionId: Long): TransactionEntity? =
         transactionDao.getTransactionById(transactionId)
 
-    suspend fun insertTransaction(transaction: TransactionEntity): Long =
-        transactionDao.insertTransaction(transaction)
+    // The row and its SMS body commit together; an ignored insert (duplicate sms_id) stores no body
+    suspend fun insertTransaction(transaction: TransactionEntity, smsBody: String): Long =
+        database.withTransaction {
+            val id = transactionDao.insertTransaction(transaction)
+            if (id > 0) smsBodyStore.store(listOf(id), listOf(smsBody))
+            id
+        }
 
     suspend fun updateTransaction(transaction: TransactionEntity) {
         transactionDao.updateTransaction(transaction)
@@ -153,10 +227,28 @@ internal class TransactionDataRepository(
     // Totals and analytics
     // ---------------------------------------------------------------------
 
+    /**
+     * Debit spend over a range, leaving out excluded merchants. TransactionFilterService
+     * excludes by the merchants table only, which getTotalSpentByDateRange does in SQL;
+     * without it the legacy SharedPreferences exclusions (which also match raw names)
+     * apply to per-merchant totals, so no transaction rows are loaded either way.
+     */
     suspend fun totalSpent(startDate: Date, endDate: Date): Double {
-        val expenseTransactions = expenseTransactionsBetween(startDate, endDate)
-        val filteredTransactions = filterTransactions(expenseTransactions)
-        return filteredTransactions.sumOf { it.amount }
+        if (transactionFilterService != null) {
+            return transactionDao.getTotalSpentByDateRange(startDate, endDate) ?: 0.0
+        }
+
+        val excludedMerchants = merchantDao.getExcludedMerchants()
+            .map { it.normalizedName }
+            .toSet()
+        val sharedPrefsExclusions = loadSharedPrefsExclusions()
+        return transactionDao.getExpenseTotalsByMerchantName(startDate, endDate)
+            .filter { total ->
+                !excludedMerchants.contains(total.normalized_merchant) &&
+                    !sharedPrefsExclusions.contains(total.normalized_merchant) &&
+                    !sharedPrefsExclusions.contains(total.raw_merchant.lowercase())
+            }
+            .sumOf { it.total_amount }
     }
 
     suspend fun totalCredits(startDate: Date, endDate: Date): Double =
@@ -171,7 +263,7 @@ internal class TransactionDataRepository(
     suspend fun salaryTransactions(minAmount: Double = 10_000.0, limit: Int = 10): List<TransactionEntity> =
         transactionDao.getSalaryTransactions(minAmount, limit)
 
-    suspend fun lastSalaryTransaction(): TransactionEntity? = transactionDao.getLastSalaryTransaction()
+    suspend fun lastSalaryTransaction(): TransactionRow? = transactionDao.getLastSalaryTransaction()
 
     data class MonthlyBalanceInfo(
         val lastSalaryAmount: Double,
@@ -185,10 +277,7 @@ internal class TransactionDataRepository(
         currentMonthStartDate: Date,
         currentMonthEndDate: Date
     ): MonthlyBalanceInfo {
-        val allCredits = transactionDao.getTransactionsByDateRange(Date(0), Date())
-            .filter { !it.isDebit }
-
-        val lastSalary = lastSalaryTransaction() ?: allCredits.maxByOrNull { it.amount }
+        val lastSalary = lastSalaryTransaction() ?: transactionDao.getLargestCredit(Date())
         val expenses = totalSpent(currentMonthStartDate, currentMonthEndDate)
 
         val salaryAmount = lastSalary?.amount ?: 0.0
@@ -280,7 +369,6 @@ internal class TransactionDataRepository(
         try {
             val syncState = syncStateDao.getSyncState()
             val lastSyncTimestamp = syncState?.lastSmsSyncTimestamp ?: Date(0)
-            val repository = ExpenseRepository.getInstance(context)
             logger.debug(
                 where = "syncNewSms",
                 what = "Starting SMS sync - Last sync timestamp: $lastSyncTimestamp"
@@ -288,88 +376,160 @@ internal class TransactionDataRepository(
 
             syncStateDao.updateSyncStatus("IN_PROGRESS")
 
-            // Incremental scan: only read SMS newer than the last sync, with a 24h overlap
-            // as a safety net (dedup below discards anything already imported)
-            val scanSinceDate = if (lastSyncTimestamp.time > 0) {
+            // Incremental scan: only read SMS newer than the last sync. The date window keeps
+            // a 24h overlap, but once a completed sync has recorded its SMS _ID high-water
+            // mark only rows inserted after it are read, so an idle inbox parses nothing.
+            val incrementalSinceDate = if (lastSyncTimestamp.time > 0) {
                 Date(lastSyncTimestamp.time - TimeUnit.HOURS.toMillis(24))
             } else {
                 null
             }
-
-            val allTransactions = smsParsingService.scanHistoricalSMS(sinceDate = scanSinceDate) { _, _, _ -> }
-
-            val newTransactions = allTransactions.filter { it.date.after(lastSyncTimestamp) }
-
-            var insertedCount = 0
-            var duplicateCount = 0
-
-            newTransactions.forEach { parsed ->
-                // CRITICAL FIX: Generate consistent SMS ID using same logic as real-time receiver
-                // to prevent duplicates between real-time and incremental scans
-                val tempEntity = convertToTransactionEntity(parsed)
-
-                // Regenerate SMS ID with same algorithm used in SMSReceiver.kt:74-78
-                // Use sender address (e.g., "HDFCBK") instead of "hist_" prefix for consistency
-                val senderAddress = parsed.senderAddress ?: parsed.bankName
-                val consistentSmsId = TransactionEntity.generateSmsId(
-                    address = senderAddress,
-                    body = parsed.rawSMS,
-                    timestamp = parsed.date.time,
-                    referenceNumber = parsed.referenceNumber
+            val highWaterSmsRowId = if (incrementalSinceDate != null) syncState?.lastSmsRowId ?: 0L else 0L
+            // Upper bound for this run; SMS arriving mid-scan are left for the next sync
+            val scanUpToSmsRowId = smsParsingService.latestInboxSmsRowId()
+
+            // Resume an interrupted scan from its checkpoint. A full-scan checkpoint covers
+            // any request; an incremental one is dropped when a full scan is asked for.
+            val checkpoint = syncState?.takeIf {
+                it.hasCheckpoint && (it.checkpointScanSince == null || incrementalSinceDate != null)
+            }
+            if (checkpoint == null && syncState?.hasCheckpoint == true) {
+                syncStateDao.clearCheckpoint()
+            }
+            val scanSinceDate = if (checkpoint != null) checkpoint.checkpointScanSince else incrementalSinceDate
+            if (checkpoint != null) {
+                logger.info(
+                    where = "syncNewSms",
+                    what = "Resuming interrupted sync after SMS _ID ${checkpoint.checkpointSmsRowId} " +
+                        "(parsed ${checkpoint.checkpointParsed}, inserted ${checkpoint.checkpointInserted})"
                 )
+            }
 
-                val entity = tempEntity.copy(smsId = consistentSmsId)
-                logger.debug("syncNewSms", "Processing entity: ${entity.rawMerchant} - Ref: ${entity.referenceNumber} - SMS ID: ${entity.smsId} (from sender: $senderAddress)")
-
-                val existing = transactionDao.getTransactionBySmsId(entity.smsId)
-
-                val similar = findSimilarTransaction(entity)
-                if (similar != null) {
-                    logger.debug("syncNewSms", "Similar found: ${similar.rawMerchant} - Ref: ${similar.referenceNumber}")
+            var parsedCount = checkpoint?.checkpointParsed ?: 0
+            var duplicateCount = checkpoint?.checkpointDuplicates ?: 0
+            var lastSmsRowId = maxOf(checkpoint?.checkpointSmsRowId ?: 0L, highWaterSmsRowId)
+            var latestTransactionDate: Date? = checkpoint?.checkpointSmsDate
+            var latestTransactionId: String? = null
+            val resumedInsertedCount = checkpoint?.checkpointInserted ?: 0
+
+            // One upfront load replaces the per-row sms_id / similarity / deleted-merchant
+            // lookups; every decision below is made in memory
+            val windowStart = smsParsingService.scanWindowStart(scanSinceDate)
+            val dedupIndex = SyncDedupIndex.load(transactionDao, merchantDao, windowStart)
+            logger.debug("syncNewSms", "Dedup index loaded: ${dedupIndex.size} existing rows since $windowStart")
+
+            // Accepted rows are committed in chunks: one transaction, one bulk merchant
+            // upsert and one set-based categorization UPDATE per batch
+            val importBatcher = SmsImportBatcher.create(
+                database = database,
+                transactionDao = transactionDao,
+                merchantDao = merchantDao,
+                categoryDao = categoryDao,
+                smsBodyStore = smsBodyStore,
+                categorizeMerchant = ::categorizeMerchant,
+                onBatchCommitted = onTransactionsImported,
+                writeCheckpoint = { insertedSoFar ->
+                    syncStateDao.updateCheckpoint(
+                        smsRowId = lastSmsRowId,
+                        smsDate = latestTransactionDate,
+                        scanSince = scanSinceDate,
+                        parsed = parsedCount,
+                        duplicates = duplicateCount,
+                        inserted = resumedInsertedCount + insertedSoFar
+                    )
                 }
+            )
 
-                if (existing == null && similar == null) {
-                    // Merchant previously deleted by the user: store the transaction
-                    // inactive so it stays hidden and is never re-imported
-                    val merchantDeleted = merchantDao.isMerchantDeleted(entity.normalizedMerchant) ?: false
-                    val toInsert = if (merchantDeleted) entity.copy(isActive = false) else entity
-
-                    val insertedId = transactionDao.insertTransaction(toInsert)
-                    if (insertedId > 0 && !merchantDeleted) {
-                        repository.autoCategorizeTransaction(insertedId)
-                        insertedCount++
-                    } else if (merchantDeleted) {
-                        logger.debug("syncNewSms", "Auto-hidden transaction from deleted merchant '${entity.normalizedMerchant}'")
+            // Streaming pipeline: cursor -> parse -> dedup -> batched insert. The bounded
+            // buffer lets parsing run ahead of the DB stage by at most one batch.
+            smsParsingService.parsedTransactionsFlow(
+                sinceDate = scanSinceDate,
+                afterSmsRowId = lastSmsRowId,
+                upToSmsRowId = if (scanUpToSmsRowId > 0) scanUpToSmsRowId else Long.MAX_VALUE
+            )
+                .buffer(SmsImportBatcher.DEFAULT_BATCH_SIZE)
+                .collect { parsed ->
+                    parsedCount++
+                    if (parsed.smsRowId > lastSmsRowId) lastSmsRowId = parsed.smsRowId
+                    val latestDate = latestTransactionDate
+                    if (latestDate == null || parsed.date.after(latestDate)) {
+                        latestTransactionDate = parsed.date
+                        latestTransactionId = parsed.id
+                    }
+                    if (!parsed.date.after(lastSyncTimestamp)) {
+                        importBatcher.skip()
+                        return@collect
                     }
-                } else {
-                    duplicateCount++
-                    val refInfo = if (!entity.referenceNumber.isNullOrBlank()) " [Ref: ${entity.referenceNumber}]" else ""
-                    val reason = when {
-                        existing != null -> "SMS ID match (${entity.smsId})"
-                        similar != null -> {
-                            val similarRefInfo = if (!similar.referenceNumber.isNullOrBlank()) " [Ref: ${similar.referenceNumber}]" else ""
-                            "Similar transaction found (${similar.rawMerchant} - ₹${similar.amount}$similarRefInfo)"
+
+                    // CRITICAL FIX: Generate consistent SMS ID using same logic as real-time receiver
+                    // to prevent duplicates between real-time and incremental scans
+                    val tempEntity = toTransactionEntity(parsed)
+
+                    // Regenerate SMS ID with same algorithm used in SMSReceiver.kt:74-78
+                    // Use sender address (e.g., "HDFCBK") instead of "hist_" prefix for consistency
+                    val senderAddress = parsed.senderAddress ?: parsed.bankName
+                    val consistentSmsId = TransactionEntity.generateSmsId(
+                        address = senderAddress,
+                        body = parsed.rawSMS,
+                        timestamp = parsed.date.time,
+                        referenceNumber = parsed.referenceNumber
+                    )
+
+                    val entity = tempEntity.copy(smsId = consistentSmsId)
+                    logger.debug("syncNewSms", "Processing entity: ${entity.rawMerchant} - Ref: ${entity.referenceNumber} - SMS ID: ${entity.smsId} (from sender: $senderAddress)")
+
+                    val duplicate = dedupIndex.findDuplicate(entity)
+
+                    if (duplicate == null) {
+                        // Merchant previously deleted by the user: store the transaction
+                        // inactive so it stays hidden and is never re-imported
+                        val merchantDeleted = dedupIndex.isMerchantDeleted(entity.normalizedMerchant)
+                        val toInsert = if (merchantDeleted) entity.copy(isActive = false) else entity
+                        if (merchantDeleted) {
+                            logger.debug("syncNewSms", "Auto-hidden transaction from deleted merchant '${entity.normalizedMerchant}'")
                         }
-                        else -> "Unknown"
+
+                        dedupIndex.record(toInsert)
+                        importBatcher.add(toInsert, parsed.rawSMS)
+                    } else {
+                        duplicateCount++
+                        importBatcher.skip()
+                        val refInfo = if (!entity.referenceNumber.isNullOrBlank()) " [Ref: ${entity.referenceNumber}]" else ""
+                        val reason = when (duplicate) {
+                            is SyncDedupIndex.Duplicate.SmsIdMatch -> "SMS ID match (${duplicate.smsId})"
+                            is SyncDedupIndex.Duplicate.Similar -> {
+                                val similar = duplicate.existing
+                                val similarRefInfo = if (!similar.reference_number.isNullOrBlank()) " [Ref: ${similar.reference_number}]" else ""
+                                "Similar transaction found (${similar.normalized_merchant} - ₹${similar.amount}$similarRefInfo)"
+                            }
+                        }
+                        logger.debug("syncNewSms", "⚠️ Duplicate: ${entity.rawMerchant} - ₹${entity.amount}$refInfo - Reason: $reason and smsId is ${entity.smsId}")
                     }
-                    logger.debug("syncNewSms", "⚠️ Duplicate: ${entity.rawMerchant} - ₹${entity.amount}$refInfo - Reason: $reason and smsId is ${entity.smsId}")
                 }
-            }
 
-            val latestTransaction = allTransactions.maxByOrNull { it.date }
-            if (latestTransaction != null) {
-                val totalTransactions = transactionDao.getTransactionCount()
-                syncStateDao.updateSyncState(
-                    timestamp = latestTransaction.date,
-                    smsId = latestTransaction.id,
-                    totalTransactions = totalTransactions,
-                    status = "COMPLETED"
-                )
+            importBatcher.flush()
+            val insertedCount = resumedInsertedCount + importBatcher.insertedCount
+
+            // Completion and checkpoint reset commit together: a crash here either
+            // resumes the (finished) scan or starts cleanly from the new sync point
+            database.withTransaction {
+                latestTransactionDate?.let { latestDate ->
+                    syncStateDao.updateSyncState(
+                        timestamp = latestDate,
+                        smsId = latestTransactionId ?: syncState?.lastSmsId,
+                        totalTransactions = transactionDao.getTransactionCount(),
+                        status = "COMPLETED"
+                    )
+                } ?: syncStateDao.updateSyncStatus("COMPLETED")
+                if (scanUpToSmsRowId > 0) {
+                    syncStateDao.updateLastSmsRowId(maxOf(scanUpToSmsRowId, highWaterSmsRowId))
+                }
+                syncStateDao.clearCheckpoint()
             }
 
             logger.debug(
                 where = "syncNewSms",
-                what = "SMS sync completed - Inserted: $insertedCount, Duplicates: $duplicateCount"
+                what = "SMS sync completed - Parsed: $parsedCount, Inserted: $insertedCount, Duplicates: $duplicateCount"
             )
 
             insertedCount
@@ -390,7 +550,12 @@ internal class TransactionDataRepository(
     suspend fun syncStatus(): String? = syncStateDao.getSyncStatus()
 
     suspend fun updateSyncState(lastSyncDate: Date) {
+        val previous = syncStateDao.getLastSyncTimestamp()
         syncStateDao.updateSyncState(lastSyncDate, null, transactionDao.getTransactionCount(), "COMPLETED")
+        // Moving the sync point back (e.g. Date(0) for a full sync) invalidates the _ID mark
+        if (previous == null || lastSyncDate.before(previous)) {
+            syncStateDao.updateLastSmsRowId(0)
+        }
     }
 
     suspend fun ensureSyncStateInitialized() {
@@ -413,28 +578,30 @@ internal class TransactionDataRepository(
     // ---------------------------------------------------------------------
 
     suspend fun convertToTransactionEntity(parsed: ParsedTransaction): TransactionEntity {
-        val normalizedMerchant = normalizeMerchantName(parsed.merchant)
-        ensureMerchantExists(normalizedMerchant, parsed.merchant)
+        val entity = toTransactionEntity(parsed)
+        ensureMerchantExists(entity.normalizedMerchant, parsed.merchant)
+        return entity
+    }
 
-        return TransactionEntity(
+    // Pure mapping; merchant rows are created by the caller (see SmsImportBatcher)
+    private fun toTransactionEntity(parsed: ParsedTransaction): TransactionEntity =
+        TransactionEntity(
             smsId = parsed.id,
             amount = parsed.amount,
             rawMerchant = parsed.merchant,
-            normalizedMerchant = normalizedMerchant,
+            normalizedMerchant = normalizeMerchantName(parsed.merchant),
             bankName = parsed.bankName,
             transactionDate = parsed.date,
-            rawSmsBody = parsed.rawSMS,
             confidenceScore = parsed.confidence,
             isDebit = parsed.isDebit,
             referenceNumber = parsed.referenceNumber,
             createdAt = Date(),
             updatedAt = Date()
         )
-    }
 
     suspend fun findSimilarTransaction(entity: TransactionEntity): TransactionEntity? {
-        val amountTolerance = 1.0 // ₹1 cushion to account for rounding differences
-        val timeWindowMillis = TimeUnit.MINUTES.toMillis(10)
+        val amountTolerance = SyncDedupIndex.AMOUNT_TOLERANCE
+        val timeWindowMillis = SyncDedupIndex.SIMILARITY_WINDOW_MILLIS
 
         val minAmount = (entity.amount - amountTolerance).coerceAtLeast(0.0)
         val maxAmount = entity.amount + amountTolerance
@@ -455,20 +622,12 @@ internal class TransactionDataRepository(
         // then they are NOT duplicates (even if merchant, amount, time, and bank match).
         // EXCEPTION: synthetic card pseudo-refs are not authoritative - two different
         // synthetic refs can describe the same swipe, so the similarity verdict stands.
-        if (similarTransaction != null) {
-            val newRefNumber = entity.referenceNumber?.trim()
-            val existingRefNumber = similarTransaction.referenceNumber?.trim()
-
-            if (!newRefNumber.isNullOrBlank() && !existingRefNumber.isNullOrBlank()) {
-                val eitherSynthetic = TransactionEntity.isSyntheticReference(newRefNumber) ||
-                    TransactionEntity.isSyntheticReference(existingRefNumber)
-
-                if (!eitherSynthetic && newRefNumber != existingRefNumber) {
-                    logger.debug("findSimilarTransaction",
-                        "Different reference numbers - NOT a duplicate (New: $newRefNumber vs Existing: $existingRefNumber)")
-                    return null
-                }
-            }
+        if (similarTransaction != null &&
+            TransactionEntity.referencesConflict(entity.referenceNumber, similarTransaction.referenceNumber)
+        ) {
+            logger.debug("findSimilarTransaction",
+                "Different reference numbers - NOT a duplicate (New: ${entity.referenceNumber} vs Existing: ${similarTransaction.referenceNumber})")
+            return null
         }
 
         return similarTransaction
@@ -526,19 +685,7 @@ internal class TransactionDataRepository(
         return result.categoryName
     }
 
-    fun normalizeMerchantName(merchant: String): String {
-        val cleaned = merchant.uppercase()
-            .replace(Regex("\\s+"), " ")
-            .trim()
-
-        return cleaned
-            .replace(Regex("\\*(ORDER|PAYMENT|TXN|TRANSACTION).*$"), "")
-            .replace(Regex("#\\d+.*$"), "")
-            .replace(Regex("@\\w+.*$"), "")
-            .replace(Regex("-{2,}.*$"), "")
-            .replace(Regex("_{2,}.*$"), "")
-            .trim()
-    }
+    fun normalizeMerchantName(merchant: String): String = MerchantNameNormalizer.normalize(merchant)
 
     private suspend fun merchantWithCategory(normalizedName: String) =
         merchantDao.getMerchantWithCategory(normalizedName)
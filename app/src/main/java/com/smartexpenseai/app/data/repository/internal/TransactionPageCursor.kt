@@ -0,0 +1,97 @@
+package com.smartexpenseai.app.data.repository.internal
+
+import android.util.Base64
+import com.smartexpenseai.app.data.dao.TransactionRow
+import com.smartexpenseai.app.data.repository.TransactionPage
+import com.smartexpenseai.app.data.repository.TransactionSort
+import java.util.Date
+
+/**
+ * Keyset pagination over (transaction_date DESC, id DESC), or another [TransactionSort].
+ *
+ * A cursor token encodes the date, amount and id of the last row of a page; the next page
+ * is the rows strictly after that position in the list's order
+ * (TransactionDao.getTransactionPageByDateRange and its merchant/category variants).
+ * Unlike LIMIT/OFFSET, page N costs the same as page 1, and rows inserted or deleted
+ * above the cursor do not shift later pages.
+ */
+internal object TransactionPageCursor {
+
+    private const val VERSION = "2"
+    private const val BASE64_FLAGS = Base64.URL_SAFE or Base64.NO_WRAP or Base64.NO_PADDING
+
+    /**
+     * Loads the page after [cursor] (the first page when null) of a list ending at
+     * [endDate]. [load] runs the keyset query for (beforeDate, beforeId, limit); one
+     * extra row is requested to tell whether another page follows.
+     */
+    suspend fun page(
+        cursor: String?,
+        endDate: Date,
+        pageSize: Int,
+        load: suspend (beforeDate: Date, beforeId: Long, limit: Int) -> List<TransactionRow>
+    ): TransactionPage {
+        require(pageSize > 0) { "pageSize must be positive: $pageSize" }
+
+        var beforeDate = endDate
+        var beforeId = Long.MAX_VALUE
+        if (cursor != null) {
+            val position = decode(cursor)
+            // A token never widens the range it is used with
+            if (position.date <= endDate) {
+                beforeDate = position.date
+                beforeId = position.id
+            }
+        }
+
+        val rows = load(beforeDate, beforeId, pageSize + 1)
+        return toPage(rows, pageSize)
+    }
+
+    /**
+     * Loads the page after [cursor] (the first page when null) of a list in any
+     * [TransactionSort] order. [load] runs the keyset query for that order from the
+     * position the page starts after (null for the first page); the query itself bounds
+     * the list's range.
+     */
+    suspend fun page(
+        cursor: String?,
+        pageSize: Int,
+        load: suspend (after: Position?, limit: Int) -> List<TransactionRow>
+    ): TransactionPage {
+        require(pageSize > 0) { "pageSize must be positive: $pageSize" }
+
+        val after = cursor?.let { decode(it) }
+        val rows = load(after, pageSize + 1)
+        return toPage(rows, pageSize)
+    }
+
+    /** Sort keys and id of the last row of a page */
+    data class Position(val date: Date, val amount: Double, val id: Long)
+
+    private fun toPage(rows: List<TransactionRow>, pageSize: Int): TransactionPage {
+        val transactions = rows.take(pageSize)
+        val nextCursor = if (rows.size > pageSize) encode(transactions.last()) else null
+        return TransactionPage(transactions, nextCursor)
+    }
+
+    private fun encode(last: TransactionRow): String {
+        val position = "$VERSION:${last.transactionDate.time}:${last.amount}:${last.id}"
+        return Base64.encodeToString(position.toByteArray(Charsets.UTF_8), BASE64_FLAGS)
+    }
+
+    private fun decode(cursor: String): Position {
+        val parts = try {
+            String(Base64.decode(cursor, BASE64_FLAGS), Charsets.UTF_8).split(':')
+        } catch (e: IllegalArgumentException) {
+            throw IllegalArgumentException("Malformed transaction page cursor", e)
+        }
+        val date = parts.getOrNull(1)?.toLongOrNull()
+        val amount = parts.getOrNull(2)?.toDoubleOrNull()
+        val id = parts.getOrNull(3)?.toLongOrNull()
+        require(parts.size == 4 && parts[0] == VERSION && date != null && amount != null && id != null) {
+            "Malformed transaction page cursor"
+        }
+        return Position(Date(date), amount, id)
+    }
+}
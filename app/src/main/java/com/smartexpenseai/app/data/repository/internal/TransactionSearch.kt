@@ -0,0 +1,143 @@
+package com.smartexpenseai.app.data.repository.internal
+
+import com.smartexpenseai.app.data.dao.SearchHit
+import com.smartexpenseai.app.data.dao.TransactionDao
+import com.smartexpenseai.app.data.entities.TransactionEntity
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.Date
+import java.util.Locale
+
+/**
+ * Ranked, paged full-text search over transactions_fts (TransactionFtsEntity) and the
+ * SMS body index sms_bodies_fts (SmsBodyStorage).
+ *
+ * A user query becomes one prefix term per word ("zom swig" -> `zom*`, `swig*`), all of
+ * which must match somewhere in the merchant names, bank or SMS body. Words shorter than
+ * [MIN_TERM_LENGTH] are ignored: a one-letter prefix matches most of the index. The two indexes
+ * are queried with the terms OR-ed and their hits merged here, so a word may match in
+ * either. Hits are scored from matchinfo: per term and column, the row's share of that
+ * term's hits in the whole index, weighted by [MERCHANT_COLUMN_WEIGHTS] or
+ * [BODY_COLUMN_WEIGHTS]; ties go to the newer transaction. Only ids, dates and matchinfo
+ * are read for ranking. Rows are loaded just for the requested page.
+ */
+internal class TransactionSearch(private val transactionDao: TransactionDao) {
+
+    companion object {
+        // transactions_fts column order: raw_merchant, normalized_merchant, bank_name
+        private val MERCHANT_COLUMN_WEIGHTS = doubleArrayOf(2.0, 3.0, 1.0)
+
+        // sms_bodies_fts has the one column, body
+        private val BODY_COLUMN_WEIGHTS = doubleArrayOf(0.5)
+
+        // Stay under SQLite's 999 bound-variable limit on older Android versions
+        private const val ID_CHUNK_SIZE = 500
+
+        // Shortest word searched as a prefix term
+        private const val MIN_TERM_LENGTH = 2
+
+        private val WORD_SEPARATOR = Regex("[^\\p{L}\\p{N}]+")
+
+        /**
+         * The prefix terms of a user query, empty when it has no word of at least
+         * [MIN_TERM_LENGTH] characters. Words are lowercased, so FTS operators (AND, OR,
+         * NOT, NEAR) are never produced.
+         */
+        fun terms(query: String): List<String> =
+            query.lowercase(Locale.ROOT)
+                .split(WORD_SEPARATOR)
+                .filter { it.length >= MIN_TERM_LENGTH }
+                .map { "$it*" }
+
+        /**
+         * Score of one hit from its matchinfo('pcx') blob: phrase count p, column count c,
+         * then for each phrase and column (hits in this row, hits in all rows, rows with hits).
+         * Phrases matched in this row are set in [matched].
+         */
+        fun score(matchInfo: ByteArray, weights: DoubleArray, matched: BooleanArray): Double {
+            val values = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder()).asIntBuffer()
+            val phrases = values.get(0)
+            val columns = values.get(1)
+            var score = 0.0
+            for (phrase in 0 until phrases) {
+                for (column in 0 until columns) {
+                    val base = 2 + 3 * (phrase * columns + column)
+                    val rowHits = values.get(base)
+                    val allHits = values.get(base + 1)
+                    if (rowHits > 0) matched[phrase] = true
+                    if (rowHits > 0 && allHits > 0) {
+                        score += weights.getOrElse(column) { 1.0 } * rowHits / allHits
+                    }
+                }
+            }
+            return score
+        }
+    }
+
+    private class RankedHit(val id: Long, val date: Long, terms: Int) {
+        var score = 0.0
+        val matched = BooleanArray(terms)
+    }
+
+    /**
+     * Active transactions matching [query], best first, skipping [offset] and returning
+     * at most [limit].
+     */
+    suspend fun search(query: String, limit: Int, offset: Int = 0): List<TransactionEntity> {
+        val terms = terms(query)
+        if (terms.isEmpty()) return emptyList()
+        val match = terms.joinToString(" OR ")
+        val page = rank(
+            terms.size,
+            transactionDao.getSearchHits(match),
+            transactionDao.getBodySearchHits(match)
+        )
+            .drop(offset)
+            .take(limit)
+            .map { it.id }
+        if (page.isEmpty()) return emptyList()
+
+        val rows = page.chunked(ID_CHUNK_SIZE)
+            .flatMap { transactionDao.getTransactionsByIds(it) }
+            .associateBy { it.id }
+        return page.mapNotNull { rows[it] }
+    }
+
+    /**
+     * Ids of the transactions dated within [startDate]..[endDate] that match [query],
+     * soft-deleted ones included; empty when the query has no searchable words. The date
+     * bound is applied in SQL, so a short prefix does not pull in all-time hits.
+     */
+    suspend fun matchingIds(query: String, startDate: Date, endDate: Date): Set<Long> {
+        val terms = terms(query)
+        if (terms.isEmpty()) return emptySet()
+        var ids: MutableSet<Long>? = null
+        for (term in terms) {
+            val termIds = HashSet<Long>()
+            termIds.addAll(transactionDao.getMatchingTransactionIds(term, startDate, endDate))
+            termIds.addAll(transactionDao.getBodyMatchingTransactionIds(term, startDate, endDate))
+            ids = ids?.apply { retainAll(termIds) } ?: termIds
+            if (ids.isEmpty()) break
+        }
+        return ids.orEmpty()
+    }
+
+    // Merges the hits of both indexes; a row qualifies once every term matched in either
+    private fun rank(terms: Int, merchantHits: List<SearchHit>, bodyHits: List<SearchHit>): List<RankedHit> {
+        val merged = HashMap<Long, RankedHit>((merchantHits.size + bodyHits.size) * 2)
+        fun add(hits: List<SearchHit>, weights: DoubleArray) {
+            hits.forEach { hit ->
+                val ranked = merged.getOrPut(hit.id) { RankedHit(hit.id, hit.transaction_date.time, terms) }
+                ranked.score += score(hit.match_info, weights, ranked.matched)
+            }
+        }
+        add(merchantHits, MERCHANT_COLUMN_WEIGHTS)
+        add(bodyHits, BODY_COLUMN_WEIGHTS)
+        return merged.values
+            .filter { hit -> hit.matched.all { it } }
+            .sortedWith(
+                compareByDescending<RankedHit> { it.score }
+                    .thenByDescending { it.date }
+            )
+    }
+}
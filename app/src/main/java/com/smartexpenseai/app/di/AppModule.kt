@@ -113,7 +113,9 @@ object AppModule {
     fun provideRuleLoader(
         @ApplicationContext context: Context
     ): com.smartexpenseai.app.parsing.engine.RuleLoader {
-        return com.smartexpenseai.app.parsing.engine.RuleLoader(context)
+        return com.smartexpenseai.app.parsing.engine.RuleLoader(
+            com.smartexpenseai.app.parsing.engine.FileRuleSource(context)
+        )
     }
 
     /**
@@ -156,10 +158,8 @@ object AppModule {
      */
     @Provides
     @Singleton
-    fun provideMerchantRuleEngine(
-        @ApplicationContext context: Context
-    ): MerchantRuleEngine {
-        return MerchantRuleEngine(context)
+    fun provideMerchantRuleEngine(): MerchantRuleEngine {
+        return MerchantRuleEngine()
     }
 
     /**
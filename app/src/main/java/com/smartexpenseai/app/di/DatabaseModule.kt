@@ -117,4 +117,15 @@ object DatabaseModule {
     ): TagDao {
         return database.tagDao()
     }
+
+    /**
+     * Provides ParseCacheDao for remembered SMS parse outcomes
+     */
+    @Provides
+    @Singleton
+    fun provideParseCacheDao(
+        database: ExpenseDatabase
+    ): ParseCacheDao {
+        return database.parseCacheDao()
+    }
 }
\ No newline at end of file
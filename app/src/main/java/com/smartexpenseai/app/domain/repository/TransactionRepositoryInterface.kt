@@ -32,9 +32,11 @@ interface TransactionRepositoryInterface {
     suspend fun getTransactionsByMerchant(merchantName: String): List<TransactionEntity>
     
     /**
-     * Search transactions by query string
+     * Search transactions by query string: full-text, every word matched as a prefix
+     * of a word in the merchant, bank or SMS text. Best matches first, paged by
+     * [limit] and [offset]
      */
-    suspend fun searchTransactions(query: String, limit: Int = 50): List<TransactionEntity>
+    suspend fun searchTransactions(query: String, limit: Int = 50, offset: Int = 0): List<TransactionEntity>
     
     /**
      * Get total transaction count
@@ -76,9 +78,9 @@ interface TransactionRepositoryInterface {
     // =======================
     
     /**
-     * Insert a new transaction
+     * Insert a new transaction together with the SMS body it was parsed from
      */
-    suspend fun insertTransaction(transaction: TransactionEntity): Long
+    suspend fun insertTransaction(transaction: TransactionEntity, smsBody: String): Long
     
     /**
      * Update existing transaction
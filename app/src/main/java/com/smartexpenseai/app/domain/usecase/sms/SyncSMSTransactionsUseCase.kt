@@ -128,7 +128,8 @@ class SyncSMSTransactionsUseCase @Inject constructor(
     
     /**
      * Force full SMS sync (re-sync all messages) - Incremental mode
-     * Only processes SMS that don't have corresponding transactions
+     * Only processes SMS that don't have corresponding transactions.
+     * If a previous full sync was interrupted, it resumes from its checkpoint.
      */
     suspend fun forceFullSync(): Result<SMSSyncResult> {
         return try {
@@ -22,14 +22,14 @@ class AddTransactionUseCase @Inject constructor(
     }
     
     /**
-     * Add a new transaction with validation
+     * Add a new transaction with validation, storing [smsBody] alongside it
      */
-    suspend fun execute(transaction: TransactionEntity): Result<Long> {
+    suspend fun execute(transaction: TransactionEntity, smsBody: String): Result<Long> {
         return try {
             Timber.tag(TAG).d("Adding new transaction: ${transaction.rawMerchant} - ₹${transaction.amount}")
             
             // Validate transaction data
-            val validationResult = validateTransaction(transaction)
+            val validationResult = validateTransaction(transaction, smsBody)
             if (!validationResult.isValid) {
                 Timber.tag(TAG).w("Transaction validation failed: ${validationResult.error}")
                 return Result.failure(IllegalArgumentException(validationResult.error))
@@ -45,12 +45,12 @@ class AddTransactionUseCase @Inject constructor(
             }
             
             // For manual transactions, ensure merchant and category entities exist
-            if (isManualTransaction(transaction)) {
-                ensureMerchantAndCategoryExist(transaction)
+            if (isManualTransaction(transaction, smsBody)) {
+                ensureMerchantAndCategoryExist(transaction, smsBody)
             }
             
             // Insert the transaction
-            val insertedId = transactionRepository.insertTransaction(transaction)
+            val insertedId = transactionRepository.insertTransaction(transaction, smsBody)
             if (insertedId > 0) {
                 Timber.tag(TAG).d("Transaction added successfully with ID: $insertedId")
                 Result.success(insertedId)
@@ -66,9 +66,9 @@ class AddTransactionUseCase @Inject constructor(
     }
     
     /**
-     * Add multiple transactions (bulk insert)
+     * Add multiple transactions (bulk insert), each paired with its SMS body
      */
-    suspend fun executeMultiple(transactions: List<TransactionEntity>): Result<Int> {
+    suspend fun executeMultiple(transactions: List<Pair<TransactionEntity, String>>): Result<Int> {
         return try {
             Timber.tag(TAG).d("Adding ${transactions.size} transactions")
             
@@ -76,8 +76,8 @@ class AddTransactionUseCase @Inject constructor(
             var duplicateCount = 0
             var errorCount = 0
             
-            for (transaction in transactions) {
-                val result = execute(transaction)
+            for ((transaction, smsBody) in transactions) {
+                val result = execute(transaction, smsBody)
                 when {
                     result.isSuccess -> successCount++
                     result.exceptionOrNull() is DuplicateTransactionException -> duplicateCount++
@@ -98,15 +98,15 @@ class AddTransactionUseCase @Inject constructor(
      * Validate transaction data
      * FIXED: Support both SMS and manual transactions
      */
-    private fun validateTransaction(transaction: TransactionEntity): ValidationResult {
+    private fun validateTransaction(transaction: TransactionEntity, smsBody: String): ValidationResult {
         return when {
             transaction.amount <= 0 -> ValidationResult(false, "Amount must be greater than 0")
             transaction.rawMerchant.isBlank() -> ValidationResult(false, "Merchant name cannot be empty")
             transaction.normalizedMerchant.isBlank() -> ValidationResult(false, "Normalized merchant name cannot be empty")
             // FIXED: For manual transactions, SMS-specific fields can be placeholder values
-            isManualTransaction(transaction) && transaction.bankName.isBlank() -> ValidationResult(false, "Bank name cannot be empty for manual transactions")
-            !isManualTransaction(transaction) && transaction.bankName.isBlank() -> ValidationResult(false, "Bank name cannot be empty")
-            !isManualTransaction(transaction) && transaction.rawSmsBody.isBlank() -> ValidationResult(false, "SMS body cannot be empty")
+            isManualTransaction(transaction, smsBody) && transaction.bankName.isBlank() -> ValidationResult(false, "Bank name cannot be empty for manual transactions")
+            !isManualTransaction(transaction, smsBody) && transaction.bankName.isBlank() -> ValidationResult(false, "Bank name cannot be empty")
+            !isManualTransaction(transaction, smsBody) && smsBody.isBlank() -> ValidationResult(false, "SMS body cannot be empty")
             transaction.confidenceScore < 0.0f || transaction.confidenceScore > 1.0f -> 
                 ValidationResult(false, "Confidence score must be between 0.0 and 1.0")
             else -> ValidationResult(true, null)
@@ -116,13 +116,14 @@ class AddTransactionUseCase @Inject constructor(
     /**
      * Check if this is a manual transaction (not from SMS)
      */
-    private fun isManualTransaction(transaction: TransactionEntity): Boolean {
+    private fun isManualTransaction(transaction: TransactionEntity, smsBody: String): Boolean {
         return transaction.smsId.startsWith("MANUAL_") || 
-               transaction.rawSmsBody == "MANUAL_ENTRY"
+               smsBody == "MANUAL_ENTRY"
     }
     
     /**
-     * Create a manual transaction entity for quick expense entry
+     * Create a manual transaction entity for quick expense entry; pass it to [execute]
+     * with [manualEntryBody] for the same values
      */
     fun createManualTransaction(
         amount: Double,
@@ -141,7 +142,6 @@ class AddTransactionUseCase @Inject constructor(
             categoryId = 1L,  // Default to "Other" category - will be updated in ensureMerchantAndCategoryExist
             bankName = bankName,
             transactionDate = now,
-            rawSmsBody = "MANUAL_ENTRY: ₹$amount at $merchantName ($categoryName)",
             confidenceScore = 1.0f, // Manual entries are 100% confident
             isDebit = true,
             createdAt = now,
@@ -149,15 +149,24 @@ class AddTransactionUseCase @Inject constructor(
         )
     }
     
+    /**
+     * Stand-in SMS body for a manual transaction, carrying its category name
+     */
+    fun manualEntryBody(
+        amount: Double,
+        merchantName: String,
+        categoryName: String = "Other"
+    ): String = "MANUAL_ENTRY: ₹$amount at $merchantName ($categoryName)"
+    
     /**
      * Ensure merchant and category entities exist for manual transactions
      */
-    private suspend fun ensureMerchantAndCategoryExist(transaction: TransactionEntity) {
+    private suspend fun ensureMerchantAndCategoryExist(transaction: TransactionEntity, smsBody: String) {
         try {
             Timber.tag(TAG).d("Ensuring merchant and category entities exist for manual transaction")
             
             // Extract category name from SMS body (format: "MANUAL_ENTRY: ₹amount at merchant (category)")
-            val categoryName = extractCategoryFromManualEntry(transaction.rawSmsBody)
+            val categoryName = extractCategoryFromManualEntry(smsBody)
             
             // First, ensure the category exists
             var category = categoryRepository.getCategoryByName(categoryName)
@@ -80,9 +80,9 @@ class GetTransactionsUseCase @Inject constructor(
     /**
      * Search transactions
      */
-    suspend fun searchTransactions(query: String, limit: Int = 50): Result<List<TransactionEntity>> {
+    suspend fun searchTransactions(query: String, limit: Int = 50, offset: Int = 0): Result<List<TransactionEntity>> {
         return try {
-            val transactions = repository.searchTransactions(query, limit)
+            val transactions = repository.searchTransactions(query, limit, offset)
             Result.success(transactions)
         } catch (e: Exception) {
             Timber.tag(TAG).e(e, "Error searching transactions")
@@ -1,5 +1,6 @@
 package com.smartexpenseai.app.domain.usecase.transaction
 
+import com.smartexpenseai.app.parsing.engine.MerchantNameNormalizer
 import timber.log.Timber
 import com.smartexpenseai.app.data.entities.TransactionEntity
 import com.smartexpenseai.app.domain.repository.TransactionRepositoryInterface
@@ -151,7 +152,6 @@ class UpdateTransactionUseCase @Inject constructor(
             transaction.rawMerchant.isBlank() -> ValidationResult(false, "Merchant name cannot be empty")
             transaction.normalizedMerchant.isBlank() -> ValidationResult(false, "Normalized merchant name cannot be empty")
             transaction.bankName.isBlank() -> ValidationResult(false, "Bank name cannot be empty")
-            transaction.rawSmsBody.isBlank() -> ValidationResult(false, "SMS body cannot be empty")
             transaction.confidenceScore < 0.0f || transaction.confidenceScore > 1.0f -> 
                 ValidationResult(false, "Confidence score must be between 0.0 and 1.0")
             else -> ValidationResult(true, null)
@@ -161,10 +161,6 @@ class UpdateTransactionUseCase @Inject constructor(
     /**
      * Helper method to normalize merchant names consistently
      */
-    private fun normalizeMerchantName(merchant: String): String {
-        return merchant.lowercase()
-            .replace(Regex("[^a-zA-Z0-9\\s]"), "")
-            .replace(Regex("\\s+"), " ")
-            .trim()
-    }
+    private fun normalizeMerchantName(merchant: String): String =
+        MerchantNameNormalizer.alphanumericKey(merchant)
 }
\ No newline at end of file
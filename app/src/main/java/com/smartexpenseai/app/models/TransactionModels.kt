@@ -20,7 +20,8 @@ data class ParsedTransaction(
     val confidence: Float,
     val rawSMS: String,
     val referenceNumber: String? = null,
-    val senderAddress: String? = null  // SMS sender address for consistent SMS ID generation
+    val senderAddress: String? = null,  // SMS sender address for consistent SMS ID generation
+    val smsRowId: Long = 0  // Telephony.Sms._ID of the source SMS (0 when not read from the inbox)
 ) {
     // Constructor for compatibility with different use cases
     constructor(
@@ -65,7 +65,7 @@ class TransactionNotificationReceiver : BroadcastReceiver() {
         CoroutineScope(Dispatchers.IO).launch {
             try {
                 val repository = ExpenseRepository.getInstance(context)
-                val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine(context)
+                val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine()
                 val categoryManager = CategoryManager(context, repository, merchantRuleEngine)
                 
                 logger.debug("handleCategorizeAction", "Categorizing transaction $transactionId as $category for merchant $merchant")
@@ -176,7 +176,7 @@ class TransactionNotificationReceiver : BroadcastReceiver() {
         CoroutineScope(Dispatchers.IO).launch {
             try {
                 val repository = ExpenseRepository.getInstance(context)
-                val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine(context)
+                val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine()
 
                 // Get transaction to find merchant and category
                 val transaction = repository.getTransactionBySmsId(transactionId)
@@ -265,7 +265,7 @@ class TransactionNotificationReceiver : BroadcastReceiver() {
         CoroutineScope(Dispatchers.IO).launch {
             try {
                 val repository = ExpenseRepository.getInstance(context)
-                val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine(context)
+                val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine()
                 
                 // Check if transaction exists in SQLite database
                 val transaction = repository.getTransactionBySmsId(transactionId)
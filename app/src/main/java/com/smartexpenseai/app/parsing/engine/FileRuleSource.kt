@@ -0,0 +1,44 @@
+package com.smartexpenseai.app.parsing.engine
+
+import android.content.Context
+import com.smartexpenseai.app.BuildConfig
+import java.io.File
+
+/**
+ * The app's [RuleSource]: bundled rules, with the override stored as
+ * files/[OVERRIDE_DIR]/[OVERRIDE_FILE_NAME] in app storage
+ */
+class FileRuleSource(
+    private val context: Context
+) : BundledRuleSource(BuildConfig.VERSION_CODE.toString()) {
+
+    companion object {
+        const val OVERRIDE_FILE_NAME = "bank_rules_override.json"
+        private const val OVERRIDE_DIR = "rules"
+    }
+
+    private val overrideFile: File
+        get() = File(File(context.filesDir, OVERRIDE_DIR), OVERRIDE_FILE_NAME)
+
+    override fun readOverride(): ByteArray? {
+        val file = overrideFile
+        return if (file.exists()) file.readBytes() else null
+    }
+
+    // Write to a temp file and rename, so a crash never leaves a half-written override
+    override fun writeOverride(bytes: ByteArray) {
+        val target = overrideFile
+        target.parentFile?.mkdirs()
+        val temp = File(target.parentFile, "${target.name}.tmp")
+        temp.writeBytes(bytes)
+        if (!temp.renameTo(target)) {
+            temp.delete()
+            throw RuleLoadException("Could not write ${target.name}")
+        }
+    }
+
+    override fun deleteOverride(): Boolean {
+        val file = overrideFile
+        return !file.exists() || file.delete()
+    }
+}
@@ -45,6 +45,7 @@ class DataExportService @Inject constructor(
             
             // Export transactions
             val transactions = repository.getAllTransactionsSync()
+            val smsBodies = repository.getSmsBodies(transactions.map { it.id })
             val transactionsArray = JSONArray()
             
             transactions.forEach { transaction ->
@@ -57,7 +58,7 @@ class DataExportService @Inject constructor(
                     put("transactionDate", SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(transaction.transactionDate))
                     put("isDebit", transaction.isDebit)
                     put("confidenceScore", transaction.confidenceScore)
-                    put("rawSmsBody", transaction.rawSmsBody)
+                    put("rawSmsBody", smsBodies[transaction.id].orEmpty())
                     put("smsId", transaction.smsId)
                 }
                 transactionsArray.put(transactionJson)
@@ -0,0 +1,50 @@
+package com.smartexpenseai.app.services
+
+import com.smartexpenseai.app.data.entities.ParseCacheEntity
+import com.smartexpenseai.app.models.HistoricalSMS
+import com.smartexpenseai.app.models.ParsedTransaction
+
+/**
+ * Conversion between accepted parse outcomes and parse_cache rows (ParseCacheEntity).
+ *
+ * A cache row is shared by every SMS with the same body and sender, so it holds only what
+ * the body determines. A date taken from the SMS timestamp (no date in the body) is not
+ * stored: a later SMS with the same text gets its own timestamp, not the first one's.
+ */
+internal object ParseCacheEntries {
+
+    fun accepted(
+        bodyHash: String,
+        senderHash: String,
+        rulesVersion: String,
+        transaction: ParsedTransaction,
+        dateInBody: Boolean
+    ): ParseCacheEntity = ParseCacheEntity(
+        bodyHash = bodyHash,
+        senderHash = senderHash,
+        rulesVersion = rulesVersion,
+        accepted = true,
+        amount = transaction.amount,
+        merchant = transaction.merchant,
+        bankName = transaction.bankName,
+        transactionDate = if (dateInBody) transaction.date else null,
+        isDebit = transaction.isDebit,
+        referenceNumber = transaction.referenceNumber,
+        confidence = transaction.confidence
+    )
+
+    /** The transaction of [sms] from an accepted [entry] cached for the same body and sender. */
+    fun transaction(sms: HistoricalSMS, entry: ParseCacheEntity): ParsedTransaction = ParsedTransaction(
+        id = "hist_${sms.id}",
+        amount = entry.amount ?: 0.0,
+        merchant = entry.merchant ?: "Unknown Merchant",
+        bankName = entry.bankName ?: "Unknown Bank",
+        date = entry.transactionDate ?: sms.date,
+        rawSMS = sms.body,
+        confidence = entry.confidence,
+        isDebit = entry.isDebit,
+        referenceNumber = entry.referenceNumber,
+        senderAddress = sms.address,
+        smsRowId = sms.id.toLongOrNull() ?: 0
+    )
+}
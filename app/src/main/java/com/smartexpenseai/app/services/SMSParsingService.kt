@@ -3,14 +3,27 @@ package com.smartexpenseai.app.services
 import android.content.Context
 import android.database.Cursor
 import android.provider.Telephony
+import com.smartexpenseai.app.BuildConfig
+import com.smartexpenseai.app.data.dao.ParseCacheDao
+import com.smartexpenseai.app.data.entities.ParseCacheEntity
 import com.smartexpenseai.app.models.HistoricalSMS
 import com.smartexpenseai.app.utils.logging.StructuredLogger
 import com.smartexpenseai.app.models.ParsedTransaction
 import com.smartexpenseai.app.models.RejectedSMS
+import com.smartexpenseai.app.parsing.engine.SmsParseEngine
 import com.smartexpenseai.app.parsing.engine.UnifiedSMSParser
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.catch
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.withContext
+import java.io.BufferedWriter
+import java.io.Closeable
 import java.io.File
+import java.io.IOException
+import java.security.MessageDigest
 import java.text.SimpleDateFormat
 import java.util.*
 import javax.inject.Inject
@@ -18,7 +31,8 @@ import javax.inject.Singleton
 @Singleton
 class SMSParsingService @Inject constructor(
     private val context: Context,
-    private val unifiedParser: UnifiedSMSParser
+    private val unifiedParser: UnifiedSMSParser,
+    private val parseCacheDao: ParseCacheDao
 ) {
     private val logger = StructuredLogger(
         featureTag = "SMS",
@@ -26,13 +40,19 @@ class SMSParsingService @Inject constructor(
     )
     companion object {
         private const val MONTHS_TO_SCAN = 6 // Scan last 6 months
-        private const val MAX_SMS_TO_PROCESS = 5000 // Limit SMS processing to prevent ANR
+        private const val PARSE_BATCH_SIZE = 256 // SMS handed to UnifiedSMSParser.parseBatch at once
+        private const val CACHE_HASH_BYTES = 16 // Truncated SHA-256 for parse_cache keys
+        private val HEX_DIGITS = "0123456789abcdef".toCharArray()
+        private val WHITESPACE_REGEX = Regex("\\s+")
     }
-    
+
     /**
      * Main method to scan historical SMS and extract valid transactions
      * This replaces both SMSHistoryReader.scanHistoricalSMS() and ExpenseRepository.readSMSTransactionsDirectly()
      *
+     * Collects [parsedTransactionsFlow] into a list for screens that need the whole
+     * result; the database sync consumes the flow directly and never holds the list.
+     *
      * @param sinceDate when provided, only SMS received after this date are read from the
      *                  content provider (incremental scan). Defaults to the last 6 months.
      */
@@ -41,141 +61,351 @@ class SMSParsingService @Inject constructor(
         progressCallback: ((current: Int, total: Int, status: String) -> Unit)? = null
     ): List<ParsedTransaction> = withContext(Dispatchers.IO) {
         val transactions = mutableListOf<ParsedTransaction>()
-        val rejectedSMSList = mutableListOf<RejectedSMS>()
-        var acceptedCount = 0
-        var rejectedCount = 0
-        var processedCount = 0
-        
         try {
-            logger.debug(
-                where = "scanHistoricalSMS",
-                what = "[UNIFIED] Starting SMS scan using unified parsing service..."
-            )
-            progressCallback?.invoke(0, 100, "Reading SMS history...")
-            
-            val historicalSMS = readSMSHistory(sinceDate)
-            logger.debug(
+            parsedTransactionsFlow(sinceDate, progressCallback = progressCallback).collect { transactions.add(it) }
+            // The stream is in inbox insertion order; screens expect newest first
+            transactions.sortByDescending { it.date }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            logger.error(
                 where = "scanHistoricalSMS",
-                what = "[UNIFIED] Found ${historicalSMS.size} historical SMS messages (limited to $MAX_SMS_TO_PROCESS)"
+                what = "[UNIFIED] Error scanning historical SMS",
+                throwable = e
             )
-            
-            val totalSMS = historicalSMS.size
-            progressCallback?.invoke(0, totalSMS, "Found $totalSMS messages, analyzing...")
-            
-            for (sms in historicalSMS) {
-                processedCount++
-
-                // Update progress callback every 100 messages for performance
-                if (processedCount % 100 == 0) {
-                    val status = "Processed $processedCount/$totalSMS messages • Found $acceptedCount transactions"
-                    progressCallback?.invoke(processedCount, totalSMS, status)
-                }
+            progressCallback?.invoke(0, 100, "Error: ${e.message}")
+        }
+        return@withContext transactions
+    }
 
-                // Use new unified parser
-                val parseResult = unifiedParser.parseSMS(
-                    sender = sms.address,
-                    body = sms.body,
-                    timestamp = sms.date.time
-                )
+    /**
+     * Streaming scan: cursor window -> parse -> emit accepted transactions one by one.
+     *
+     * The content-provider cursor is read row by row and never copied into a list, and
+     * rejected SMS are appended to the rejection CSV as they occur, so memory stays flat
+     * regardless of inbox size. Rows are parsed [PARSE_BATCH_SIZE] at a time with
+     * [UnifiedSMSParser.parseBatch], which spreads each window across the CPU cores and
+     * keeps cursor order. Messages whose outcome is already in `parse_cache` (same body,
+     * sender and [UnifiedSMSParser.rulesVersion]) are not parsed again, so rescans only
+     * pay for new SMS. The flow is cold: a slow collector (e.g. batched DB inserts)
+     * naturally throttles the cursor, which is why no message cap is needed any more.
+     *
+     * SMS are read in ascending `_ID` order so a consumer can checkpoint the last row it
+     * committed and later pass it back as [afterSmsRowId] to resume the same scan.
+     * [afterSmsRowId] and [upToSmsRowId] bound the scan to `_ID` range (after, upTo].
+     */
+    fun parsedTransactionsFlow(
+        sinceDate: Date? = null,
+        afterSmsRowId: Long = 0,
+        upToSmsRowId: Long = Long.MAX_VALUE,
+        progressCallback: ((current: Int, total: Int, status: String) -> Unit)? = null
+    ): Flow<ParsedTransaction> = flow {
+        var acceptedCount = 0
+        var rejectedCount = 0
+        var processedCount = 0
+        var totalSMS = 0
 
-                when (parseResult) {
-                    is UnifiedSMSParser.ParseResult.Success -> {
-                        // CRITICAL: Double-check reference number exists (additional safety)
-                        if (parseResult.transaction.referenceNumber.isNullOrBlank()) {
-                            logger.warn(
-                                where = "scanHistoricalSMS",
-                                what = "[REJECTED] Transaction has no reference number (conf=${String.format("%.2f", parseResult.confidence.overall)}) - likely promotional: ${sms.body.take(50)}..."
-                            )
-                            rejectedSMSList.add(RejectedSMS(
-                                sender = sms.address,
-                                body = sms.body.replace(Regex("\\s+"), " ").trim(),
-                                date = sms.date,
-                                reason = "No reference number (required for transaction SMS)"
-                            ))
-                            rejectedCount++
-                            continue
-                        }
+        logger.debug(
+            where = "scanHistoricalSMS",
+            what = "[UNIFIED] Starting streaming SMS scan using unified parsing service..."
+        )
+        progressCallback?.invoke(0, 100, "Reading SMS history...")
+
+        purgeStaleParseCache(unifiedParser.rulesVersion())
 
-                        // Convert TransactionEntity to ParsedTransaction
-                        val transaction = ParsedTransaction(
-                            id = "hist_${sms.id}",
-                            amount = parseResult.transaction.amount,
-                            merchant = parseResult.transaction.rawMerchant,
-                            bankName = parseResult.transaction.bankName,
-                            date = parseResult.transaction.transactionDate,
-                            rawSMS = parseResult.transaction.rawSmsBody,
-                            confidence = parseResult.confidence.overall,
-                            isDebit = parseResult.transaction.isDebit,
-                            referenceNumber = parseResult.transaction.referenceNumber,
-                            senderAddress = sms.address  // CRITICAL: Pass SMS sender for consistent ID generation
-                        )
-
-                        // Only accept if confidence is reasonable
-                        // Threshold: 0.65 minimum confidence score
-                        if (parseResult.confidence.overall >= 0.65f) {
-                            transactions.add(transaction)
+        RejectedSMSWriter().use { rejectedWriter ->
+            val window = ArrayList<HistoricalSMS>(PARSE_BATCH_SIZE)
+
+            suspend fun parseWindow() {
+                if (window.isEmpty()) return
+                val processedBefore = processedCount
+                val outcomes = scanWindow(window) { completed ->
+                    val processed = processedBefore + completed
+                    val status = "Processed $processed/$totalSMS messages • Found $acceptedCount transactions"
+                    progressCallback?.invoke(processed, totalSMS, status)
+                }
+                processedCount += window.size
+
+                window.forEachIndexed { index, sms ->
+                    when (val outcome = outcomes[index]) {
+                        is ScanOutcome.Accepted -> {
                             acceptedCount++
-                        } else {
-                            rejectedSMSList.add(RejectedSMS(
-                                sender = sms.address,
-                                body = sms.body.replace(Regex("\\s+"), " ").trim(),
-                                date = sms.date,
-                                reason = "Low confidence (${String.format("%.2f", parseResult.confidence.overall)})"
-                            ))
-                            rejectedCount++
+                            emit(outcome.transaction)
+                        }
+                        is ScanOutcome.Rejected -> {
+                            if (outcome.counted) rejectedCount++
+                            rejectedWriter.write(outcome.rejected)
                         }
                     }
-                    is UnifiedSMSParser.ParseResult.Failed -> {
-                        // Failed parsing - could be non-bank SMS or parsing error
-                        rejectedSMSList.add(RejectedSMS(
-                            sender = sms.address,
-                            body = sms.body.replace(Regex("\\s+"), " ").trim(),
-                            date = sms.date,
-                            reason = "Parse failed: ${parseResult.reason}"
-                        ))
-                        // Otherwise, skip silently (not a bank SMS)
-                    }
                 }
+                window.clear()
+            }
+
+            smsHistoryFlow(sinceDate, afterSmsRowId, upToSmsRowId) { count ->
+                totalSMS = count
+                logger.debug(
+                    where = "scanHistoricalSMS",
+                    what = "[UNIFIED] Found $count historical SMS messages"
+                )
+                progressCallback?.invoke(0, count, "Found $count messages, analyzing...")
+            }.collect { sms ->
+                window.add(sms)
+                if (window.size >= PARSE_BATCH_SIZE) {
+                    parseWindow()
+                }
+            }
+            parseWindow()
+        }
+
+        logger.debug(
+            where = "scanHistoricalSMS",
+            what = "[UNIFIED] Scan complete - processed $processedCount, accepted $acceptedCount, rejected $rejectedCount"
+        )
+        if (BuildConfig.DEBUG) {
+            logger.debug("scanHistoricalSMS", unifiedParser.dumpPatternStats())
+        }
+        // Final progress update
+        progressCallback?.invoke(totalSMS, totalSMS, "Scan complete! Found $acceptedCount transactions")
+    }.flowOn(Dispatchers.IO)
+
+    /**
+     * Outcomes for one cursor window, in window order: cached ones from `parse_cache`,
+     * the rest parsed in parallel and written back to the cache.
+     *
+     * The rules version is read per window, before parsing, so a rules override swapped
+     * in mid-scan applies from the next window on. If the swap lands between reading the
+     * version and parsing, newer outcomes are cached under the older version, which the
+     * next scan simply ignores.
+     */
+    private suspend fun scanWindow(
+        window: List<HistoricalSMS>,
+        onProgress: (completed: Int) -> Unit
+    ): List<ScanOutcome> {
+        val rulesVersion = unifiedParser.rulesVersion()
+        val digest = MessageDigest.getInstance("SHA-256")
+        val keys = window.map { sms -> hashKey(digest, sms.body) to hashKey(digest, sms.address) }
+        val cached = loadCachedOutcomes(keys, rulesVersion)
+
+        val outcomes = arrayOfNulls<ScanOutcome>(window.size)
+        val misses = ArrayList<Int>()
+        window.forEachIndexed { index, sms ->
+            val entry = cached[keys[index]]
+            if (entry != null) outcomes[index] = cachedScanOutcome(sms, entry) else misses.add(index)
+        }
+        val hits = window.size - misses.size
+        if (hits > 0) onProgress(hits)
 
-                // Yield occasionally to prevent ANR
-                if (processedCount % 100 == 0) {
-                    kotlinx.coroutines.yield()
+        if (misses.isNotEmpty()) {
+            val results = unifiedParser.parseBatch(
+                misses.map { index ->
+                    val sms = window[index]
+                    SmsParseEngine.SmsMessage(sms.address, sms.body, sms.date.time)
                 }
+            ) { completed, _ -> onProgress(hits + completed) }
+
+            val newEntries = ArrayList<ParseCacheEntity>(misses.size)
+            misses.forEachIndexed { resultIndex, index ->
+                val outcome = toScanOutcome(window[index], results[resultIndex])
+                outcomes[index] = outcome
+                newEntries.add(cacheEntry(keys[index], rulesVersion, outcome))
             }
-            
-            // Save rejected SMS to CSV file
-            if (rejectedSMSList.isNotEmpty()) {
-                saveRejectedSMSToCSV(rejectedSMSList)
+            saveCachedOutcomes(newEntries)
+        }
+
+        return outcomes.map { it!! }
+    }
+
+    private sealed class ScanOutcome {
+        // dateInBody = false: transaction.date came from the SMS timestamp
+        data class Accepted(val transaction: ParsedTransaction, val dateInBody: Boolean) : ScanOutcome()
+        // counted = false for non-bank / unparseable SMS, which are logged but not tallied
+        data class Rejected(val rejected: RejectedSMS, val counted: Boolean = true) : ScanOutcome()
+    }
+
+    private fun toScanOutcome(sms: HistoricalSMS, parseResult: UnifiedSMSParser.ParseResult): ScanOutcome {
+        return when (parseResult) {
+            is UnifiedSMSParser.ParseResult.Success -> {
+                // CRITICAL: Double-check reference number exists (additional safety)
+                if (parseResult.transaction.referenceNumber.isNullOrBlank()) {
+                    logger.warn(
+                        where = "scanHistoricalSMS",
+                        what = "[REJECTED] Transaction has no reference number (conf=${String.format("%.2f", parseResult.confidence.overall)}) - likely promotional: ${sms.body.take(50)}..."
+                    )
+                    return ScanOutcome.Rejected(
+                        rejectedSMS(sms, "No reference number (required for transaction SMS)")
+                    )
+                }
+
+                // Convert TransactionEntity to ParsedTransaction
+                val transaction = ParsedTransaction(
+                    id = "hist_${sms.id}",
+                    amount = parseResult.transaction.amount,
+                    merchant = parseResult.transaction.rawMerchant,
+                    bankName = parseResult.transaction.bankName,
+                    date = parseResult.transaction.transactionDate,
+                    rawSMS = sms.body,
+                    confidence = parseResult.confidence.overall,
+                    isDebit = parseResult.transaction.isDebit,
+                    referenceNumber = parseResult.transaction.referenceNumber,
+                    senderAddress = sms.address,  // CRITICAL: Pass SMS sender for consistent ID generation
+                    smsRowId = sms.id.toLongOrNull() ?: 0
+                )
+
+                // Only accept if confidence is reasonable
+                // Threshold: 0.65 minimum confidence score
+                if (parseResult.confidence.overall >= 0.65f) {
+                    ScanOutcome.Accepted(transaction, parseResult.dateInBody)
+                } else {
+                    ScanOutcome.Rejected(
+                        rejectedSMS(sms, "Low confidence (${String.format("%.2f", parseResult.confidence.overall)})")
+                    )
+                }
             }
-            
-            // Final progress update
-            progressCallback?.invoke(totalSMS, totalSMS, "Scan complete! Found $acceptedCount transactions")
-            
-        } catch (e: Exception) {
-            logger.error(
-                where = "scanHistoricalSMS",
-                what = "[UNIFIED] Error scanning historical SMS",
-                throwable = e
+            is UnifiedSMSParser.ParseResult.Failed -> {
+                // Failed parsing - could be non-bank SMS or parsing error
+                ScanOutcome.Rejected(rejectedSMS(sms, "Parse failed: ${parseResult.reason}"), counted = false)
+            }
+        }
+    }
+
+    private fun cachedScanOutcome(sms: HistoricalSMS, entry: ParseCacheEntity): ScanOutcome {
+        if (!entry.accepted) {
+            return ScanOutcome.Rejected(
+                rejectedSMS(sms, entry.rejectReason ?: "Parse failed"),
+                counted = entry.rejectCounted
             )
-            progressCallback?.invoke(0, 100, "Error: ${e.message}")
         }
-        
-        return@withContext transactions
+        return ScanOutcome.Accepted(ParseCacheEntries.transaction(sms, entry), entry.transactionDate != null)
     }
-    
+
+    private fun cacheEntry(
+        key: Pair<String, String>,
+        rulesVersion: String,
+        outcome: ScanOutcome
+    ): ParseCacheEntity = when (outcome) {
+        is ScanOutcome.Accepted -> ParseCacheEntries.accepted(
+            bodyHash = key.first,
+            senderHash = key.second,
+            rulesVersion = rulesVersion,
+            transaction = outcome.transaction,
+            dateInBody = outcome.dateInBody
+        )
+        is ScanOutcome.Rejected -> ParseCacheEntity(
+            bodyHash = key.first,
+            senderHash = key.second,
+            rulesVersion = rulesVersion,
+            accepted = false,
+            rejectReason = outcome.rejected.reason,
+            rejectCounted = outcome.counted
+        )
+    }
+
+    // The parse cache is an optimization only: any failure falls back to parsing
+
+    private suspend fun loadCachedOutcomes(
+        keys: List<Pair<String, String>>,
+        rulesVersion: String
+    ): Map<Pair<String, String>, ParseCacheEntity> = try {
+        parseCacheDao.getOutcomes(rulesVersion, keys.map { it.first }.distinct())
+            .associateBy { it.bodyHash to it.senderHash }
+    } catch (e: CancellationException) {
+        throw e
+    } catch (e: Exception) {
+        logger.warn("loadCachedOutcomes", "Parse cache lookup failed, parsing window", e.message)
+        emptyMap()
+    }
+
+    private suspend fun saveCachedOutcomes(entries: List<ParseCacheEntity>) {
+        try {
+            parseCacheDao.insertOutcomes(entries)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            logger.warn("saveCachedOutcomes", "Failed to store ${entries.size} parse outcomes", e.message)
+        }
+    }
+
+    private suspend fun purgeStaleParseCache(rulesVersion: String) {
+        try {
+            val purged = parseCacheDao.deleteStaleOutcomes(rulesVersion)
+            if (purged > 0) {
+                logger.info("purgeStaleParseCache", "Dropped $purged cached parse outcomes from older rules")
+            }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            logger.warn("purgeStaleParseCache", "Failed to purge stale parse outcomes", e.message)
+        }
+    }
+
+    private fun hashKey(digest: MessageDigest, value: String): String {
+        val bytes = digest.digest(value.toByteArray(Charsets.UTF_8))
+        val hex = CharArray(CACHE_HASH_BYTES * 2)
+        for (i in 0 until CACHE_HASH_BYTES) {
+            val b = bytes[i].toInt()
+            hex[i * 2] = HEX_DIGITS[(b shr 4) and 0xF]
+            hex[i * 2 + 1] = HEX_DIGITS[b and 0xF]
+        }
+        return String(hex)
+    }
+
+    private fun rejectedSMS(sms: HistoricalSMS, reason: String) = RejectedSMS(
+        sender = sms.address,
+        body = sms.body.replace(WHITESPACE_REGEX, " ").trim(),
+        date = sms.date,
+        reason = reason
+    )
+
     /**
-     * Read SMS history from device content provider
+     * Start of the window a scan with [sinceDate] reads from the content provider.
      */
-    private fun readSMSHistory(sinceDate: Date? = null): List<HistoricalSMS> {
-        val smsList = mutableListOf<HistoricalSMS>()
-
+    fun scanWindowStart(sinceDate: Date? = null): Date {
         // Default range: last 6 months. Incremental scans pass the last sync date so the
         // content provider only returns SMS newer than what is already in the database.
         val calendar = Calendar.getInstance()
         calendar.add(Calendar.MONTH, -MONTHS_TO_SCAN)
         val sixMonthsAgo = calendar.timeInMillis
-        val startDate = sinceDate?.time?.coerceAtLeast(sixMonthsAgo) ?: sixMonthsAgo
-        
+        return Date(sinceDate?.time?.coerceAtLeast(sixMonthsAgo) ?: sixMonthsAgo)
+    }
+
+    /**
+     * Highest inbox `Telephony.Sms._ID` at this moment, or 0 when the inbox is empty or
+     * cannot be read. A scan bounded by this value can record it as its high-water mark.
+     */
+    suspend fun latestInboxSmsRowId(): Long = withContext(Dispatchers.IO) {
+        try {
+            context.contentResolver.query(
+                Telephony.Sms.CONTENT_URI,
+                arrayOf(Telephony.Sms._ID),
+                "${Telephony.Sms.TYPE} = ?",
+                arrayOf(Telephony.Sms.MESSAGE_TYPE_INBOX.toString()),
+                "${Telephony.Sms._ID} DESC"
+            )?.use { cursor ->
+                if (cursor.moveToFirst()) cursor.getLong(0) else 0L
+            } ?: 0L
+        } catch (e: Exception) {
+            logger.warn(
+                where = "latestInboxSmsRowId",
+                what = "Could not read latest SMS _ID: ${e.message}"
+            )
+            0L
+        }
+    }
+
+    /**
+     * Stream SMS history from the device content provider, one cursor row at a time.
+     * Rows come in ascending `_ID` order within (afterSmsRowId, upToSmsRowId].
+     * [onCount] receives the number of matching rows before the first emission.
+     * Provider errors (e.g. permission revoked) end the stream early and are logged.
+     */
+    private fun smsHistoryFlow(
+        sinceDate: Date? = null,
+        afterSmsRowId: Long = 0,
+        upToSmsRowId: Long = Long.MAX_VALUE,
+        onCount: (Int) -> Unit
+    ): Flow<HistoricalSMS> = flow {
+        val startDate = scanWindowStart(sinceDate).time
+
         val uri = Telephony.Sms.CONTENT_URI
         val projection = arrayOf(
             Telephony.Sms._ID,
@@ -184,53 +414,53 @@ class SMSParsingService @Inject constructor(
             Telephony.Sms.DATE,
             Telephony.Sms.TYPE
         )
-        
-        val selection = "${Telephony.Sms.DATE} > ? AND ${Telephony.Sms.TYPE} = ?"
+
+        val selection = "${Telephony.Sms.DATE} > ? AND ${Telephony.Sms.TYPE} = ? " +
+            "AND ${Telephony.Sms._ID} > ? AND ${Telephony.Sms._ID} <= ?"
         val selectionArgs = arrayOf(
             startDate.toString(),
-            Telephony.Sms.MESSAGE_TYPE_INBOX.toString()
+            Telephony.Sms.MESSAGE_TYPE_INBOX.toString(),
+            afterSmsRowId.toString(),
+            upToSmsRowId.toString()
         )
-        val sortOrder = "${Telephony.Sms.DATE} DESC LIMIT $MAX_SMS_TO_PROCESS" // Newest first, limited
-        
-        var cursor: Cursor? = null
-        try {
-            logger.debug(
-                where = "readSMSHistory",
-                what = "[UNIFIED] Querying SMS newer than ${Date(startDate)} (max $MAX_SMS_TO_PROCESS messages)"
-            )
-            cursor = context.contentResolver.query(
-                uri, projection, selection, selectionArgs, sortOrder
-            )
-            
-            cursor?.let {
-                val idIndex = it.getColumnIndexOrThrow(Telephony.Sms._ID)
-                val addressIndex = it.getColumnIndexOrThrow(Telephony.Sms.ADDRESS)
-                val bodyIndex = it.getColumnIndexOrThrow(Telephony.Sms.BODY)
-                val dateIndex = it.getColumnIndexOrThrow(Telephony.Sms.DATE)
-                val typeIndex = it.getColumnIndexOrThrow(Telephony.Sms.TYPE)
-                
-                while (it.moveToNext()) {
-                    val sms = HistoricalSMS(
+        val sortOrder = "${Telephony.Sms._ID} ASC" // Insertion order, so _ID checkpoints are monotonic
+
+        logger.debug(
+            where = "readSMSHistory",
+            what = "[UNIFIED] Querying SMS newer than ${Date(startDate)} with _ID in ($afterSmsRowId, $upToSmsRowId]"
+        )
+        val cursor: Cursor = context.contentResolver.query(
+            uri, projection, selection, selectionArgs, sortOrder
+        ) ?: return@flow
+
+        cursor.use {
+            onCount(it.count)
+
+            val idIndex = it.getColumnIndexOrThrow(Telephony.Sms._ID)
+            val addressIndex = it.getColumnIndexOrThrow(Telephony.Sms.ADDRESS)
+            val bodyIndex = it.getColumnIndexOrThrow(Telephony.Sms.BODY)
+            val dateIndex = it.getColumnIndexOrThrow(Telephony.Sms.DATE)
+            val typeIndex = it.getColumnIndexOrThrow(Telephony.Sms.TYPE)
+
+            while (it.moveToNext()) {
+                emit(
+                    HistoricalSMS(
                         id = it.getString(idIndex),
                         address = it.getString(addressIndex) ?: "",
                         body = it.getString(bodyIndex) ?: "",
                         date = Date(it.getLong(dateIndex)),
                         type = it.getInt(typeIndex)
                     )
-                    smsList.add(sms)
-                }
+                )
             }
-        } catch (e: Exception) {
-            logger.error(
-                where = "readSMSHistory",
-                what = "[UNIFIED] Error reading SMS history",
-                throwable = e
-            )
-        } finally {
-            cursor?.close()
         }
-        
-        return smsList
+    }.catch { e ->
+        // Only upstream (provider) failures land here; collector exceptions propagate
+        logger.error(
+            where = "readSMSHistory",
+            what = "[UNIFIED] Error reading SMS history",
+            throwable = e
+        )
     }
 
     private fun calculateConfidence(messageBody: String): Float {
@@ -253,40 +483,72 @@ class SMSParsingService @Inject constructor(
         return minOf(confidence, 1.0f)
     }
 
-    private fun saveRejectedSMSToCSV(rejectedSMSList: List<RejectedSMS>) {
-        try {
-            val externalDir = context.getExternalFilesDir(null)
-            if (externalDir == null) {
-                logger.warn(
+    /**
+     * Appends rejected SMS to a per-scan CSV as they are produced instead of buffering
+     * them for the end of the scan. The file is only created on the first rejection.
+     */
+    private inner class RejectedSMSWriter : Closeable {
+        private val dateFormat = SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault())
+        private var writer: BufferedWriter? = null
+        private var failed = false
+
+        fun write(rejectedSMS: RejectedSMS) {
+            val out = writer ?: open() ?: return
+            try {
+                val dateStr = dateFormat.format(rejectedSMS.date)
+                val sender = rejectedSMS.sender.replace(",", ";") // Escape commas
+                val body = rejectedSMS.body.replace(",", ";").replace("\n", " ").replace("\"", "'") // Escape special characters
+                val reason = rejectedSMS.reason.replace(",", ";")
+
+                out.write("\"$dateStr\",\"$sender\",\"$body\",\"$reason\"\n")
+            } catch (e: IOException) {
+                logger.error(
                     where = "saveRejectedSMSToCSV",
-                    what = "External storage not available for CSV export"
+                    what = "[CSV] Error saving rejected SMS to CSV",
+                    throwable = e
                 )
-                return
+                failed = true
+                close()
             }
-            
-            val csvFile = File(externalDir, "rejected_sms_${System.currentTimeMillis()}.csv")
-            val dateFormat = SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault())
-            
-            csvFile.bufferedWriter().use { writer ->
-                // Write CSV header
-                writer.write("Date,Sender,Body,Rejection_Reason\n")
-                
-                // Write rejected SMS data
-                for (rejectedSMS in rejectedSMSList) {
-                    val dateStr = dateFormat.format(rejectedSMS.date)
-                    val sender = rejectedSMS.sender.replace(",", ";") // Escape commas
-                    val body = rejectedSMS.body.replace(",", ";").replace("\n", " ").replace("\"", "'") // Escape special characters
-                    val reason = rejectedSMS.reason.replace(",", ";")
-                    
-                    writer.write("\"$dateStr\",\"$sender\",\"$body\",\"$reason\"\n")
+        }
+
+        private fun open(): BufferedWriter? {
+            if (failed) return null
+            return try {
+                val externalDir = context.getExternalFilesDir(null)
+                if (externalDir == null) {
+                    logger.warn(
+                        where = "saveRejectedSMSToCSV",
+                        what = "External storage not available for CSV export"
+                    )
+                    failed = true
+                    return null
+                }
+
+                val csvFile = File(externalDir, "rejected_sms_${System.currentTimeMillis()}.csv")
+                csvFile.bufferedWriter().also {
+                    // Write CSV header
+                    it.write("Date,Sender,Body,Rejection_Reason\n")
+                    writer = it
                 }
+            } catch (e: IOException) {
+                logger.error(
+                    where = "saveRejectedSMSToCSV",
+                    what = "[CSV] Error creating rejected SMS CSV",
+                    throwable = e
+                )
+                failed = true
+                null
             }
-        } catch (e: Exception) {
-            logger.error(
-                where = "saveRejectedSMSToCSV",
-                what = "[CSV] Error saving rejected SMS to CSV",
-                throwable = e
-            )
+        }
+
+        override fun close() {
+            try {
+                writer?.close()
+            } catch (e: IOException) {
+                // Best-effort diagnostics file; nothing to recover
+            }
+            writer = null
         }
     }
 }
@@ -2,6 +2,7 @@ package com.smartexpenseai.app.services
 
 import android.content.Context
 import com.smartexpenseai.app.data.dao.MerchantDao
+import com.smartexpenseai.app.parsing.engine.MerchantNameNormalizer
 import com.smartexpenseai.app.utils.logging.StructuredLogger
 import com.smartexpenseai.app.data.entities.MerchantEntity
 import com.smartexpenseai.app.data.entities.TransactionEntity
@@ -321,13 +322,9 @@ class TransactionFilterService @Inject constructor(
      * Normalize merchant name for consistent comparison
      * This should match the normalization logic used in ExpenseRepository
      */
-    private fun normalizeMerchantName(merchantName: String): String {
-        // Use same normalization as MerchantAliasManager and DataMigrationHelper for consistency
-        return merchantName.uppercase()
-            .replace(Regex("[*#@\\-_]+.*"), "") // Remove suffixes after special chars
-            .replace(Regex("\\s+"), " ") // Normalize spaces
-            .trim()
-    }
+    private fun normalizeMerchantName(merchantName: String): String =
+        // Same normalization as MerchantRuleEngine and DataMigrationHelper for consistency
+        MerchantNameNormalizer.stripSuffixes(merchantName)
     
     /**
      * Check if a merchant is excluded
@@ -76,7 +76,7 @@ class CategoriesFragment : Fragment() {
 
         // Initialize legacy components for fallback compatibility
         repository = ExpenseRepository.getInstance(requireContext())
-        val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine(requireContext())
+        val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine()
         categoryManager = CategoryManager(requireContext(), repository, merchantRuleEngine)
 
         setupRecyclerView()
@@ -35,7 +35,7 @@ class CategoryChangeDialogHelper(private val context: Context) {
         binding.tvCurrentCategory.text = "Current Category: ${merchant.currentCategory}"
 
         // Get available categories
-        val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine(context)
+        val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine()
         val categoryManager = CategoryManager(context, repository, merchantRuleEngine)
         val availableCategories = runBlocking { categoryManager.getAllCategories().toMutableList() }
 
@@ -286,7 +286,7 @@ class CategoryDetailFragment : Fragment() {
     private fun showDeleteCategoryDialog() {
         // Get list of other categories for reassignment
         lifecycleScope.launch {
-            val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine(requireContext())
+            val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine()
             val categoryManager = com.smartexpenseai.app.utils.CategoryManager(requireContext(), repository, merchantRuleEngine)
             val allCategories = categoryManager.getAllCategories().toMutableList()
             allCategories.remove(viewModel.uiState.value.categoryName) // Remove current category
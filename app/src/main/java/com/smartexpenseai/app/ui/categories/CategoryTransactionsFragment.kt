@@ -14,6 +14,7 @@ import androidx.fragment.app.viewModels
 import androidx.lifecycle.lifecycleScope
 import androidx.lifecycle.repeatOnLifecycle
 import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
 import dagger.hilt.android.AndroidEntryPoint
 import javax.inject.Inject
 import com.smartexpenseai.app.databinding.FragmentCategoryTransactionsBinding
@@ -106,7 +107,7 @@ class CategoryTransactionsFragment : Fragment() {
         // Initialize legacy components for fallback compatibility
         categoryName = arguments?.getString("categoryName") ?: "Unknown"
         repository = ExpenseRepository.getInstance(requireContext())
-        val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine(requireContext())
+        val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine()
         categoryManager = CategoryManager(requireContext(), repository, merchantRuleEngine)
         
         setupUI()
@@ -142,6 +143,18 @@ class CategoryTransactionsFragment : Fragment() {
         binding.recyclerTransactions.apply {
             adapter = transactionsAdapter
             layoutManager = LinearLayoutManager(requireContext())
+
+            // Load the next page when the user scrolls near the bottom (5 items before end)
+            addOnScrollListener(object : RecyclerView.OnScrollListener() {
+                override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                    super.onScrolled(recyclerView, dx, dy)
+                    val layoutManager = recyclerView.layoutManager as? LinearLayoutManager ?: return
+                    val totalItemCount = layoutManager.itemCount
+                    if (totalItemCount > 0 && layoutManager.findLastVisibleItemPosition() >= totalItemCount - 5) {
+                        viewModel.handleEvent(CategoryTransactionsUIEvent.LoadMore)
+                    }
+                }
+            })
         }
     }
     
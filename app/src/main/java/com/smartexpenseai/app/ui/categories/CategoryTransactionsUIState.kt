@@ -1,6 +1,8 @@
 package com.smartexpenseai.app.ui.categories
 
+import com.smartexpenseai.app.data.repository.TransactionSort
 import com.smartexpenseai.app.ui.messages.MessageItem
+import java.util.Date
 
 /**
  * UI State for CategoryTransactions screen
@@ -11,6 +13,7 @@ data class CategoryTransactionsUIState(
     val isRefreshing: Boolean = false,
     val isLoading: Boolean = false,
     val isUpdatingCategory: Boolean = false,
+    val isLoadingMore: Boolean = false,
     
     // Data
     val categoryName: String = "",
@@ -19,6 +22,16 @@ data class CategoryTransactionsUIState(
     val allTransactions: List<MessageItem> = emptyList(), // Unfiltered list for local filtering
     val totalAmount: Double = 0.0,
     val transactionCount: Int = 0,
+
+    // Paging: category, range and order of the loaded list, keyset cursor of the next page
+    // (null after the last page), and the whole range's count and total from the rollup
+    val categoryId: Long? = null,
+    val rangeStart: Date? = null,
+    val rangeEnd: Date? = null,
+    val rangeSort: TransactionSort = TransactionSort.NEWEST_FIRST,
+    val nextCursor: String? = null,
+    val rangeTransactionCount: Int = 0,
+    val rangeTotalAmount: Double = 0.0,
     
     // Filter and sort state
     val currentSortOption: String = "Newest First",
@@ -69,6 +82,7 @@ data class CategoryTransactionsUIState(
 sealed class CategoryTransactionsUIEvent {
     object LoadTransactions : CategoryTransactionsUIEvent()
     object Refresh : CategoryTransactionsUIEvent()
+    object LoadMore : CategoryTransactionsUIEvent()
     object ClearError : CategoryTransactionsUIEvent()
     object ClearSuccess : CategoryTransactionsUIEvent()
     
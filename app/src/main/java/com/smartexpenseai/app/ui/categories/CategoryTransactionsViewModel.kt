@@ -5,6 +5,7 @@ import android.content.Intent
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.smartexpenseai.app.data.repository.ExpenseRepository
+import com.smartexpenseai.app.data.repository.TransactionSort
 import com.smartexpenseai.app.ui.messages.MessageItem
 import com.smartexpenseai.app.utils.CategoryManager
 import com.smartexpenseai.app.utils.logging.StructuredLogger
@@ -30,6 +31,7 @@ class CategoryTransactionsViewModel @Inject constructor(
 
     companion object {
         private const val TAG = "CategoryTransactionsViewModel"
+        private const val PAGE_SIZE = 50
     }
 
     // Private mutable state
@@ -53,6 +55,7 @@ class CategoryTransactionsViewModel @Inject constructor(
         when (event) {
             is CategoryTransactionsUIEvent.LoadTransactions -> loadTransactions()
             is CategoryTransactionsUIEvent.Refresh -> refreshTransactions()
+            is CategoryTransactionsUIEvent.LoadMore -> loadMoreTransactions()
             is CategoryTransactionsUIEvent.SetCategoryName -> setCategoryName(event.categoryName)
             is CategoryTransactionsUIEvent.ChangeSortOption -> changeSortOption(event.sortOption)
             is CategoryTransactionsUIEvent.ChangeFilterOption -> changeFilterOption(event.filterOption)
@@ -147,7 +150,7 @@ class CategoryTransactionsViewModel @Inject constructor(
     }
     
     /**
-     * Change sort option and reapply
+     * Change sort option and reload
      */
     private fun changeSortOption(sortOption: String) {
         logger.debug("changeSortOption","Changing sort option to: $sortOption")
@@ -156,11 +159,12 @@ class CategoryTransactionsViewModel @Inject constructor(
             currentSortOption = sortOption
         )
         
-        applyFilterAndSort()
+        // The list is paged, so the sort is applied by the page query: start over
+        loadTransactions()
     }
     
     /**
-     * Change filter option and reapply
+     * Change filter option and reload
      */
     private fun changeFilterOption(filterOption: String) {
         logger.debug("changeFilterOption","Changing filter option to: $filterOption")
@@ -169,7 +173,8 @@ class CategoryTransactionsViewModel @Inject constructor(
             currentFilterOption = filterOption
         )
         
-        applyFilterAndSort()
+        // The list is paged, so the filter is applied by the page query: start over
+        loadTransactions()
     }
     
     /**
@@ -342,24 +347,17 @@ class CategoryTransactionsViewModel @Inject constructor(
     }
     
     /**
-     * Load category transactions from repository
+     * Load the first page of category transactions from repository, in the current sort
+     * order over the current filter's date range, and that range's count and total.
+     * Records the category, range and cursor for loadMoreTransactions.
      */
     private suspend fun loadCategoryTransactionsFromRepository(categoryName: String): List<MessageItem> {
         return try {
-            // Get date range from the start of the current month to the current time
-            val calendar = Calendar.getInstance()
-            calendar.set(Calendar.DAY_OF_MONTH, 1)
-            calendar.set(Calendar.HOUR_OF_DAY, 0)
-            calendar.set(Calendar.MINUTE, 0)
-            calendar.set(Calendar.SECOND, 0)
-            calendar.set(Calendar.MILLISECOND, 0)
-            val startDate = calendar.time
-
-            // Set end date to current time to exclude future transactions
-            val endDate = Calendar.getInstance().time
+            val (startDate, endDate) = filterRange(_uiState.value.currentFilterOption)
+            val sort = toTransactionSort(_uiState.value.currentSortOption)
 
             val dateFormatter = java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault())
-            logger.debug("loadCategoryTransactionsFromRepository","Loading category transactions from start of month: ${dateFormatter.format(startDate)}")
+            logger.debug("loadCategoryTransactionsFromRepository","Loading category transactions from ${dateFormatter.format(startDate)}, $sort")
             
             // Resolve the target category once. Membership is decided by the
             // transaction's own category_id - the SAME source of truth the category
@@ -368,42 +366,28 @@ class CategoryTransactionsViewModel @Inject constructor(
             // recategorized transaction no longer lands in a different bucket here than
             // it does on the card.
             val targetCategory = repository.getCategoryByName(categoryName)
+            if (targetCategory == null) {
+                _uiState.value = _uiState.value.copy(categoryId = null, nextCursor = null)
+                return emptyList()
+            }
 
-            // Load transactions from repository
-            val allDbTransactions = repository.getTransactionsByDateRange(startDate, endDate)
-            logger.debug("loadCategoryTransactionsFromRepository","Found ${allDbTransactions.size} total transactions")
-
-            // Filter transactions by category
-            val categoryTransactions = allDbTransactions.mapNotNull { transaction ->
-                // Membership by the transaction's own category_id
-                if (transaction.categoryId != targetCategory?.id) {
-                    return@mapNotNull null
-                }
-
-                val merchantWithCategory = repository.getMerchantWithCategory(transaction.normalizedMerchant)
+            // Range count and total from the daily_spend rollup, then the first page by
+            // the transaction's own category_id
+            val summary = repository.getCategorySummaryByDateRange(targetCategory.id, startDate, endDate)
+            val page = repository.getCategoryTransactionPage(targetCategory.id, startDate, endDate, sort, null, PAGE_SIZE)
+            logger.debug("loadCategoryTransactionsFromRepository","Found ${summary.transaction_count} transactions, first page ${page.transactions.size}")
 
-                // Filter out excluded merchants
-                if (merchantWithCategory?.is_excluded_from_expense_tracking == true) {
-                    return@mapNotNull null
-                }
-
-                logger.debug("loadCategoryTransactionsFromRepository","Transaction ${transaction.rawMerchant} -> normalized: ${transaction.normalizedMerchant} -> categoryId: ${transaction.categoryId} matches $categoryName")
-
-                MessageItem(
-                    transactionId = transaction.id,  // Add transaction ID for direct updates
-                    amount = transaction.amount,
-                    merchant = merchantWithCategory?.display_name ?: transaction.rawMerchant, // Use display name from DB
-                    bankName = transaction.bankName,
-                    category = categoryName,
-                    categoryColor = merchantWithCategory?.category_color ?: targetCategory.color ?: "#888888",
-                    confidence = (transaction.confidenceScore * 100).toInt(),
-                    dateTime = formatDate(transaction.transactionDate),
-                    rawSMS = transaction.rawSmsBody,
-                    isDebit = transaction.isDebit,
-                    rawMerchant = transaction.rawMerchant // Pass the original raw merchant name
-                )
-            }
+            _uiState.value = _uiState.value.copy(
+                categoryId = targetCategory.id,
+                rangeStart = startDate,
+                rangeEnd = endDate,
+                rangeSort = sort,
+                nextCursor = page.nextCursor,
+                rangeTransactionCount = summary.transaction_count,
+                rangeTotalAmount = summary.total_amount
+            )
 
+            val categoryTransactions = toMessageItems(page.transactions, categoryName, targetCategory.color)
             logger.debug("loadCategoryTransactionsFromRepository","Filtered to ${categoryTransactions.size} transactions for $categoryName")
             categoryTransactions
             
@@ -412,101 +396,148 @@ class CategoryTransactionsViewModel @Inject constructor(
             emptyList()
         }
     }
-    
+
     /**
-     * Apply current filter and sort options
+     * Append the next page of the current category list, if any
      */
-    private fun applyFilterAndSort() {
+    private fun loadMoreTransactions() {
         val currentState = _uiState.value
-        val allTransactions = currentState.allTransactions
-        
-        if (allTransactions.isEmpty()) {
-            _uiState.value = _uiState.value.copy(
-                transactions = emptyList(),
-                totalAmount = 0.0,
-                transactionCount = 0,
-                isEmpty = true
-            )
+        val cursor = currentState.nextCursor
+        val categoryId = currentState.categoryId
+        val startDate = currentState.rangeStart
+        val endDate = currentState.rangeEnd
+        if (currentState.isInitialLoading || currentState.isRefreshing || currentState.isLoadingMore ||
+            cursor == null || categoryId == null || startDate == null || endDate == null
+        ) {
             return
         }
-        
-        // Apply date filtering
-        val filteredTransactions = applyDateFilter(allTransactions, currentState.currentFilterOption)
-        
-        // Apply sorting
-        val sortedTransactions = applySorting(filteredTransactions, currentState.currentSortOption)
-        
-        // Update state
-        val totalAmount = sortedTransactions.sumOf { it.amount }
-        
-        _uiState.value = _uiState.value.copy(
-            transactions = sortedTransactions,
-            totalAmount = totalAmount,
-            transactionCount = sortedTransactions.size,
-            isEmpty = sortedTransactions.isEmpty()
-        )
+
+        _uiState.value = currentState.copy(isLoadingMore = true)
+
+        viewModelScope.launch {
+            try {
+                val page = repository.getCategoryTransactionPage(
+                    categoryId, startDate, endDate, currentState.rangeSort, cursor, PAGE_SIZE
+                )
+                val categoryName = _uiState.value.categoryName
+                val categoryColor = repository.getCategoryById(categoryId)?.color
+                val newItems = toMessageItems(page.transactions, categoryName, categoryColor)
+
+                // A reload for another sort or filter replaced the list meanwhile
+                if (_uiState.value.allTransactions !== currentState.allTransactions) {
+                    _uiState.value = _uiState.value.copy(isLoadingMore = false)
+                    return@launch
+                }
+
+                _uiState.value = _uiState.value.copy(
+                    isLoadingMore = false,
+                    allTransactions = _uiState.value.allTransactions + newItems,
+                    nextCursor = page.nextCursor
+                )
+                applyFilterAndSort()
+
+            } catch (e: Exception) {
+                logger.error("loadMoreTransactions","Error loading more transactions",e)
+                _uiState.value = _uiState.value.copy(isLoadingMore = false)
+                handleTransactionError(e)
+            }
+        }
+    }
+
+    /**
+     * Convert a page of the category's transactions to list items, leaving out
+     * merchants excluded from expense tracking. The rows show the SMS text, so the
+     * page's bodies are fetched alongside.
+     */
+    private suspend fun toMessageItems(
+        transactions: List<com.smartexpenseai.app.data.dao.TransactionRow>,
+        categoryName: String,
+        categoryColor: String?
+    ): List<MessageItem> {
+        val smsBodies = repository.getSmsBodies(transactions.map { it.id })
+        return transactions.mapNotNull { transaction ->
+            val merchantWithCategory = repository.getMerchantWithCategory(transaction.normalizedMerchant)
+
+            // Filter out excluded merchants
+            if (merchantWithCategory?.is_excluded_from_expense_tracking == true) {
+                return@mapNotNull null
+            }
+
+            MessageItem(
+                transactionId = transaction.id,  // Add transaction ID for direct updates
+                amount = transaction.amount,
+                merchant = merchantWithCategory?.display_name ?: transaction.rawMerchant, // Use display name from DB
+                bankName = transaction.bankName,
+                category = categoryName,
+                categoryColor = merchantWithCategory?.category_color ?: categoryColor ?: "#888888",
+                confidence = (transaction.confidenceScore * 100).toInt(),
+                dateTime = formatDate(transaction.transactionDate),
+                rawSMS = smsBodies[transaction.id].orEmpty(),
+                isDebit = transaction.isDebit,
+                rawMerchant = transaction.rawMerchant // Pass the original raw merchant name
+            )
+        }
     }
     
     /**
-     * Apply date filtering
+     * Show the loaded pages. Filter and sort were applied by the page queries, and the
+     * count and total cover the filter's whole range (from the rollup summary).
+     */
+    private fun applyFilterAndSort() {
+        val currentState = _uiState.value
+        val transactions = currentState.allTransactions
+
+        _uiState.value = currentState.copy(
+            transactions = transactions,
+            totalAmount = if (transactions.isEmpty()) 0.0 else currentState.rangeTotalAmount,
+            transactionCount = if (transactions.isEmpty()) 0 else currentState.rangeTransactionCount,
+            isEmpty = transactions.isEmpty()
+        )
+    }
+
+    /**
+     * Date range of a filter option, ending at the current time ("Yesterday" and
+     * "Last Month" end where the following day or month starts)
      */
-    private fun applyDateFilter(transactions: List<MessageItem>, filterOption: String): List<MessageItem> {
+    private fun filterRange(filterOption: String): Pair<Date, Date> {
+        val now = Date()
+        val start = Calendar.getInstance().apply {
+            set(Calendar.HOUR_OF_DAY, 0)
+            set(Calendar.MINUTE, 0)
+            set(Calendar.SECOND, 0)
+            set(Calendar.MILLISECOND, 0)
+        }
         return when (filterOption) {
-            "Today" -> {
-                val today = Calendar.getInstance()
-                transactions.filter { transaction ->
-                    val transactionDate = parseTransactionDate(transaction.dateTime)
-                    isSameDay(transactionDate, today.time)
-                }
-            }
+            "Today" -> start.time to now
             "Yesterday" -> {
-                val yesterday = Calendar.getInstance().apply { add(Calendar.DAY_OF_MONTH, -1) }
-                transactions.filter { transaction ->
-                    val transactionDate = parseTransactionDate(transaction.dateTime)
-                    isSameDay(transactionDate, yesterday.time)
-                }
+                val end = Date(start.timeInMillis - 1)
+                start.add(Calendar.DAY_OF_MONTH, -1)
+                start.time to end
             }
             "This Week" -> {
-                val weekStart = Calendar.getInstance().apply {
-                    set(Calendar.DAY_OF_WEEK, Calendar.MONDAY)
-                    set(Calendar.HOUR_OF_DAY, 0)
-                    set(Calendar.MINUTE, 0)
-                    set(Calendar.SECOND, 0)
-                }
-                transactions.filter { transaction ->
-                    val transactionDate = parseTransactionDate(transaction.dateTime)
-                    transactionDate.after(weekStart.time)
-                }
+                start.set(Calendar.DAY_OF_WEEK, Calendar.MONDAY)
+                if (start.time.after(now)) start.add(Calendar.WEEK_OF_YEAR, -1)
+                start.time to now
             }
             "Last Month" -> {
-                val lastMonthStart = Calendar.getInstance().apply {
-                    add(Calendar.MONTH, -1)
-                    set(Calendar.DAY_OF_MONTH, 1)
-                }
-                val lastMonthEnd = Calendar.getInstance().apply {
-                    set(Calendar.DAY_OF_MONTH, 1)
-                    add(Calendar.DAY_OF_MONTH, -1)
-                }
-                transactions.filter { transaction ->
-                    val transactionDate = parseTransactionDate(transaction.dateTime)
-                    transactionDate.after(lastMonthStart.time) && transactionDate.before(lastMonthEnd.time)
-                }
+                start.set(Calendar.DAY_OF_MONTH, 1)
+                val end = Date(start.timeInMillis - 1)
+                start.add(Calendar.MONTH, -1)
+                start.time to end
+            }
+            "All Time" -> Date(0) to now
+            else -> { // "This Month" is default
+                start.set(Calendar.DAY_OF_MONTH, 1)
+                start.time to now
             }
-            "All Time" -> transactions
-            else -> transactions // "This Month" is default
         }
     }
-    
-    /**
-     * Apply sorting
-     */
-    private fun applySorting(transactions: List<MessageItem>, sortOption: String): List<MessageItem> {
-        return when (sortOption) {
-            "Oldest First" -> transactions.sortedBy { getDateSortOrder(it.dateTime) }
-            "Highest Amount" -> transactions.sortedByDescending { it.amount }
-            "Lowest Amount" -> transactions.sortedBy { it.amount }
-            else -> transactions.sortedByDescending { getDateSortOrder(it.dateTime) } // "Newest First" is default
-        }
+
+    private fun toTransactionSort(sortOption: String): TransactionSort = when (sortOption) {
+        "Oldest First" -> TransactionSort.OLDEST_FIRST
+        "Highest Amount" -> TransactionSort.HIGHEST_AMOUNT
+        "Lowest Amount" -> TransactionSort.LOWEST_AMOUNT
+        else -> TransactionSort.NEWEST_FIRST // "Newest First" is default
     }
     
     /**
@@ -526,60 +557,6 @@ class CategoryTransactionsViewModel @Inject constructor(
         _uiState.value = _uiState.value.copy(transactions = updatedTransactions)
     }
     
-    /**
-     * Parse transaction date from string
-     */
-    private fun parseTransactionDate(dateTimeString: String): Date {
-        return when {
-            dateTimeString.contains("hour") || dateTimeString.contains("Just now") -> Date()
-            dateTimeString.contains("Yesterday") -> {
-                Calendar.getInstance().apply { add(Calendar.DAY_OF_MONTH, -1) }.time
-            }
-            dateTimeString.contains("days ago") -> {
-                val days = dateTimeString.split(" ")[0].toIntOrNull() ?: 0
-                Calendar.getInstance().apply { add(Calendar.DAY_OF_MONTH, -days) }.time
-            }
-            else -> {
-                try {
-                    SimpleDateFormat("MMM dd", Locale.getDefault()).parse(dateTimeString) ?: Date()
-                } catch (e: Exception) {
-                    Date()
-                }
-            }
-        }
-    }
-    
-    /**
-     * Check if two dates are the same day
-     */
-    private fun isSameDay(date1: Date, date2: Date): Boolean {
-        val cal1 = Calendar.getInstance().apply { time = date1 }
-        val cal2 = Calendar.getInstance().apply { time = date2 }
-        return cal1.get(Calendar.YEAR) == cal2.get(Calendar.YEAR) &&
-                cal1.get(Calendar.DAY_OF_YEAR) == cal2.get(Calendar.DAY_OF_YEAR)
-    }
-    
-    /**
-     * Get date sort order for custom sorting
-     */
-    private fun getDateSortOrder(dateTimeString: String): Int {
-        return when {
-            dateTimeString.contains("hour") || dateTimeString.contains("Just now") -> {
-                val hours = if (dateTimeString.contains("hour")) {
-                    dateTimeString.split(" ")[0].toIntOrNull() ?: 0
-                } else 0
-                hours
-            }
-            dateTimeString.contains("Yesterday") -> 100
-            dateTimeString.contains("days ago") -> {
-                val days = dateTimeString.split(" ")[0].toIntOrNull() ?: 0
-                1000 + days
-            }
-            dateTimeString.contains("Aug") || dateTimeString.contains("Today") -> 10000
-            else -> 5000
-        }
-    }
-    
     /**
      * Format date for display
      */
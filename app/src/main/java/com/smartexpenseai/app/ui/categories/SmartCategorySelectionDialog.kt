@@ -61,7 +61,7 @@ class SmartCategorySelectionDialog : DialogFragment() {
 
         merchantName = arguments?.getString(ARG_MERCHANT_NAME) ?: ""
         val repository = com.smartexpenseai.app.data.repository.ExpenseRepository.getInstance(requireContext())
-        val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine(requireContext())
+        val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine()
         categoryManager = CategoryManager(requireContext(), repository, merchantRuleEngine)
         
         // Load all available categories
@@ -248,7 +248,10 @@ class DashboardActionHandler(
                     bankName = "Manual Entry"
                 )
 
-                val result = addTransactionUseCase.execute(manualTransaction)
+                val result = addTransactionUseCase.execute(
+                    manualTransaction,
+                    addTransactionUseCase.manualEntryBody(amount, merchant, category)
+                )
 
                 if (result.isSuccess) {
                     Toast.makeText(
@@ -180,7 +180,7 @@ class DashboardFragment : Fragment() {
 
         // Initialize core dependencies
         repository = ExpenseRepository.getInstance(requireContext())
-        val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine(requireContext())
+        val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine()
         categoryManager = CategoryManager(requireContext(), repository, merchantRuleEngine)
         merchantAliasManager = com.smartexpenseai.app.utils.MerchantAliasManager(requireContext(), repository, categoryManager)
 
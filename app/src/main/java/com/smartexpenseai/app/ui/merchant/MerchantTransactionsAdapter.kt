@@ -6,17 +6,17 @@ import android.view.ViewGroup
 import android.widget.TextView
 import androidx.recyclerview.widget.RecyclerView
 import com.smartexpenseai.app.R
-import com.smartexpenseai.app.data.entities.TransactionEntity
+import com.smartexpenseai.app.data.dao.TransactionRow
 import java.text.SimpleDateFormat
 import java.util.*
 
 class MerchantTransactionsAdapter(
-    private val onTransactionClick: (TransactionEntity) -> Unit
+    private val onTransactionClick: (TransactionRow) -> Unit
 ) : RecyclerView.Adapter<MerchantTransactionsAdapter.TransactionViewHolder>() {
     
-    private var transactions = listOf<TransactionEntity>()
+    private var transactions = listOf<TransactionRow>()
     
-    fun submitList(newTransactions: List<TransactionEntity>) {
+    fun submitList(newTransactions: List<TransactionRow>) {
         transactions = newTransactions
         notifyDataSetChanged()
     }
@@ -41,7 +41,7 @@ class MerchantTransactionsAdapter(
         
         private val dateFormat = SimpleDateFormat("MMM dd, HH:mm", Locale.getDefault())
         
-        fun bind(transaction: TransactionEntity) {
+        fun bind(transaction: TransactionRow) {
             // Format amount and bank
             tvAmountBank.text = "₹${String.format("%.0f", transaction.amount)} • ${transaction.bankName}"
             
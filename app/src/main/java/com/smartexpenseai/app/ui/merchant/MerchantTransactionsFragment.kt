@@ -10,6 +10,7 @@ import androidx.fragment.app.viewModels
 import androidx.lifecycle.lifecycleScope
 import androidx.navigation.fragment.findNavController
 import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
 import com.smartexpenseai.app.R
 import com.smartexpenseai.app.databinding.FragmentMerchantTransactionsBinding
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
@@ -79,7 +80,6 @@ class MerchantTransactionsFragment : Fragment() {
                 putString("category", "Other") // Will be populated properly
                 putString("dateTime", SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault()).format(transaction.transactionDate))
                 putInt("confidence", (transaction.confidenceScore * 100).toInt())
-                putString("rawSMS", transaction.rawSmsBody)
             }
             findNavController().navigate(
                 R.id.action_merchant_transactions_to_transaction_details,
@@ -90,6 +90,18 @@ class MerchantTransactionsFragment : Fragment() {
         binding.recyclerTransactions.apply {
             adapter = transactionsAdapter
             layoutManager = LinearLayoutManager(requireContext())
+
+            // Load the next page when the user scrolls near the bottom (5 items before end)
+            addOnScrollListener(object : RecyclerView.OnScrollListener() {
+                override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                    super.onScrolled(recyclerView, dx, dy)
+                    val layoutManager = recyclerView.layoutManager as? LinearLayoutManager ?: return
+                    val totalItemCount = layoutManager.itemCount
+                    if (totalItemCount > 0 && layoutManager.findLastVisibleItemPosition() >= totalItemCount - 5) {
+                        viewModel.loadMoreTransactions()
+                    }
+                }
+            })
         }
     }
     
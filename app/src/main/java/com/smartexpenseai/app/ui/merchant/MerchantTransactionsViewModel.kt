@@ -10,7 +10,7 @@ import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.launch
 import com.smartexpenseai.app.data.repository.ExpenseRepository
-import com.smartexpenseai.app.data.entities.TransactionEntity
+import com.smartexpenseai.app.data.dao.TransactionRow
 import com.smartexpenseai.app.utils.logging.StructuredLogger
 import javax.inject.Inject
 
@@ -22,6 +22,7 @@ class MerchantTransactionsViewModel @Inject constructor(
 
     companion object {
         private const val TAG = "MerchantTransactionsVM"
+        private const val PAGE_SIZE = 50
     }
 
     // UI State
@@ -53,31 +54,28 @@ class MerchantTransactionsViewModel @Inject constructor(
 
                 // Restrict to the current month so the total/count/list match the
                 // Dashboard and Category screens this is opened from (which are month-scoped).
+                // Both pass the name their lists show (usually the display name); it is
+                // resolved to the normalized name, so an exact match on the merchant index
+                // keeps "AMAZON" from also pulling in "AMAZON PAY".
                 val (startDate, endDate) = currentMonthRange()
-                val target = merchantName.trim()
-
-                val transactions = repository.searchTransactions(target.lowercase(), 1000)
-                    .filter { txn ->
-                        // Exact merchant match so "AMAZON" does not also pull in "AMAZON PAY"
-                        (txn.rawMerchant.equals(target, ignoreCase = true) ||
-                            txn.normalizedMerchant.equals(target, ignoreCase = true)) &&
-                            // Current month only
-                            txn.transactionDate >= startDate && txn.transactionDate <= endDate
-                    }
-
-                logger.debug("loadMerchantTransactions","Found ${transactions.size} transactions for $merchantName")
-                
-                // Calculate totals
-                val totalAmount = transactions.sumOf { it.amount }
-                val totalCount = transactions.size
-                val sortedTransactions = transactions.sortedByDescending { it.transactionDate }
-                
+                val target = repository.resolveNormalizedMerchant(merchantName.trim())
+
+                // Totals for the whole month from the daily_spend rollup; the list is paged
+                val summary = repository.getMerchantSummaryByDateRange(target, startDate, endDate)
+                val page = repository.getMerchantTransactionPage(target, startDate, endDate, null, PAGE_SIZE)
+
+                logger.debug("loadMerchantTransactions","Found ${summary.transaction_count} transactions for $merchantName")
+
                 _uiState.value = _uiState.value.copy(
                     isLoading = false,
-                    transactions = sortedTransactions,
-                    totalAmount = totalAmount,
-                    totalCount = totalCount,
-                    merchantName = merchantName
+                    transactions = page.transactions,
+                    totalAmount = summary.total_amount,
+                    totalCount = summary.transaction_count,
+                    merchantName = merchantName,
+                    normalizedMerchant = target,
+                    startDate = startDate,
+                    endDate = endDate,
+                    nextCursor = page.nextCursor
                 )
                 
             } catch (e: Exception) {
@@ -90,6 +88,35 @@ class MerchantTransactionsViewModel @Inject constructor(
         }
     }
 
+    /** Appends the next page of the list loaded by [loadMerchantTransactions], if any. */
+    fun loadMoreTransactions() {
+        val currentState = _uiState.value
+        val cursor = currentState.nextCursor
+        if (currentState.isLoading || currentState.isLoadingMore || cursor == null) return
+        val startDate = currentState.startDate ?: return
+        val endDate = currentState.endDate ?: return
+
+        _uiState.value = currentState.copy(isLoadingMore = true)
+        viewModelScope.launch {
+            try {
+                val page = repository.getMerchantTransactionPage(
+                    currentState.normalizedMerchant, startDate, endDate, cursor, PAGE_SIZE
+                )
+                _uiState.value = _uiState.value.copy(
+                    isLoadingMore = false,
+                    transactions = _uiState.value.transactions + page.transactions,
+                    nextCursor = page.nextCursor
+                )
+            } catch (e: Exception) {
+                logger.error("loadMoreTransactions","Error loading more merchant transactions",e)
+                _uiState.value = _uiState.value.copy(
+                    isLoadingMore = false,
+                    error = "Error loading more: ${e.message}"
+                )
+            }
+        }
+    }
+
     fun loadInclusionState(merchantName: String) {
         viewModelScope.launch {
             try {
@@ -171,10 +198,17 @@ class MerchantTransactionsViewModel @Inject constructor(
 
 data class MerchantTransactionsUiState(
     val isLoading: Boolean = false,
-    val transactions: List<TransactionEntity> = emptyList(),
+    val isLoadingMore: Boolean = false,
+    val transactions: List<TransactionRow> = emptyList(),
     val totalAmount: Double = 0.0,
     val totalCount: Int = 0,
     val merchantName: String = "",
+    // What the list and totals query on; merchantName is the name shown
+    val normalizedMerchant: String = "",
+    // Range and keyset cursor of the loaded list (nextCursor is null after the last page)
+    val startDate: java.util.Date? = null,
+    val endDate: java.util.Date? = null,
+    val nextCursor: String? = null,
     val isIncludedInExpense: Boolean = true,
     val error: String? = null
 )
@@ -136,7 +136,7 @@ class MessagesFragment : Fragment() {
     override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
         super.onViewCreated(view, savedInstanceState)
         val repository = com.smartexpenseai.app.data.repository.ExpenseRepository.getInstance(requireContext())
-        val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine(requireContext())
+        val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine()
         categoryManager = CategoryManager(requireContext(), repository, merchantRuleEngine)
         merchantAliasManager = com.smartexpenseai.app.utils.MerchantAliasManager(requireContext(), repository, categoryManager)
         
@@ -2446,6 +2446,7 @@ class MessagesFragment : Fragment() {
                     ?: Triple(transaction.rawMerchant, "Other", "#888888")
                 
                 MessageItem(
+                    transactionId = transaction.id,
                     amount = transaction.amount,
                     merchant = displayName,
                     bankName = transaction.bankName,
@@ -2453,7 +2454,7 @@ class MessagesFragment : Fragment() {
                     categoryColor = aliasCategoryColor,
                     confidence = (transaction.confidenceScore * 100).toInt(),
                     dateTime = formatDate(transaction.transactionDate),
-                    rawSMS = transaction.rawSmsBody,
+                    rawSMS = "", // Loaded by id on the detail screen
                     isDebit = transaction.isDebit
                 )
             } catch (e: Exception) {
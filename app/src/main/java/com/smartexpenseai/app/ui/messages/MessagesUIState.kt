@@ -31,8 +31,8 @@ data class MessagesUIState(
     val filteredMessages: List<MessageItem> = emptyList(),
     val groupedMessages: List<MerchantGroup> = emptyList(),
 
-    // Pagination
-    val currentPage: Int = 0,
+    // Pagination: keyset cursor for the next page (null before the first load and after the last page)
+    val nextCursor: String? = null,
     val pageSize: Int = 50,
     val hasMoreData: Boolean = true,
     val totalCount: Int = 0,
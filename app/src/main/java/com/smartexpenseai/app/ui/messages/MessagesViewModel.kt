@@ -5,6 +5,7 @@ import android.content.Context
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.smartexpenseai.app.data.repository.ExpenseRepository
+import com.smartexpenseai.app.parsing.engine.MerchantNameNormalizer
 import com.smartexpenseai.app.services.SMSParsingService
 import com.smartexpenseai.app.services.TransactionFilterService
 import com.smartexpenseai.app.utils.CategoryManager
@@ -124,7 +125,7 @@ class MessagesViewModel @Inject constructor(
             isLoading = true,
             hasError = false,
             error = null,
-            currentPage = 0
+            nextCursor = null
         )
 
         viewModelScope.launch {
@@ -138,17 +139,19 @@ class MessagesViewModel @Inject constructor(
 
                 logger.debug("loadMessages","Loading page 0, pageSize=$pageSize, dateRange=${startDate} to ${endDate}")
 
-                // Get total count for pagination
+                // Total for the range, once per load (from the daily_spend rollup);
+                // loadMoreMessages only fetches pages
                 val totalCount = expenseRepository.getTransactionCountByDateRange(startDate, endDate)
                 logger.debug("loadMessages","Total transactions in range: $totalCount")
 
                 // Load first page directly from database
-                val dbTransactions = expenseRepository.getTransactionsByDateRangePaginated(
+                val page = expenseRepository.getTransactionPage(
                     startDate = startDate,
                     endDate = endDate,
-                    limit = pageSize,
-                    offset = 0
+                    cursor = null,
+                    pageSize = pageSize
                 )
+                val dbTransactions = page.transactions
                 logger.debug("loadMessages","Loaded ${dbTransactions.size} transactions from database")
                 
                 if (dbTransactions.isNotEmpty()) {
@@ -174,7 +177,7 @@ class MessagesViewModel @Inject constructor(
                                 categoryColor = aliasCategoryColor,
                                 confidence = (transaction.confidenceScore * 100).toInt(),
                                 dateTime = formatDate(transaction.transactionDate),
-                                rawSMS = transaction.rawSmsBody,
+                                rawSMS = "", // Pages carry no body; the detail screen loads it by id
                                 isDebit = transaction.isDebit,
                                 rawMerchant = transaction.rawMerchant,
                                 actualDate = transaction.transactionDate
@@ -192,7 +195,7 @@ class MessagesViewModel @Inject constructor(
                         isValid
                     }
 
-                    val hasMoreData = dbTransactions.size >= pageSize
+                    val hasMoreData = page.hasMore
 
                     // Update state with data but keep loading true to prevent intermediate empty state
                     _uiState.value = _uiState.value.copy(
@@ -200,7 +203,7 @@ class MessagesViewModel @Inject constructor(
                         allMessages = messageItems,
                         filteredMessages = messageItems,
                         isEmpty = messageItems.isEmpty(),
-                        currentPage = 0,
+                        nextCursor = page.nextCursor,
                         hasMoreData = hasMoreData,
                         totalCount = totalCount
                     )
@@ -210,19 +213,17 @@ class MessagesViewModel @Inject constructor(
 
                     logger.debug("loadMessages","Loaded ${messageItems.size} items, hasMore=$hasMoreData, total=$totalCount")
                 } else {
-                    // No database data found - check if we have any data at all
-                    if (totalCount == 0) {
-                        logger.debug("loadMessages","No transactions in database, showing empty state")
-                        _uiState.value = _uiState.value.copy(
-                            isLoading = false,
-                            allMessages = emptyList(),
-                            filteredMessages = emptyList(),
-                            groupedMessages = emptyList(),
-                            isEmpty = true,
-                            hasMoreData = false,
-                            totalCount = 0
-                        )
-                    }
+                    // No transactions in the range: an empty first page means there are none
+                    logger.debug("loadMessages","No transactions in range, showing empty state")
+                    _uiState.value = _uiState.value.copy(
+                        isLoading = false,
+                        allMessages = emptyList(),
+                        filteredMessages = emptyList(),
+                        groupedMessages = emptyList(),
+                        isEmpty = true,
+                        hasMoreData = false,
+                        totalCount = 0
+                    )
                 }
             } catch (e: SecurityException) {
                 logger.error("loadMessages", "SMS permission denied",e)
@@ -253,21 +254,20 @@ class MessagesViewModel @Inject constructor(
         viewModelScope.launch {
             try {
                 val pageSize = currentState.pageSize
-                val nextPage = currentState.currentPage + 1
-                val offset = nextPage * pageSize
 
                 val filterOptions = currentState.currentFilterOptions
                 val (startDate, endDate) = getDateRangeFromFilters(filterOptions)
 
-                logger.debug("loadMoreMessages","Loading page $nextPage, offset=$offset")
+                logger.debug("loadMoreMessages","Loading page after ${currentState.allMessages.size} items")
 
-                // Load next page from database
-                val dbTransactions = expenseRepository.getTransactionsByDateRangePaginated(
+                // Load next page from database, continuing after the last row already shown
+                val page = expenseRepository.getTransactionPage(
                     startDate = startDate,
                     endDate = endDate,
-                    limit = pageSize,
-                    offset = offset
+                    cursor = currentState.nextCursor,
+                    pageSize = pageSize
                 )
+                val dbTransactions = page.transactions
 
                 if (dbTransactions.isNotEmpty()) {
                     val newItems = dbTransactions.mapNotNull { transaction ->
@@ -285,7 +285,7 @@ class MessagesViewModel @Inject constructor(
                                 categoryColor = aliasCategoryColor,
                                 confidence = (transaction.confidenceScore * 100).toInt(),
                                 dateTime = formatDate(transaction.transactionDate),
-                                rawSMS = transaction.rawSmsBody,
+                                rawSMS = "", // Pages carry no body; the detail screen loads it by id
                                 isDebit = transaction.isDebit,
                                 rawMerchant = transaction.rawMerchant,
                                 actualDate = transaction.transactionDate
@@ -297,14 +297,14 @@ class MessagesViewModel @Inject constructor(
                         it.merchant.isNotBlank() && it.merchant != "."
                     }
 
-                    val hasMoreData = dbTransactions.size >= pageSize
+                    val hasMoreData = page.hasMore
                     val updatedMessages = currentState.allMessages + newItems
 
                     _uiState.value = currentState.copy(
                         isLoadingMore = false,
                         allMessages = updatedMessages,
                         filteredMessages = updatedMessages,
-                        currentPage = nextPage,
+                        nextCursor = page.nextCursor,
                         hasMoreData = hasMoreData
                     )
 
@@ -679,14 +679,34 @@ class MessagesViewModel @Inject constructor(
 
             logger.debug("applyFiltersAndSort","Applied filter tab ${currentState.currentFilterTab.displayName}: ${currentState.allMessages.size} -> ${filtered.size} items")
             
-            // Apply search filter
+            // Apply search filter: merchant/bank/SMS text through the full-text index,
+            // limited to the dates of the loaded items, category names and merchant
+            // display names (user aliases, which the index does not hold) in memory.
+            // Items read straight from SMS (no transaction row yet) are still matched
+            // by substring.
             if (currentState.searchQuery.isNotEmpty()) {
                 val query = currentState.searchQuery.lowercase()
+                val indexedDates = filtered.filter { it.transactionId != 0L }.map { it.actualDate }
+                val matchingIds = if (indexedDates.isEmpty()) {
+                    emptySet()
+                } else {
+                    expenseRepository.searchTransactionIds(
+                        currentState.searchQuery,
+                        indexedDates.min(),
+                        indexedDates.max()
+                    )
+                }
                 filtered = filtered.filter { item ->
-                    item.merchant.lowercase().contains(query) ||
-                    item.bankName.lowercase().contains(query) ||
-                    item.rawSMS.lowercase().contains(query) ||
-                    item.category.lowercase().contains(query)
+                    if (item.transactionId != 0L) {
+                        matchingIds.contains(item.transactionId) ||
+                            item.merchant.contains(query, ignoreCase = true) ||
+                            item.category.contains(query, ignoreCase = true)
+                    } else {
+                        item.merchant.lowercase().contains(query) ||
+                        item.bankName.lowercase().contains(query) ||
+                        item.rawSMS.lowercase().contains(query) ||
+                        item.category.lowercase().contains(query)
+                    }
                 }
             }
             
@@ -1376,17 +1396,8 @@ class MessagesViewModel @Inject constructor(
     /**
      * Normalize merchant name to match database format
      */
-    private fun normalizeMerchantName(merchantName: String): String {
-        return merchantName.uppercase()
-            .replace(Regex("\\s+"), " ")
-            .trim()
-            .replace(Regex("\\*(ORDER|PAYMENT|TXN|TRANSACTION).*$"), "")
-            .replace(Regex("#\\d+.*$"), "")
-            .replace(Regex("@\\w+.*$"), "")
-            .replace(Regex("-{2,}.*$"), "")
-            .replace(Regex("_{2,}.*$"), "")
-            .trim()
-    }
+    private fun normalizeMerchantName(merchantName: String): String =
+        MerchantNameNormalizer.normalize(merchantName)
     
     /**
      * Invalidate MerchantAliasManager cache to ensure fresh data after external updates
@@ -1427,7 +1438,7 @@ class MessagesViewModel @Inject constructor(
                         categoryColor = merchantAliasManager.getMerchantCategoryColor(transaction.rawMerchant),
                         confidence = (transaction.confidenceScore * 100).toInt(),
                         dateTime = formatDate(transaction.transactionDate),
-                        rawSMS = transaction.rawSmsBody,
+                        rawSMS = "", // The detail screen loads it by id
                         isDebit = transaction.isDebit,
                         rawMerchant = transaction.rawMerchant,
                         actualDate = transaction.transactionDate
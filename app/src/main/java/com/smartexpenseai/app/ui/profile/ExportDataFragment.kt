@@ -57,7 +57,7 @@ class ExportDataFragment : Fragment() {
         super.onViewCreated(view, savedInstanceState)
         prefs = requireContext().getSharedPreferences("export_settings", Context.MODE_PRIVATE)
         repository = ExpenseRepository.getInstance(requireContext())
-        val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine(requireContext())
+        val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine()
         categoryManager = CategoryManager(requireContext(), repository, merchantRuleEngine)
         merchantAliasManager = com.smartexpenseai.app.utils.MerchantAliasManager(requireContext(), repository, categoryManager)
         logExporter = com.smartexpenseai.app.utils.LogExporter(requireContext())
@@ -560,6 +560,7 @@ class ExportDataFragment : Fragment() {
         val dashboardData = repository.getDashboardData(startDate, endDate)
         
         // Create comprehensive export data using filtered transactions
+        val smsBodies = repository.getSmsBodies(filteredTransactions.map { it.id })
         val transactionList = filteredTransactions.map { transaction ->
             // Get category information for this transaction
             val merchantWithCategory = repository.getMerchantWithCategory(transaction.normalizedMerchant)
@@ -572,7 +573,7 @@ class ExportDataFragment : Fragment() {
                 bankName = transaction.bankName,
                 category = merchantWithCategory?.category_name ?: "Other",
                 categoryColor = merchantWithCategory?.category_color ?: "#9e9e9e",
-                rawSMS = transaction.rawSmsBody
+                rawSMS = smsBodies[transaction.id].orEmpty()
             )
         }
         
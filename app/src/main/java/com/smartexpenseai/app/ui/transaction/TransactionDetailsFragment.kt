@@ -83,7 +83,7 @@ class TransactionDetailsFragment : Fragment() {
         viewLifecycleOwner.lifecycleScope.launch {
             // Initialize legacy components for fallback compatibility
             val repository = com.smartexpenseai.app.data.repository.ExpenseRepository.getInstance(requireContext())
-            val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine(requireContext())
+            val merchantRuleEngine = com.smartexpenseai.app.parsing.engine.MerchantRuleEngine()
             categoryManager = CategoryManager(requireContext(), repository, merchantRuleEngine)
             
             setupUI()
@@ -99,7 +99,8 @@ class TransactionDetailsFragment : Fragment() {
                 category = category,
                 transactionDate = transactionDate,
                 confidence = confidence,
-                rawSMS = rawSMS
+                rawSMS = rawSMS,
+                transactionId = transactionId
             )
         }
     }
@@ -5,6 +5,7 @@ import androidx.lifecycle.SavedStateHandle
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.smartexpenseai.app.data.repository.ExpenseRepository
+import com.smartexpenseai.app.parsing.engine.MerchantNameNormalizer
 import com.smartexpenseai.app.utils.CategoryManager
 import com.smartexpenseai.app.utils.logging.StructuredLogger
 import dagger.hilt.android.lifecycle.HiltViewModel
@@ -70,13 +71,21 @@ class TransactionDetailsViewModel @Inject constructor(
         category: String,
         transactionDate: Long,
         confidence: Int,
-        rawSMS: String
+        rawSMS: String,
+        transactionId: Long = 0L
     ) {
         logger.debug("setTransactionData","Setting transaction data...")
 
         _uiState.value = _uiState.value.copy(isLoading = true)
 
         try {
+            // List pages leave the SMS body out; load it here when only the id was passed
+            val smsBody = if (rawSMS.isEmpty() && transactionId != 0L) {
+                repository.getSmsBody(transactionId).orEmpty()
+            } else {
+                rawSMS
+            }
+
             // Get category color from database
             val categoryEntity = repository.getCategoryByName(category)
             val categoryColor = categoryEntity?.color ?: "#9e9e9e"
@@ -91,7 +100,7 @@ class TransactionDetailsViewModel @Inject constructor(
                 category = category,
                 dateTime = dateTime,
                 confidence = confidence,
-                rawSMS = rawSMS,
+                rawSMS = smsBody,
                 categoryColor = categoryColor
             )
             
@@ -212,10 +221,7 @@ class TransactionDetailsViewModel @Inject constructor(
                         val categoryAfterUpdate = repository.getCategoryByName(newCategory)
                         if (categoryAfterUpdate != null) {
                             transactionsUpdatedCount = repository.updateAllTransactionsCategoryByMerchant(
-                                normalizedMerchant = currentTransaction.merchant.lowercase()
-                                    .replace(Regex("[^a-zA-Z0-9\\s]"), "")
-                                    .replace(Regex("\\s+"), " ")
-                                    .trim(),
+                                normalizedMerchant = MerchantNameNormalizer.alphanumericKey(currentTransaction.merchant),
                                 newCategoryId = categoryAfterUpdate.id
                             )
                             logger.debug("updateCategory","✅ Updated $transactionsUpdatedCount transactions to category '$newCategory'")
@@ -305,10 +311,7 @@ class TransactionDetailsViewModel @Inject constructor(
                         val category = repository.getCategoryByName(newCategory)
                         if (category != null) {
                             transactionsUpdatedCount = repository.updateAllTransactionsCategoryByMerchant(
-                                normalizedMerchant = currentTransaction.merchant.lowercase()
-                                    .replace(Regex("[^a-zA-Z0-9\\s]"), "")
-                                    .replace(Regex("\\s+"), " ")
-                                    .trim(),
+                                normalizedMerchant = MerchantNameNormalizer.alphanumericKey(currentTransaction.merchant),
                                 newCategoryId = category.id
                             )
                             logger.debug("updateMerchant","✅ Updated $transactionsUpdatedCount transactions to category '$newCategory'")
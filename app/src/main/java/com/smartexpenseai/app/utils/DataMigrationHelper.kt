@@ -6,6 +6,7 @@ import com.smartexpenseai.app.data.entities.TransactionEntity
 import com.smartexpenseai.app.data.models.Transaction
 import com.smartexpenseai.app.data.repository.ExpenseRepository
 import com.smartexpenseai.app.data.storage.TransactionStorage
+import com.smartexpenseai.app.parsing.engine.MerchantNameNormalizer
 import com.smartexpenseai.app.utils.logging.StructuredLogger
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
@@ -81,7 +82,7 @@ class DataMigrationHelper @Inject constructor(
                     val transactionEntity = convertLegacyTransactionToEntity(transaction)
                     
                     // Insert into Room database
-                    val insertedId = expenseRepository.insertTransaction(transactionEntity)
+                    val insertedId = expenseRepository.insertTransaction(transactionEntity, transaction.rawSMS)
                     
                     if (insertedId > 0) {
                         migratedCount++
@@ -131,10 +132,7 @@ class DataMigrationHelper @Inject constructor(
      */
     private suspend fun convertLegacyTransactionToEntity(transaction: Transaction): TransactionEntity {
         // Normalize merchant name
-        val normalizedMerchant = transaction.merchant.uppercase()
-            .replace(Regex("[*#@\\-_]+.*"), "")
-            .replace(Regex("\\s+"), " ")
-            .trim()
+        val normalizedMerchant = MerchantNameNormalizer.stripSuffixes(transaction.merchant)
         
         // Ensure merchant exists in database
         ensureMerchantExists(normalizedMerchant, transaction.merchant)
@@ -149,7 +147,6 @@ class DataMigrationHelper @Inject constructor(
             normalizedMerchant = normalizedMerchant,
             bankName = transaction.bankName,
             transactionDate = Date(transaction.date), // Convert timestamp to Date
-            rawSmsBody = transaction.rawSMS,
             confidenceScore = transaction.confidence,
             isDebit = transaction.transactionType.name == "DEBIT",
             createdAt = Date(transaction.createdAt),
@@ -1,6 +1,7 @@
 package com.smartexpenseai.app.utils
 
 import android.content.Context
+import com.smartexpenseai.app.parsing.engine.MerchantNameNormalizer
 import com.smartexpenseai.app.utils.logging.StructuredLogger
 import kotlinx.coroutines.runBlocking
 import javax.inject.Inject
@@ -351,24 +352,7 @@ class MerchantAliasManager @Inject constructor(
      * Enhanced to preserve more identity while still grouping similar merchants
      */
     fun normalizeMerchantName(name: String): String {
-        val cleaned = name.uppercase()
-            .replace(Regex("\\s+"), " ") // Normalize spaces first
-            .trim()
-        
-        // Enhanced normalization - remove company suffixes and transaction artifacts
-        val normalized = cleaned
-            .replace(Regex("\\*(ORDER|PAYMENT|TXN|TRANSACTION).*$"), "") // Remove order/payment suffixes
-            .replace(Regex("#\\d+.*$"), "") // Remove transaction numbers
-            .replace(Regex("@\\w+.*$"), "") // Remove @ suffixes
-            .replace(Regex("-{2,}.*$"), "") // Remove double dashes and everything after
-            .replace(Regex("_{2,}.*$"), "") // Remove double underscores and everything after
-            // Remove common company suffixes to group similar merchants
-            .replace(Regex("\\s+(PVT\\s+)?LTD\\.?$"), "") // Remove LTD, PVT LTD
-            .replace(Regex("\\s+LIMITED$"), "") // Remove LIMITED
-            .replace(Regex("\\s+PRIVATE\\s+LIMITED$"), "") // Remove PRIVATE LIMITED
-            .replace(Regex("\\s+(LLC|INC|CORP)\\.?$"), "") // Remove LLC, INC, CORP
-            .trim()
-
+        val normalized = MerchantNameNormalizer.normalizeForAlias(name)
         logger.debug("normalizeMerchantName","'$name' -> '$normalized'")
         return normalized
     }
@@ -377,13 +361,6 @@ class MerchantAliasManager @Inject constructor(
      * Get a more aggressive normalized name for grouping similar merchants
      * This is used when user wants to group merchants that should be the same
      */
-    fun getAggressiveNormalizedName(name: String): String {
-        return name.uppercase()
-            .replace(Regex("[*#@\\-_]+.*"), "") // Remove suffixes after special chars
-            .replace(Regex("\\s+"), " ") // Normalize spaces
-            .replace(Regex("\\b(BANGALORE|MUMBAI|DELHI|CHENNAI|HYDERABAD|PUNE)\\b"), "") // Remove city names
-            .replace(Regex("\\b(PVT|LTD|LLC|INC|CORP)\\b"), "") // Remove company suffixes
-            .replace(Regex("\\s+"), " ")
-            .trim()
-    }
+    fun getAggressiveNormalizedName(name: String): String =
+        MerchantNameNormalizer.aggressive(name)
 }
\ No newline at end of file
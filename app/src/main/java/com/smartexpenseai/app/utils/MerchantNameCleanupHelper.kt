@@ -19,7 +19,7 @@ import javax.inject.Singleton
  * name collapses them onto one stable name.
  *
  * Safe by construction: it only rewrites the two name columns (never deletes or
- * moves a transaction; the full SMS stays in raw_sms_body), and it is
+ * moves a transaction; the full SMS stays in sms_bodies), and it is
  * idempotent - cleaning an already-clean name is a no-op - so re-running does
  * no harm. Guarded by a preference flag so it runs once per install.
  */
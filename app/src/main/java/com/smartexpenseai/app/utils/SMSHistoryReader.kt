@@ -6,6 +6,7 @@ import android.database.Cursor
 import android.provider.Telephony
 import com.smartexpenseai.app.models.HistoricalSMS
 import com.smartexpenseai.app.models.ParsedTransaction
+import com.smartexpenseai.app.parsing.engine.SmsParseEngine
 import com.smartexpenseai.app.parsing.engine.UnifiedSMSParser
 import com.smartexpenseai.app.utils.logging.StructuredLogger
 import dagger.hilt.android.qualifiers.ApplicationContext
@@ -58,28 +59,22 @@ class SMSHistoryReader @Inject constructor(
             val totalSMS = historicalSMS.size
             progressCallback?.invoke(0, totalSMS, "Found $totalSMS messages, analyzing...")
 
-            for (sms in historicalSMS) {
-                processedCount++
-
-                // Update progress callback every 100 messages for performance
-                if (processedCount % 100 == 0) {
-                    val status = "Processed $processedCount/$totalSMS messages • Found $acceptedCount transactions"
-                    progressCallback?.invoke(processedCount, totalSMS, status)
-                }
+            // Delegate to UnifiedSMSParser, parsed in parallel across CPU cores
+            val results = unifiedSMSParser.parseBatch(
+                historicalSMS.map { SmsParseEngine.SmsMessage(it.address, it.body, it.date.time) }
+            ) { completed, total ->
+                progressCallback?.invoke(completed, total, "Processed $completed/$total messages")
+            }
 
-                // Delegate to UnifiedSMSParser for validation and parsing
-                val transaction = parseTransactionFromSMS(sms)
+            historicalSMS.forEachIndexed { index, sms ->
+                processedCount++
+                val transaction = toParsedTransaction(sms, results[index])
                 if (transaction != null) {
                     transactions.add(transaction)
                     acceptedCount++
                 } else {
                     rejectedCount++
                 }
-
-                // Yield occasionally to prevent ANR
-                if (processedCount % 100 == 0) {
-                    kotlinx.coroutines.yield()
-                }
             }
 
             // Final progress update
@@ -165,36 +160,38 @@ class SMSHistoryReader @Inject constructor(
 
     suspend fun parseTransactionFromSMS(sms: HistoricalSMS): ParsedTransaction? {
         return try {
-            val result = unifiedSMSParser.parseSMS(sms.address, sms.body, sms.date.time)
-
-            when (result) {
-                is UnifiedSMSParser.ParseResult.Success -> {
-                    // Convert UnifiedSMSParser result to legacy ParsedTransaction format
-                    logger.debug("parseTransactionFromSMS", "TransactionEntity ref: ${result.transaction.referenceNumber}")
-
-                    val parsed = ParsedTransaction(
-                        id = "hist_${sms.id}",
-                        amount = result.transaction.amount,
-                        merchant = result.transaction.normalizedMerchant,
-                        bankName = result.transaction.bankName,
-                        date = sms.date,
-                        rawSMS = sms.body,
-                        confidence = result.transaction.confidenceScore,
-                        referenceNumber = result.transaction.referenceNumber,
-                        senderAddress = sms.address  // CRITICAL: Pass SMS sender for consistent ID generation
-                    )
-
-                    logger.debug("parseTransactionFromSMS", "ParsedTransaction ref: ${parsed.referenceNumber}")
-                    parsed
-                }
-                is UnifiedSMSParser.ParseResult.Failed -> {
-                    logger.debug("parseTransactionFromSMS", "Failed to parse: ${result.reason}")
-                    null
-                }
-            }
+            toParsedTransaction(sms, unifiedSMSParser.parseSMS(sms.address, sms.body, sms.date.time))
         } catch (e: Exception) {
             logger.error("parseTransactionFromSMS","Error parsing transaction: ${sms.body}",e)
             null
         }
     }
+
+    private fun toParsedTransaction(sms: HistoricalSMS, result: UnifiedSMSParser.ParseResult): ParsedTransaction? {
+        return when (result) {
+            is UnifiedSMSParser.ParseResult.Success -> {
+                // Convert UnifiedSMSParser result to legacy ParsedTransaction format
+                logger.debug("parseTransactionFromSMS", "TransactionEntity ref: ${result.transaction.referenceNumber}")
+
+                val parsed = ParsedTransaction(
+                    id = "hist_${sms.id}",
+                    amount = result.transaction.amount,
+                    merchant = result.transaction.normalizedMerchant,
+                    bankName = result.transaction.bankName,
+                    date = sms.date,
+                    rawSMS = sms.body,
+                    confidence = result.transaction.confidenceScore,
+                    referenceNumber = result.transaction.referenceNumber,
+                    senderAddress = sms.address  // CRITICAL: Pass SMS sender for consistent ID generation
+                )
+
+                logger.debug("parseTransactionFromSMS", "ParsedTransaction ref: ${parsed.referenceNumber}")
+                parsed
+            }
+            is UnifiedSMSParser.ParseResult.Failed -> {
+                logger.debug("parseTransactionFromSMS", "Failed to parse: ${result.reason}")
+                null
+            }
+        }
+    }
 }
@@ -3,171 +3,180 @@ package com.smartexpenseai.app.utils
 import android.content.BroadcastReceiver
 import android.content.Context
 import android.content.Intent
-import android.os.Build
 import android.provider.Telephony
 import android.telephony.SmsMessage
 import com.smartexpenseai.app.data.repository.ExpenseRepository
 import com.smartexpenseai.app.notifications.TransactionNotificationManager
-import com.smartexpenseai.app.parsing.engine.ConfidenceCalculator
-import com.smartexpenseai.app.parsing.engine.RuleLoader
 import com.smartexpenseai.app.parsing.engine.UnifiedSMSParser
 import com.smartexpenseai.app.utils.logging.StructuredLogger
+import dagger.hilt.android.AndroidEntryPoint
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
-
+import javax.inject.Inject
+
+/**
+ * Real-time SMS entry point.
+ *
+ * Uses the process-wide parser and repository singletons, so the compiled bank rules stay
+ * resident between messages instead of being reloaded from assets for every PDU.
+ */
+@AndroidEntryPoint
 class SMSReceiver : BroadcastReceiver() {
 
     companion object {
         private const val TAG = "SMSReceiver"
     }
 
+    @Inject
+    lateinit var unifiedSMSParser: UnifiedSMSParser
+
+    @Inject
+    lateinit var repository: ExpenseRepository
+
     private val logger = StructuredLogger(
         featureTag = "SMSReceiver",
         className = "SMSReceiver"
     )
+
+    private data class IncomingSMS(
+        val sender: String,
+        val body: String,
+        val timestamp: Long
+    )
+
     override fun onReceive(context: Context?, intent: Intent?) {
         if (intent?.action == Telephony.Sms.Intents.SMS_RECEIVED_ACTION && context != null) {
             logger.info("onReceive", "📱 SMS received - starting processing")
 
+            val messages = reassembleMessages(intent)
+            if (messages.isEmpty()) return
+
             // CRITICAL FIX: Use goAsync() to prevent process from being killed before async work completes
             val pendingResult = goAsync()
 
-            val bundle = intent.extras
-            if (bundle != null) {
-                val pdus = bundle.get("pdus") as? Array<*>
-                val format = bundle.getString("format")
+            CoroutineScope(Dispatchers.IO).launch {
+                try {
+                    messages.forEach { processBankSMS(context, it) }
+                } finally {
+                    // CRITICAL: Finish pendingResult once, after every message is handled
+                    pendingResult.finish()
+                }
+            }
+        }
+    }
 
-                pdus?.forEach { pdu ->
-                    val smsMessage = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                        SmsMessage.createFromPdu(pdu as ByteArray, format)
-                    } else {
-                        @Suppress("DEPRECATION")
-                        SmsMessage.createFromPdu(pdu as ByteArray)
-                    }
-                    val messageBody = smsMessage.messageBody
-                    val sender = smsMessage.originatingAddress
-                    val timestamp = smsMessage.timestampMillis
+    /**
+     * A long SMS arrives as several PDUs in one broadcast. Join the parts per originating
+     * address so each message is parsed once, with its full body.
+     */
+    private fun reassembleMessages(intent: Intent): List<IncomingSMS> {
+        val parts: Array<SmsMessage?> = try {
+            Telephony.Sms.Intents.getMessagesFromIntent(intent) ?: return emptyList()
+        } catch (e: Exception) {
+            logger.error("reassembleMessages", "Failed to decode SMS PDUs", e)
+            return emptyList()
+        }
 
-                    processBankSMS(context, messageBody, sender, timestamp, pendingResult)
-                }
+        val partsBySender = LinkedHashMap<String, MutableList<SmsMessage>>()
+        for (part in parts) {
+            val sender = part?.originatingAddress ?: continue
+            partsBySender.getOrPut(sender) { ArrayList(parts.size) }.add(part)
+        }
+
+        return partsBySender.mapNotNull { (sender, senderParts) ->
+            val body = senderParts.joinToString(separator = "") { it.messageBody ?: "" }
+            if (body.isEmpty()) {
+                null
             } else {
-                pendingResult.finish()
+                IncomingSMS(sender, body, senderParts.first().timestampMillis)
             }
         }
     }
 
-    private fun processBankSMS(
-        context: Context,
-        messageBody: String?,
-        sender: String?,
-        timestamp: Long,
-        pendingResult: PendingResult
-    ) {
-        if (messageBody == null || sender == null) {
-            pendingResult.finish()
-            return
-        }
+    private suspend fun processBankSMS(context: Context, sms: IncomingSMS) {
+        val sender = sms.sender
+        val messageBody = sms.body
+        val timestamp = sms.timestamp
 
         // Log SMS processing using Timber
         timber.log.Timber.tag("SMS").d("Processing SMS from $sender")
 
-        // FIXED: Generate consistent SMS ID to prevent duplicates
-        val smsId = com.smartexpenseai.app.data.entities.TransactionEntity.generateSmsId(
-            address = sender,
-            body = messageBody,
-            timestamp = timestamp
-        )
-
-        // Use UnifiedSMSParser directly for real-time SMS parsing
-        val ruleLoader = RuleLoader(context)
-        val confidenceCalculator = ConfidenceCalculator()
-        val unifiedSMSParser = UnifiedSMSParser(ruleLoader, confidenceCalculator)
-
-        // CRITICAL FIX: Use runBlocking to ensure async work completes before pendingResult.finish()
-        // This prevents Android from killing the process before database operations complete
-        CoroutineScope(Dispatchers.IO).launch {
-            try {
-                val result = unifiedSMSParser.parseSMS(sender, messageBody, timestamp)
-
-                if (result is UnifiedSMSParser.ParseResult.Success) {
-                    val transaction = result.transaction
-                    logger.debug("processBankSMS","PARSED_FROM_SMS: ${transaction.normalizedMerchant} - ₹${transaction.amount} on Date ${transaction.createdAt}")
-
-                    // Save to SQLite database via ExpenseRepository
-                    try {
-                        val repository = ExpenseRepository.getInstance(context)
-
-                        // Transaction is already in the correct format (TransactionEntity)
-                        val transactionEntity = transaction
-
-                        // FIXED: Enhanced duplicate prevention with both SMS ID and transaction similarity checks
-                        val existingTransaction =
-                            repository.getTransactionBySmsId(transactionEntity.smsId)
-
-                        // Check for duplicate by SMS ID only (reference number is already part of SMS ID)
-                        if (existingTransaction != null) {
-                            logger.warn("processBankSMS","Duplicate transaction detected (SMS ID already exists), skipping: ${transactionEntity.smsId}")
-                        } else if (repository.isMerchantDeleted(transactionEntity.normalizedMerchant)) {
-                            // Merchant previously deleted by the user: store the transaction
-                            // as inactive silently - no notification, no broadcast
-                            repository.insertTransaction(transactionEntity.copy(isActive = false))
-                            logger.debug("processBankSMS", "[AUTO-HIDDEN] Transaction from deleted merchant '${transactionEntity.normalizedMerchant}' stored inactive")
-                        } else {
-                            val insertedId = repository.insertTransaction(transactionEntity)
-
-                            if (insertedId > 0) {
-                                logger.debug("processBankSMS","[SUCCESS] New transaction saved: ${transaction.normalizedMerchant} - ₹${transaction.amount}")
-
-                                // Auto-categorize the transaction based on merchant
-                                val categorized = repository.autoCategorizeTransaction(insertedId)
-                                if (categorized) {
-                                    logger.debug("processBankSMS","[AUTO-CATEGORIZE] Transaction auto-categorized successfully")
-                                } else {
-                                    logger.warn("processBankSMS","[AUTO-CATEGORIZE] Failed to auto-categorize transaction")
-                                }
-
-                                // Show notification
-                                val notificationManager = TransactionNotificationManager(context)
-                                notificationManager.showNewTransactionNotification(
-                                    com.smartexpenseai.app.data.models.Transaction(
-                                        id = transactionEntity.smsId,
-                                        amount = transactionEntity.amount,
-                                        merchant = transactionEntity.rawMerchant,
-                                        bankName = transactionEntity.bankName,
-                                        category = "Pending", // Will be categorized by merchant mapping
-                                        date = transactionEntity.transactionDate.time,
-                                        rawSMS = transactionEntity.rawSmsBody,
-                                        confidence = transactionEntity.confidenceScore
-                                    )
-                                )
+        try {
+            val result = unifiedSMSParser.parseSMS(sender, messageBody, timestamp)
+
+            if (result is UnifiedSMSParser.ParseResult.Success) {
+                val transaction = result.transaction
+                logger.debug("processBankSMS","PARSED_FROM_SMS: ${transaction.normalizedMerchant} - ₹${transaction.amount} on Date ${transaction.createdAt}")
+
+                // Save to SQLite database via ExpenseRepository
+                try {
+                    // Transaction is already in the correct format (TransactionEntity)
+                    val transactionEntity = transaction
+
+                    // FIXED: Enhanced duplicate prevention with both SMS ID and transaction similarity checks
+                    val existingTransaction =
+                        repository.getTransactionBySmsId(transactionEntity.smsId)
+
+                    // Check for duplicate by SMS ID only (reference number is already part of SMS ID)
+                    if (existingTransaction != null) {
+                        logger.warn("processBankSMS","Duplicate transaction detected (SMS ID already exists), skipping: ${transactionEntity.smsId}")
+                    } else if (repository.isMerchantDeleted(transactionEntity.normalizedMerchant)) {
+                        // Merchant previously deleted by the user: store the transaction
+                        // as inactive silently - no notification, no broadcast
+                        repository.insertTransaction(transactionEntity.copy(isActive = false), messageBody)
+                        logger.debug("processBankSMS", "[AUTO-HIDDEN] Transaction from deleted merchant '${transactionEntity.normalizedMerchant}' stored inactive")
+                    } else {
+                        val insertedId = repository.insertTransaction(transactionEntity, messageBody)
 
-                                // Send broadcast to notify other parts of the app about new transaction
-                                val updateIntent =
-                                    Intent("com.expensemanager.NEW_TRANSACTION_ADDED")
-                                updateIntent.putExtra("transaction_id", transactionEntity.smsId)
-                                updateIntent.putExtra("amount", transactionEntity.amount)
-                                updateIntent.putExtra("merchant", transactionEntity.rawMerchant)
-                                context.sendBroadcast(updateIntent)
+                        if (insertedId > 0) {
+                            logger.debug("processBankSMS","[SUCCESS] New transaction saved: ${transaction.normalizedMerchant} - ₹${transaction.amount}")
 
-                                logger.debug("processBankSMS","[BROADCAST] Broadcast sent for new transaction: ${transactionEntity.smsId}")
+                            // Auto-categorize the transaction based on merchant
+                            val categorized = repository.autoCategorizeTransaction(insertedId)
+                            if (categorized) {
+                                logger.debug("processBankSMS","[AUTO-CATEGORIZE] Transaction auto-categorized successfully")
                             } else {
-                                logger.warn("processBankSMS","Failed to insert transaction into database",null)
+                                logger.warn("processBankSMS","[AUTO-CATEGORIZE] Failed to auto-categorize transaction")
                             }
-                        }
 
-                    } catch (e: Exception) {
-                        logger.error("processBankSMS", "Error saving transaction to SQLite database",e)
+                            // Show notification
+                            val notificationManager = TransactionNotificationManager(context)
+                            notificationManager.showNewTransactionNotification(
+                                com.smartexpenseai.app.data.models.Transaction(
+                                    id = transactionEntity.smsId,
+                                    amount = transactionEntity.amount,
+                                    merchant = transactionEntity.rawMerchant,
+                                    bankName = transactionEntity.bankName,
+                                    category = "Pending", // Will be categorized by merchant mapping
+                                    date = transactionEntity.transactionDate.time,
+                                    rawSMS = messageBody,
+                                    confidence = transactionEntity.confidenceScore
+                                )
+                            )
+
+                            // Send broadcast to notify other parts of the app about new transaction
+                            val updateIntent =
+                                Intent("com.expensemanager.NEW_TRANSACTION_ADDED")
+                            updateIntent.putExtra("transaction_id", transactionEntity.smsId)
+                            updateIntent.putExtra("amount", transactionEntity.amount)
+                            updateIntent.putExtra("merchant", transactionEntity.rawMerchant)
+                            context.sendBroadcast(updateIntent)
+
+                            logger.debug("processBankSMS","[BROADCAST] Broadcast sent for new transaction: ${transactionEntity.smsId}")
+                        } else {
+                            logger.warn("processBankSMS","Failed to insert transaction into database",null)
+                        }
                     }
-                } else {
-                    logger.warn("processBankSMS","Failed to parse transaction data from SMS: $sender")
+
+                } catch (e: Exception) {
+                    logger.error("processBankSMS", "Error saving transaction to SQLite database",e)
                 }
-            } catch (e: Exception) {
-                logger.error("processBankSMS","Error parsing SMS",e)
-            } finally {
-                // CRITICAL: Finish pendingResult to tell Android we're done with async work
-                pendingResult.finish()
+            } else {
+                logger.warn("processBankSMS","Failed to parse transaction data from SMS: $sender")
             }
+        } catch (e: Exception) {
+            logger.error("processBankSMS","Error parsing SMS",e)
         }
     }
 }
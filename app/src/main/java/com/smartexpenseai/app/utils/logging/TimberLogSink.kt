@@ -0,0 +1,20 @@
+package com.smartexpenseai.app.utils.logging
+
+import timber.log.Timber
+
+/**
+ * Routes [StructuredLogger] lines to Timber under their feature tag, so LogConfig filtering
+ * and [TimberFileTree] apply to them like to any other log
+ */
+object TimberLogSink : StructuredLogger.Sink {
+
+    override fun log(level: StructuredLogger.Level, tag: String, message: String, throwable: Throwable?) {
+        val tree = Timber.tag(tag)
+        when (level) {
+            StructuredLogger.Level.DEBUG -> tree.d(message)
+            StructuredLogger.Level.INFO -> tree.i(message)
+            StructuredLogger.Level.WARN -> if (throwable != null) tree.w(throwable, message) else tree.w(message)
+            StructuredLogger.Level.ERROR -> tree.e(throwable, message)
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.smartexpenseai.app.data.dao
+
+import java.io.DataInputStream
+import java.io.IOException
+
+/**
+ * The SQL of every @Query method of a DAO, read from its compiled class file.
+ *
+ * Room's @Query has CLASS retention: the class file holds it, with `const val` templates
+ * already folded into the string by the compiler, but reflection cannot see it.
+ */
+internal object DaoQueries {
+
+    data class DaoQuery(val dao: String, val method: String, val sql: String) {
+        val key: String
+            get() = "$dao.$method"
+    }
+
+    private const val QUERY_DESCRIPTOR = "Landroidx/room/Query;"
+    private const val INVISIBLE_ANNOTATIONS = "RuntimeInvisibleAnnotations"
+
+    fun of(dao: Class<*>): List<DaoQuery> {
+        val resource = dao.name.replace('.', '/') + ".class"
+        val stream = dao.classLoader?.getResourceAsStream(resource)
+            ?: throw IOException("Class file of ${dao.name} not found")
+        return DataInputStream(stream.buffered()).use { input ->
+            readQueries(input).map { (method, sql) -> DaoQuery(dao.simpleName, method, sql) }
+        }
+    }
+
+    // Class file layout: JVM specification, chapter 4
+    private fun readQueries(input: DataInputStream): List<Pair<String, String>> {
+        input.readInt() // magic
+        input.readUnsignedShort() // minor_version
+        input.readUnsignedShort() // major_version
+        val utf8 = readConstantPool(input)
+
+        input.skipFully(6) // access_flags, this_class, super_class
+        input.skipFully(2 * input.readUnsignedShort()) // interfaces
+
+        repeat(input.readUnsignedShort()) { // fields
+            input.skipFully(6)
+            skipAttributes(input)
+        }
+
+        val queries = mutableListOf<Pair<String, String>>()
+        repeat(input.readUnsignedShort()) { // methods
+            input.skipFully(2) // access_flags
+            val method = utf8.getValue(input.readUnsignedShort())
+            input.skipFully(2) // descriptor_index
+            repeat(input.readUnsignedShort()) {
+                val attribute = utf8.getValue(input.readUnsignedShort())
+                val length = input.readInt()
+                if (attribute == INVISIBLE_ANNOTATIONS) {
+                    readQueryValue(input, utf8)?.let { queries += method to it }
+                } else {
+                    input.skipFully(length)
+                }
+            }
+        }
+        return queries
+    }
+
+    /** The CONSTANT_Utf8 entries by index; other constants are skipped. */
+    private fun readConstantPool(input: DataInputStream): Map<Int, String> {
+        val utf8 = HashMap<Int, String>()
+        val count = input.readUnsignedShort()
+        var index = 1
+        while (index < count) {
+            when (val tag = input.readUnsignedByte()) {
+                1 -> utf8[index] = input.readUTF()
+                3, 4, 9, 10, 11, 12, 17, 18 -> input.skipFully(4)
+                5, 6 -> {
+                    input.skipFully(8)
+                    index++ // longs and doubles take two entries
+                }
+                7, 8, 16, 19, 20 -> input.skipFully(2)
+                15 -> input.skipFully(3)
+                else -> throw IOException("Unknown constant pool tag $tag")
+            }
+            index++
+        }
+        return utf8
+    }
+
+    /** The value of the @Query among a method's annotations, if it has one. */
+    private fun readQueryValue(input: DataInputStream, utf8: Map<Int, String>): String? {
+        var sql: String? = null
+        repeat(input.readUnsignedShort()) {
+            val type = utf8.getValue(input.readUnsignedShort())
+            repeat(input.readUnsignedShort()) {
+                val element = utf8.getValue(input.readUnsignedShort())
+                val tag = input.readUnsignedByte()
+                if (type == QUERY_DESCRIPTOR && element == "value" && tag == 's'.code) {
+                    sql = utf8.getValue(input.readUnsignedShort())
+                } else {
+                    skipElementValue(input, tag)
+                }
+            }
+        }
+        return sql
+    }
+
+    private fun skipElementValue(input: DataInputStream, tag: Int) {
+        when (tag.toChar()) {
+            'e' -> input.skipFully(4)
+            '@' -> {
+                input.skipFully(2)
+                repeat(input.readUnsignedShort()) {
+                    input.skipFully(2)
+                    skipElementValue(input, input.readUnsignedByte())
+                }
+            }
+            '[' -> repeat(input.readUnsignedShort()) { skipElementValue(input, input.readUnsignedByte()) }
+            else -> input.skipFully(2)
+        }
+    }
+
+    private fun skipAttributes(input: DataInputStream) {
+        repeat(input.readUnsignedShort()) {
+            input.skipFully(2)
+            input.skipFully(input.readInt())
+        }
+    }
+
+    private fun DataInputStream.skipFully(count: Int) {
+        readFully(ByteArray(count))
+    }
+}
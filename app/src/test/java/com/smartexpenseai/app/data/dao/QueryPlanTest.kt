@@ -0,0 +1,141 @@
+package com.smartexpenseai.app.data.dao
+
+import com.google.gson.JsonObject
+import com.google.gson.JsonParser
+import com.smartexpenseai.app.data.database.SmsBodyStorage
+import org.junit.After
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.sql.Connection
+import java.sql.DriverManager
+
+/**
+ * Runs EXPLAIN QUERY PLAN for every @Query of the DAOs below against the schema Room
+ * exports at compile time, and fails when a query reads the whole transactions table:
+ * a SCAN of it, or a SEARCH narrowed only by the is_active / is_debit flags (which match
+ * nearly every row). Queries that read the whole table by design are in [allowedScans]
+ * with the reason.
+ *
+ * Plans come from sqlite-jdbc with no table statistics, like a device that never ran
+ * ANALYZE. Device SQLite versions differ, so this catches missing or unusable indices
+ * rather than predicting the exact plan on every device.
+ */
+class QueryPlanTest {
+
+    private val daos = listOf(TransactionDao::class.java, TagDao::class.java, MerchantDao::class.java)
+
+    private val allowedScans = mapOf(
+        "TransactionDao.getAllTransactions" to "returns every active row (read in index order, no sort)",
+        "TransactionDao.getAllTransactionsSync" to "returns every active row (read in index order, no sort)",
+        "TransactionDao.getTransactionCount" to "counts every active row",
+        "TransactionDao.getInactiveTransactionsSync" to "returns every soft-deleted row",
+        "TransactionDao.getTransactionsByMerchantAndAmount" to "substring LIKE '%...%' cannot use an index",
+        "TransactionDao.getLastSyncInfo" to "MAX over two columns; unused"
+    )
+
+    private lateinit var connection: Connection
+
+    @Before
+    fun createSchema() {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:")
+        createRoomSchema(latestRoomSchema())
+        // Created outside Room, so it is not in the exported schema
+        execute(SmsBodyStorage.CREATE_INDEX_SQL)
+    }
+
+    @After
+    fun close() {
+        connection.close()
+    }
+
+    @Test
+    fun noQueryScansTransactions() {
+        val violations = daos.flatMap { DaoQueries.of(it) }
+            .filter { it.key !in allowedScans }
+            .mapNotNull { query ->
+                val fullReads = explainQueryPlan(query.sql).filter { readsWholeTable(it, transactionsAliases(query.sql)) }
+                if (fullReads.isEmpty()) null else "${query.key}: ${fullReads.joinToString(" | ")}"
+            }
+
+        if (violations.isNotEmpty()) {
+            fail(
+                "Queries scanning transactions (add an index, or list them in allowedScans):\n" +
+                    violations.joinToString("\n")
+            )
+        }
+    }
+
+    @Test
+    fun allowedScansMatchDaoQueries() {
+        val keys = daos.flatMap { DaoQueries.of(it) }.map { it.key }.toSet()
+        val stale = allowedScans.keys - keys
+        assertTrue("Allowed scans matching no DAO query; remove them: $stale", stale.isEmpty())
+    }
+
+    /** The highest-version schema JSON Room exported for ExpenseDatabase */
+    private fun latestRoomSchema(): JsonObject {
+        val schemaDir = File(
+            System.getProperty("room.schemaLocation") ?: "schemas",
+            "com.smartexpenseai.app.data.database.ExpenseDatabase"
+        )
+        val latest = schemaDir.listFiles { file -> file.name.matches(Regex("\\d+\\.json")) }
+            ?.maxByOrNull { it.nameWithoutExtension.toInt() }
+            ?: throw IllegalStateException("No Room schema in $schemaDir; build the app to export it")
+        return JsonParser.parseString(latest.readText()).asJsonObject.getAsJsonObject("database")
+    }
+
+    private fun createRoomSchema(database: JsonObject) {
+        database.getAsJsonArray("entities").map { it.asJsonObject }.forEach { entity ->
+            val table = entity.get("tableName").asString
+            execute(entity.get("createSql").asString.replace("\${TABLE_NAME}", table))
+            entity.getAsJsonArray("indices")?.map { it.asJsonObject }?.forEach { index ->
+                execute(
+                    index.get("createSql").asString
+                        .replace("\${INDEX_NAME}", index.get("name").asString)
+                        .replace("\${TABLE_NAME}", table)
+                )
+            }
+        }
+        database.getAsJsonArray("views")?.map { it.asJsonObject }?.forEach { view ->
+            execute(view.get("createSql").asString.replace("\${VIEW_NAME}", view.get("viewName").asString))
+        }
+    }
+
+    private fun execute(sql: String) {
+        connection.createStatement().use { it.execute(sql) }
+    }
+
+    /** Detail lines of the plan, with every :parameter (and list parameter) bound to NULL */
+    private fun explainQueryPlan(sql: String): List<String> =
+        connection.prepareStatement("EXPLAIN QUERY PLAN $sql").use { statement ->
+            for (i in 1..statement.parameterMetaData.parameterCount) {
+                statement.setObject(i, null)
+            }
+            statement.executeQuery().use { rows ->
+                generateSequence { if (rows.next()) rows.getString("detail") else null }.toList()
+            }
+        }
+
+    /** Names the transactions table goes by in a query: itself plus any alias ("transactions t") */
+    private fun transactionsAliases(sql: String): Set<String> {
+        val keywords = setOf("WHERE", "SET", "ORDER", "GROUP", "JOIN", "LEFT", "INNER", "CROSS", "ON", "LIMIT", "HAVING", "USING")
+        val aliases = Regex("\\btransactions\\s+(?:AS\\s+)?(\\w+)", RegexOption.IGNORE_CASE).findAll(sql)
+            .map { it.groupValues[1] }
+            .filter { it.uppercase() !in keywords }
+        return setOf("transactions") + aliases
+    }
+
+    /** "SCAN t ..." or "SEARCH t USING INDEX ... (is_active=? AND is_debit=?)" on transactions */
+    private fun readsWholeTable(step: String, aliases: Set<String>): Boolean {
+        val match = Regex("^(SCAN|SEARCH) (\\w+)").find(step) ?: return false
+        if (match.groupValues[2] !in aliases) return false
+        if (match.groupValues[1] == "SCAN") return true
+
+        val constraints = Regex("\\((.*)\\)$").find(step) ?: return true
+        val columns = constraints.groupValues[1].split(" AND ").map { it.split(Regex("[=<>]"))[0].trim() }.toSet()
+        return (columns - setOf("is_active", "is_debit")).isEmpty()
+    }
+}
@@ -0,0 +1,74 @@
+package com.smartexpenseai.app.services
+
+import com.smartexpenseai.app.models.HistoricalSMS
+import com.smartexpenseai.app.models.ParsedTransaction
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.util.Date
+
+class ParseCacheEntriesTest {
+
+    private val body = "Rs.250.00 debited from A/c XX1234 to VPA swiggy@ybl UPI Ref No 412345678901"
+
+    private fun sms(id: String, date: Date) = HistoricalSMS(
+        id = id,
+        address = "VM-HDFCBK",
+        body = body,
+        date = date,
+        type = 1
+    )
+
+    private fun parsed(sms: HistoricalSMS, date: Date) = ParsedTransaction(
+        id = "hist_${sms.id}",
+        amount = 250.0,
+        merchant = "swiggy",
+        bankName = "HDFC Bank",
+        date = date,
+        rawSMS = sms.body,
+        confidence = 0.9f,
+        referenceNumber = "412345678901",
+        senderAddress = sms.address,
+        smsRowId = sms.id.toLong()
+    )
+
+    @Test
+    fun identicalDatelessBodiesKeepTheirOwnTimestamps() {
+        val first = sms("1", Date(1_700_000_000_000L))
+        val second = sms("2", Date(1_702_600_000_000L))
+
+        // First message parsed: no date in the body, so its date is its own timestamp
+        val entry = ParseCacheEntries.accepted(
+            bodyHash = "body",
+            senderHash = "sender",
+            rulesVersion = "v1",
+            transaction = parsed(first, first.date),
+            dateInBody = false
+        )
+        assertNull(entry.transactionDate)
+
+        // Second message, same text, served from the cache
+        val cached = ParseCacheEntries.transaction(second, entry)
+        assertEquals(second.date, cached.date)
+        assertEquals("hist_2", cached.id)
+        assertEquals(2L, cached.smsRowId)
+        assertEquals("412345678901", cached.referenceNumber)
+    }
+
+    @Test
+    fun dateFromBodyIsCached() {
+        val first = sms("1", Date(1_700_000_000_000L))
+        val second = sms("2", Date(1_702_600_000_000L))
+        val bodyDate = Date(1_699_900_000_000L)
+
+        val entry = ParseCacheEntries.accepted(
+            bodyHash = "body",
+            senderHash = "sender",
+            rulesVersion = "v1",
+            transaction = parsed(first, bodyDate),
+            dateInBody = true
+        )
+
+        assertEquals(bodyDate, ParseCacheEntries.transaction(second, entry).date)
+    }
+}
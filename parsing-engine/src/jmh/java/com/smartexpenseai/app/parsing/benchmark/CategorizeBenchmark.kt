@@ -0,0 +1,74 @@
+package com.smartexpenseai.app.parsing.benchmark
+
+import com.smartexpenseai.app.parsing.engine.MerchantCategoryMatcher
+import com.smartexpenseai.app.parsing.engine.MerchantNameNormalizer
+import com.smartexpenseai.app.parsing.engine.MerchantRuleEngine
+import com.smartexpenseai.app.parsing.generated.RuleBundle
+import com.smartexpenseai.app.parsing.models.CategorizationResult
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import java.util.Random
+import java.util.concurrent.TimeUnit
+
+/**
+ * Merchant categorization on the bundled merchant rules:
+ * - [categorize]: [MerchantRuleEngine.categorize] as the app calls it (normalize, then
+ *   the result cache; names repeat the way they do across a transaction list)
+ * - [matchUncached]: [MerchantCategoryMatcher] without the engine's result cache, i.e.
+ *   roughly the cost of a cache miss
+ *
+ * Names are rule merchants with the noise SMS add ("*ORDER 123", city names, "#4411"),
+ * plus names that match no rule and fall back.
+ */
+@State(Scope.Benchmark)
+open class CategorizeBenchmark {
+
+    companion object {
+        private const val NAME_COUNT = 2048
+        private val DECORATIONS = listOf("", " BANGALORE", "*ORDER 8812", " #4411", " PVT LTD", "-PAYMENT")
+        private val UNKNOWN_MERCHANTS = listOf("SHARMA GENERAL STORE", "A1 TAILORS", "RAVI KUMAR", "QWERTY TRADERS")
+    }
+
+    private lateinit var engine: MerchantRuleEngine
+    private lateinit var matcher: MerchantCategoryMatcher
+    private lateinit var names: Array<String>
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        engine = MerchantRuleEngine().apply { initialize() }
+        matcher = MerchantCategoryMatcher(RuleBundle.merchantRules().categories.sortedBy { it.priority })
+
+        val random = Random(7L)
+        val merchants = SyntheticCorpus.merchantNames() + UNKNOWN_MERCHANTS
+        names = Array(NAME_COUNT) {
+            merchants[random.nextInt(merchants.size)] + DECORATIONS[random.nextInt(DECORATIONS.size)]
+        }
+    }
+
+    @State(Scope.Thread)
+    open class Cursor {
+        var index = 0
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    fun categorize(cursor: Cursor): CategorizationResult {
+        cursor.index = (cursor.index + 1) % names.size
+        return engine.categorize(names[cursor.index])
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    fun matchUncached(cursor: Cursor): MerchantCategoryMatcher.Match? {
+        cursor.index = (cursor.index + 1) % names.size
+        return matcher.match(MerchantNameNormalizer.stripSuffixes(names[cursor.index]))
+    }
+}
@@ -0,0 +1,66 @@
+package com.smartexpenseai.app.parsing.benchmark
+
+import com.smartexpenseai.app.parsing.engine.SmsDateParser
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.State
+import java.util.Date
+import java.util.TimeZone
+import java.util.concurrent.TimeUnit
+
+/**
+ * [SmsDateParser] on the date shapes bank SMS use, plus texts that are not dates (the
+ * extraction path tries those too and must reject them quickly). The legacy* benchmarks
+ * run the SimpleDateFormat cascade it replaced ([LegacyDateCascade]) on the same inputs.
+ */
+@State(Scope.Thread)
+open class DateParseBenchmark {
+
+    private val dates = arrayOf(
+        "04-07-25", "04/07/2025", "04.07.25", "4-7-25 14:30",
+        "04-Jul-25", "04-JUL-2025", "4 July 2025", "25/December/2024"
+    )
+
+    private val nonDates = arrayOf(
+        "31-02-25", "12-05-202", "XX1234", "A/c 1234", "Rs.500.00"
+    )
+
+    private val timeZone = TimeZone.getTimeZone("Asia/Kolkata")
+
+    private var index = 0
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    fun parseDate(): Long {
+        index = (index + 1) % dates.size
+        return SmsDateParser.parseEpochMillis(dates[index], timeZone)
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    fun rejectNonDate(): Int {
+        index = (index + 1) % nonDates.size
+        return SmsDateParser.parse(nonDates[index])
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    fun legacyParseDate(): Date? {
+        index = (index + 1) % dates.size
+        return LegacyDateCascade.tryParseDate(dates[index])
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    fun legacyRejectNonDate(): Date? {
+        index = (index + 1) % nonDates.size
+        return LegacyDateCascade.tryParseDate(nonDates[index])
+    }
+}
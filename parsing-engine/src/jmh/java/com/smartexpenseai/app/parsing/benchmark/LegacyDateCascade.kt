@@ -0,0 +1,61 @@
+package com.smartexpenseai.app.parsing.benchmark
+
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+
+/**
+ * The SimpleDateFormat cascade that SmsDateParser replaced, kept as the baseline of
+ * DateParseBenchmark. DATE_FORMATS and tryParseDate are verbatim from UnifiedSMSParser
+ * before the change; do not tune them, or the comparison no longer measures the old code.
+ */
+internal object LegacyDateCascade {
+
+    private val DATE_FORMATS = listOf(
+        "dd-MM-yy",      // Try 2-digit patterns first
+        "dd/MM/yy",
+        "dd.MM.yy",
+        "dd-MMM-yy",     // Alpha-month 2-digit ("04-Jul-25", common in SBI/HDFC/ICICI)
+        "dd/MMM/yy",
+        "dd MMM yy",
+        "dd-MM-yyyy",    // Then 4-digit patterns
+        "dd/MM/yyyy",
+        "dd-MMM-yyyy",
+        "dd/MMM/yyyy",
+        "dd MMM yyyy"
+    )
+
+    /**
+     * Try to parse date string with multiple formats
+     * Creates new SimpleDateFormat instances for thread safety
+     */
+    fun tryParseDate(dateStr: String): Date? {
+        // Calendar for 2-digit year interpretation
+        val calendar = java.util.Calendar.getInstance()
+        calendar.set(2000, 0, 1) // Jan 1, 2000
+        val yearStartDate = calendar.time
+
+        // Title-case alpha months ("04-JUL-25" -> "04-Jul-25") so SimpleDateFormat
+        // matches them reliably, and normalize "/" or space separators to "-"
+        val normalized = dateStr.replace(
+            Regex("(?i)\\b(jan|feb|mar|apr|may|jun|jul|aug|sep|oct|nov|dec)")
+        ) { m -> m.value.lowercase().replaceFirstChar { it.uppercase() } }
+        val candidates = if (normalized == dateStr) listOf(dateStr) else listOf(dateStr, normalized)
+
+        candidates.forEach { candidate ->
+            DATE_FORMATS.forEach { pattern ->
+                try {
+                    // Create new SimpleDateFormat for thread safety
+                    val format = SimpleDateFormat(pattern, Locale.ENGLISH)
+                    format.isLenient = false
+                    // Set 2-digit year start to interpret "yy" as 2000-2099
+                    format.set2DigitYearStart(yearStartDate)
+                    return format.parse(candidate)
+                } catch (e: Exception) {
+                    // Try next format
+                }
+            }
+        }
+        return null
+    }
+}
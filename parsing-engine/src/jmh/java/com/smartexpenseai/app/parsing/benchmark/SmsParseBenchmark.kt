@@ -0,0 +1,91 @@
+package com.smartexpenseai.app.parsing.benchmark
+
+import com.smartexpenseai.app.parsing.engine.BundledRuleSource
+import com.smartexpenseai.app.parsing.engine.ConfidenceCalculator
+import com.smartexpenseai.app.parsing.engine.RuleLoader
+import com.smartexpenseai.app.parsing.engine.RuleSnapshot
+import com.smartexpenseai.app.parsing.engine.SmsParseEngine
+import com.smartexpenseai.app.parsing.engine.SmsParseEngine.SmsMessage
+import kotlinx.coroutines.runBlocking
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OperationsPerInvocation
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import java.util.concurrent.TimeUnit
+
+/**
+ * Whole-message parsing through [SmsParseEngine] on the bundled rules:
+ * - [parseOne]: latency of one parse, cycling through the corpus
+ * - [parseBatch]: throughput of a parallel batch parse, as in a history scan
+ * - [parseSequential]: the same corpus on one thread, to separate per-message cost from
+ *   parallel speedup
+ *
+ * Both extraction modes run, so combined matching stays comparable with per-pattern.
+ */
+@State(Scope.Benchmark)
+open class SmsParseBenchmark {
+
+    companion object {
+        const val CORPUS_SIZE = 4096
+    }
+
+    @Param("COMBINED", "PER_PATTERN")
+    lateinit var extractionMode: String
+
+    private lateinit var engine: SmsParseEngine
+    private lateinit var snapshot: RuleSnapshot
+    private lateinit var corpus: List<SmsMessage>
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        engine = SmsParseEngine(ConfidenceCalculator()).apply {
+            extractionMode = SmsParseEngine.ExtractionMode.valueOf(this@SmsParseBenchmark.extractionMode)
+        }
+        snapshot = runBlocking {
+            RuleLoader(BundledRuleSource("benchmark")).loadSnapshot().getOrThrow()
+        }
+        corpus = SyntheticCorpus.generate(CORPUS_SIZE)
+    }
+
+    /** Position in the corpus, per benchmark thread */
+    @State(Scope.Thread)
+    open class Cursor {
+        var index = 0
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    fun parseOne(cursor: Cursor): SmsParseEngine.Outcome {
+        val message = corpus[cursor.index]
+        cursor.index = (cursor.index + 1) % corpus.size
+        return engine.parse(message.sender, message.body, message.timestamp, snapshot)
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(CORPUS_SIZE)
+    fun parseBatch(): List<SmsParseEngine.Outcome> = runBlocking {
+        engine.parseBatch(corpus, snapshot) { _, outcome -> outcome }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(CORPUS_SIZE)
+    fun parseSequential(): Int {
+        var parsed = 0
+        for (message in corpus) {
+            val outcome = engine.parse(message.sender, message.body, message.timestamp, snapshot)
+            if (outcome is SmsParseEngine.Outcome.Success) parsed++
+        }
+        return parsed
+    }
+}
@@ -0,0 +1,113 @@
+package com.smartexpenseai.app.parsing.benchmark
+
+import com.google.gson.Gson
+import com.smartexpenseai.app.parsing.engine.SmsParseEngine.SmsMessage
+import com.smartexpenseai.app.parsing.generated.RuleBundle
+import java.util.Locale
+import java.util.Random
+
+/**
+ * Deterministic SMS corpus for the benchmarks, so runs before and after a parser change
+ * parse exactly the same messages.
+ *
+ * Seeded from the samples in test_sms_samples.kt (extracted into sms_samples.json by
+ * generateBenchmarkCorpus). Transaction samples are sent from every bank in the bundled
+ * bank_rules.json, with amounts, dates, merchants (from merchant_rules.json) and reference
+ * numbers varied; samples that must be rejected are used as they are.
+ */
+internal object SyntheticCorpus {
+
+    private const val SAMPLES_RESOURCE = "/sms_samples.json"
+
+    // Share of transaction SMS: a history scan is mostly bank alerts, with some noise
+    private const val TRANSACTION_SHARE = 0.75
+
+    // Share of transaction SMS given a reference number; the rest test the card/no-ref paths
+    private const val REFERENCE_SHARE = 0.85
+
+    private const val BASE_TIMESTAMP = 1_735_000_000_000L
+
+    private val SENDER_PREFIXES = listOf("", "AD-", "VM-", "JD-", "BZ-")
+    private val MONTHS = listOf("Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec")
+
+    private val AMOUNT_REGEX = Regex("(?:Rs\\.?|INR)\\s*[\\d,]+(?:\\.\\d{1,2})?", RegexOption.IGNORE_CASE)
+    private val DATE_REGEX = Regex("\\b\\d{1,2}-[A-Za-z]{3}-\\d{2}\\b")
+    private val MERCHANT_REGEX = Regex("(?<=\\bat )[A-Z][A-Z0-9&]*(?: [A-Z][A-Z0-9&]*)*")
+    private val LITERAL_MERCHANT_REGEX = Regex("[A-Z0-9][A-Z0-9 &']*")
+
+    class Sample(
+        val list: String,
+        val transaction: Boolean,
+        val sender: String,
+        val body: String
+    )
+
+    fun samples(): List<Sample> {
+        val stream = SyntheticCorpus::class.java.getResourceAsStream(SAMPLES_RESOURCE)
+            ?: throw IllegalStateException("$SAMPLES_RESOURCE missing; run generateBenchmarkCorpus")
+        return stream.reader(Charsets.UTF_8).use { reader ->
+            Gson().fromJson(reader, Array<Sample>::class.java).toList()
+        }
+    }
+
+    /** Plain-literal merchant names from the bundled merchant rules ("SWIGGY", "BIG BAZAAR") */
+    fun merchantNames(): List<String> =
+        RuleBundle.merchantRules().categories
+            .flatMap { it.patterns }
+            .map { it.removePrefix(".*").removeSuffix(".*") }
+            .filter { LITERAL_MERCHANT_REGEX.matches(it) }
+            .distinct()
+
+    fun generate(size: Int, seed: Long = 42L): List<SmsMessage> {
+        val random = Random(seed)
+        val samples = samples()
+        val transactions = samples.filter { it.transaction }
+        val rejects = samples.filterNot { it.transaction }
+        val banks = RuleBundle.bankRules().banks
+        val merchants = merchantNames()
+
+        return List(size) { index ->
+            val timestamp = BASE_TIMESTAMP + index * 60_000L
+            if (rejects.isNotEmpty() && random.nextDouble() >= TRANSACTION_SHARE) {
+                val sample = rejects[random.nextInt(rejects.size)]
+                SmsMessage(sample.sender, sample.body, timestamp)
+            } else {
+                val sample = transactions[random.nextInt(transactions.size)]
+                val bank = banks[random.nextInt(banks.size)]
+                val sender = SENDER_PREFIXES[random.nextInt(SENDER_PREFIXES.size)] +
+                    bank.senderPatterns[random.nextInt(bank.senderPatterns.size)]
+                SmsMessage(sender, vary(sample.body, random, merchants), timestamp)
+            }
+        }
+    }
+
+    private fun vary(body: String, random: Random, merchants: List<String>): String {
+        var varied = body.replaceFirst(AMOUNT_REGEX, "Rs.${amount(random)}")
+        varied = DATE_REGEX.replace(varied) { date(random) }
+        varied = MERCHANT_REGEX.replace(varied) { merchants[random.nextInt(merchants.size)] }
+        if (random.nextDouble() < REFERENCE_SHARE) {
+            varied += " Ref No ${100_000_000_000L + (random.nextDouble() * 899_999_999_999L).toLong()}."
+        }
+        return varied
+    }
+
+    private fun amount(random: Random): String {
+        val rupees = 1 + random.nextInt(99_999)
+        return when (random.nextInt(3)) {
+            0 -> rupees.toString()
+            1 -> String.format(Locale.ROOT, "%,d.%02d", rupees, random.nextInt(100))
+            else -> String.format(Locale.ROOT, "%d.%02d", rupees, random.nextInt(100))
+        }
+    }
+
+    private fun date(random: Random): String {
+        val day = 1 + random.nextInt(28)
+        val month = 1 + random.nextInt(12)
+        val year = 20 + random.nextInt(6)
+        return when (random.nextInt(3)) {
+            0 -> String.format(Locale.ROOT, "%02d-%s-%02d", day, MONTHS[month - 1], year)
+            1 -> String.format(Locale.ROOT, "%02d-%02d-%02d", day, month, year)
+            else -> String.format(Locale.ROOT, "%02d/%02d/20%02d", day, month, year)
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.smartexpenseai.app.parsing.engine
+
+/**
+ * Hand-written scanner for currency amounts ("Rs.1,23,456.78", "INR 500", "₹ 99.5",
+ * "2,000.00 INR"), used ahead of the amount regexes for banks with
+ * `"amount_scanner": true` in bank_rules.json.
+ *
+ * Mirrors the common amount patterns `(?:₹|Rs\.?|INR)\s*([\d,]+(?:\.\d{1,2})?)` and
+ * `([\d,]+(?:\.\d{1,2})?)\s*(?:₹|Rs\.?|INR)`: the leftmost currency-prefixed amount wins,
+ * and a currency-suffixed amount is only taken when there is none. Unlike the regexes:
+ * - a currency marker must not sit inside a word ("hours 500" has no "Rs" amount, and
+ *   "2 RSVP" is not suffixed)
+ * - commas only count between digits, so any grouping (Indian 1,23,456 or 123,456)
+ *   reads the same and a stray "Rs ," is skipped instead of failing the parse
+ * - integer parts longer than [MAX_INTEGER_DIGITS] digits are not amounts
+ *
+ * The value comes out as paise directly, with no intermediate string.
+ * Stateless; safe to call from any thread.
+ */
+object AmountScanner {
+
+    /** [paise] and where its digits sit in the scanned text (end exclusive). */
+    class Amount(val paise: Long, val start: Int, val end: Int)
+
+    private const val MAX_INTEGER_DIGITS = 15
+
+    // Set by readNumber: paise of the number just read, and the index after it
+    private class NumberCursor {
+        var paise = 0L
+        var end = 0
+    }
+
+    /** Leftmost currency-prefixed amount in [text], else the leftmost suffixed one. */
+    fun scan(text: CharSequence): Amount? =
+        scanPrefixed(text) ?: scanSuffixed(text)
+
+    private fun scanPrefixed(text: CharSequence): Amount? {
+        val cursor = NumberCursor()
+        var i = 0
+        while (i < text.length) {
+            val markerEnd = currencyMarkerEnd(text, i)
+            // "Rs"/"INR" must start a word; "₹" can follow anything
+            if (markerEnd < 0 || (text[i] != '₹' && i > 0 && isLetter(text[i - 1]))) {
+                i++
+                continue
+            }
+            var start = markerEnd
+            if (start < text.length && text[start] == '.' && isRupeeAbbreviation(text, i)) start++
+            start = skipWhitespace(text, start)
+            if (readNumber(text, start, cursor)) return Amount(cursor.paise, start, cursor.end)
+            i = markerEnd
+        }
+        return null
+    }
+
+    private fun scanSuffixed(text: CharSequence): Amount? {
+        val cursor = NumberCursor()
+        var i = 0
+        while (i < text.length) {
+            if (!isDigit(text[i]) || (i > 0 && (isWordChar(text[i - 1]) || text[i - 1] == ','))) {
+                i++
+                continue
+            }
+            if (readNumber(text, i, cursor)) {
+                val markerStart = skipWhitespace(text, cursor.end)
+                val markerEnd = currencyMarkerEnd(text, markerStart)
+                if (markerEnd >= 0 && (markerEnd == text.length || !isWordChar(text[markerEnd]))) {
+                    return Amount(cursor.paise, i, cursor.end)
+                }
+            }
+            // Skip the rest of this digit run; amounts start at a run's first digit
+            while (i < text.length && (isDigit(text[i]) || text[i] == ',' || text[i] == '.')) i++
+        }
+        return null
+    }
+
+    /**
+     * Reads digits with optional commas between them and up to two decimals at [from].
+     * Returns false (cursor unspecified) when no amount starts there.
+     */
+    private fun readNumber(text: CharSequence, from: Int, cursor: NumberCursor): Boolean {
+        var i = from
+        var rupees = 0L
+        var digits = 0
+        while (i < text.length) {
+            val c = text[i]
+            if (isDigit(c)) {
+                if (++digits > MAX_INTEGER_DIGITS) return false
+                rupees = rupees * 10 + (c - '0')
+                i++
+            } else if (c == ',' && digits > 0 && i + 1 < text.length && isDigit(text[i + 1])) {
+                i++
+            } else {
+                break
+            }
+        }
+        if (digits == 0) return false
+
+        var paise = 0L
+        if (i + 1 < text.length && text[i] == '.' && isDigit(text[i + 1])) {
+            paise = (text[i + 1] - '0') * 10L
+            i += 2
+            if (i < text.length && isDigit(text[i])) {
+                paise += text[i] - '0'
+                i++
+            }
+        }
+        cursor.paise = rupees * 100 + paise
+        cursor.end = i
+        return true
+    }
+
+    // Index after "₹", "Rs" or "INR" (any case) at [at], or -1
+    private fun currencyMarkerEnd(text: CharSequence, at: Int): Int {
+        if (at >= text.length) return -1
+        val c = text[at]
+        if (c == '₹') return at + 1
+        if (isRupeeAbbreviation(text, at)) return at + 2
+        if ((c == 'I' || c == 'i') && at + 2 < text.length &&
+            (text[at + 1] == 'N' || text[at + 1] == 'n') &&
+            (text[at + 2] == 'R' || text[at + 2] == 'r')
+        ) {
+            return at + 3
+        }
+        return -1
+    }
+
+    private fun isRupeeAbbreviation(text: CharSequence, at: Int): Boolean =
+        at + 1 < text.length &&
+            (text[at] == 'R' || text[at] == 'r') &&
+            (text[at + 1] == 'S' || text[at + 1] == 's')
+
+    private fun skipWhitespace(text: CharSequence, from: Int): Int {
+        var i = from
+        while (i < text.length && text[i].let { it == ' ' || it in '\t'..'\r' }) i++
+        return i
+    }
+
+    private fun isDigit(c: Char): Boolean = c in '0'..'9'
+
+    private fun isLetter(c: Char): Boolean = c in 'A'..'Z' || c in 'a'..'z'
+
+    private fun isWordChar(c: Char): Boolean = isDigit(c) || isLetter(c)
+}
@@ -0,0 +1,63 @@
+package com.smartexpenseai.app.parsing.engine
+
+import com.smartexpenseai.app.parsing.models.BankRule
+import com.smartexpenseai.app.parsing.models.BankRulesSchema
+import java.util.IdentityHashMap
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * [CombinedFieldMatcher]s for every bank, built lazily the first time a bank's SMS is
+ * parsed. Amount, merchant and reference number lists are the bank's patterns followed by
+ * the fallback patterns (the order the per-pattern path tries them in); date and
+ * transaction type have no fallback patterns.
+ *
+ * A null field matcher means that list could not be combined; use the per-pattern path.
+ *
+ * Built for one immutable [rules] instance; thread-safe.
+ */
+class BankFieldExtractors(
+    val rules: BankRulesSchema,
+    private val compile: (String) -> Regex
+) {
+
+    class FieldMatchers(
+        val amount: CombinedFieldMatcher?,
+        val merchant: CombinedFieldMatcher?,
+        val date: CombinedFieldMatcher?,
+        val transactionType: CombinedFieldMatcher?,
+        val referenceNumber: CombinedFieldMatcher?
+    )
+
+    // Filled in init and only read afterwards
+    private val bankIndex = IdentityHashMap<BankRule, Int>()
+
+    // Index = bank index; the last slot is for senders that matched no bank
+    private val matchers = AtomicReferenceArray<FieldMatchers>(rules.banks.size + 1)
+
+    init {
+        rules.banks.forEachIndexed { index, bank -> bankIndex[bank] = index }
+    }
+
+    /** Matchers for [bank], or for the fallback patterns alone when [bank] is null. */
+    fun forBank(bank: BankRule?): FieldMatchers {
+        val slot = bank?.let { bankIndex[it] } ?: rules.banks.size
+        matchers.get(slot)?.let { return it }
+        val built = build(bank)
+        return if (matchers.compareAndSet(slot, null, built)) built else matchers.get(slot)
+    }
+
+    private fun build(bank: BankRule?): FieldMatchers {
+        val fallback = rules.fallbackPatterns
+        val patterns = bank?.patterns
+        return FieldMatchers(
+            amount = CombinedFieldMatcher.build(patterns?.amount.orEmpty() + fallback.amount, compile),
+            merchant = CombinedFieldMatcher.build(patterns?.merchant.orEmpty() + fallback.merchant, compile),
+            date = CombinedFieldMatcher.build(patterns?.date.orEmpty(), compile),
+            transactionType = CombinedFieldMatcher.build(patterns?.transactionType.orEmpty(), compile),
+            referenceNumber = CombinedFieldMatcher.build(
+                patterns?.referenceNumber.orEmpty() + fallback.referenceNumber.orEmpty(),
+                compile
+            )
+        )
+    }
+}
@@ -0,0 +1,91 @@
+package com.smartexpenseai.app.parsing.engine
+
+import com.smartexpenseai.app.parsing.models.BankRule
+import com.smartexpenseai.app.parsing.models.BankRulesSchema
+import java.util.Locale
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Sender-address index for bank detection.
+ *
+ * Keeps the semantics of the linear scan it replaces: the first bank (in rule order) with
+ * a sender pattern found case-insensitively anywhere in the address wins. But:
+ * - Literal patterns ("HDFCBK", "VM-HDFC" - nearly all of them) live in a hash keyed by
+ *   the upper-cased code. An address such as "AD-HDFCBK-S" is resolved by probing its
+ *   substrings of each distinct pattern length, so no regex runs.
+ * - Patterns that use regex syntax are only tried for banks ordered before the literal hit.
+ * - Results are memoized per address; the same few senders repeat across a whole scan.
+ *
+ * Built for one immutable [rules] instance; thread-safe.
+ */
+class BankSenderIndex(
+    val rules: BankRulesSchema,
+    private val compile: (String) -> Regex
+) {
+
+    companion object {
+        private const val NO_MATCH = -1
+        private const val MAX_MEMO_SIZE = 2048
+        private val REGEX_SYNTAX = Regex("[\\\\^$.|?*+()\\[\\]{}]")
+    }
+
+    // Upper-cased literal code -> lowest bank index that declares it
+    private val literalBanks = HashMap<String, Int>()
+    private val literalLengths: IntArray
+    // (bank index, pattern) for non-literal patterns, in rule order
+    private val regexPatterns = ArrayList<Pair<Int, String>>()
+    private val memo = ConcurrentHashMap<String, Int>()
+
+    init {
+        rules.banks.forEachIndexed { bankIndex, bank ->
+            bank.senderPatterns.forEach { pattern ->
+                if (REGEX_SYNTAX.containsMatchIn(pattern)) {
+                    regexPatterns.add(bankIndex to pattern)
+                } else if (pattern.isNotEmpty()) {
+                    literalBanks.putIfAbsent(pattern.uppercase(Locale.ROOT), bankIndex)
+                }
+            }
+        }
+        literalLengths = literalBanks.keys.map { it.length }.distinct().sorted().toIntArray()
+    }
+
+    /**
+     * Bank whose sender patterns match [sender], or null for non-bank senders.
+     */
+    fun resolve(sender: String): BankRule? {
+        val bankIndex = memo[sender] ?: lookup(sender).also { resolved ->
+            if (memo.size >= MAX_MEMO_SIZE) memo.clear()
+            memo[sender] = resolved
+        }
+        return if (bankIndex == NO_MATCH) null else rules.banks[bankIndex]
+    }
+
+    private fun lookup(sender: String): Int {
+        val address = sender.uppercase(Locale.ROOT)
+        var best = Int.MAX_VALUE
+
+        for (length in literalLengths) {
+            if (length > address.length) break
+            for (start in 0..address.length - length) {
+                val bankIndex = literalBanks[address.substring(start, start + length)] ?: continue
+                if (bankIndex < best) best = bankIndex
+            }
+        }
+
+        // Regex fallback, limited to banks that would still win over the literal hit
+        for ((bankIndex, pattern) in regexPatterns) {
+            if (bankIndex >= best) break
+            val matched = try {
+                compile(pattern).containsMatchIn(sender)
+            } catch (e: Exception) {
+                false // Invalid pattern: same outcome as the old per-message scan
+            }
+            if (matched) {
+                best = bankIndex
+                break
+            }
+        }
+
+        return if (best == Int.MAX_VALUE) NO_MATCH else best
+    }
+}
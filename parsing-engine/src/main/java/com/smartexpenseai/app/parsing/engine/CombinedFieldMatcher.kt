@@ -0,0 +1,88 @@
+package com.smartexpenseai.app.parsing.engine
+
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * One field's pattern list (e.g. a bank's amount patterns followed by the fallback amount
+ * patterns) compiled into a single alternation regex.
+ *
+ * Keeps the semantics of trying each pattern with find() in list order and taking group 1
+ * of the first pattern that matches anywhere. A plain alternation does not: it reports the
+ * leftmost position where any pattern matches. So [find] works in stages:
+ * - scan with all patterns; at the leftmost match, the lowest matching pattern k is a
+ *   candidate, and no pattern before k matches at or before that position
+ * - rescan from the next position with only patterns 0 until k
+ * - stop when nothing earlier matches, or k is 0
+ * The common case (the first pattern hits, or nothing earlier hits later) is one or two
+ * scans instead of one per pattern.
+ *
+ * [build] returns null for lists it cannot combine safely (backreferences, named groups,
+ * inline flags, a pattern without a capture group); callers keep the per-pattern path.
+ *
+ * Thread-safe.
+ */
+class CombinedFieldMatcher private constructor(
+    val patterns: List<String>,
+    private val options: Set<RegexOption>,
+    // Group number of the wrapper around each pattern in the combined regex
+    private val wrapperGroups: IntArray
+) {
+
+    /** Trimmed group 1 of the winning pattern, and that pattern's index in [patterns]. */
+    class Hit(val patternIndex: Int, val value: String)
+
+    // Index k: alternation of patterns 0 until k (k = size is the full list), built lazily
+    private val prefixes = AtomicReferenceArray<Regex>(patterns.size + 1)
+
+    fun find(text: String): Hit? {
+        var candidates = patterns.size
+        var from = 0
+        var best: Hit? = null
+        while (candidates > 0 && from <= text.length) {
+            val match = prefix(candidates).find(text, from) ?: break
+            val groups = match.groups
+            val winner = (0 until candidates).first { groups[wrapperGroups[it]] != null }
+            best = Hit(winner, groups[wrapperGroups[winner] + 1]?.value?.trim().orEmpty())
+            candidates = winner
+            from = match.range.first + 1
+        }
+        return best
+    }
+
+    private fun prefix(count: Int): Regex {
+        prefixes.get(count)?.let { return it }
+        val source = patterns.subList(0, count).joinToString("|") { "($it)" }
+        val regex = Regex(source, options)
+        return if (prefixes.compareAndSet(count, null, regex)) regex else prefixes.get(count)
+    }
+
+    companion object {
+        // Syntax whose meaning changes once patterns share one regex and one group numbering
+        private val UNSAFE_SYNTAX = Regex("\\\\[1-9]|\\\\k<|\\(\\?<[A-Za-z]|\\(\\?[idmsuxU-]+[:)]|\\\\G")
+
+        /**
+         * Matcher for [patterns] compiled like [compile] compiles them, or null when the
+         * list is empty or cannot be combined without changing results.
+         */
+        fun build(patterns: List<String>, compile: (String) -> Regex): CombinedFieldMatcher? {
+            if (patterns.isEmpty()) return null
+            val wrapperGroups = IntArray(patterns.size)
+            var nextGroup = 1
+            var options: Set<RegexOption>? = null
+            patterns.forEachIndexed { index, pattern ->
+                if (UNSAFE_SYNTAX.containsMatchIn(pattern)) return null
+                val regex = try {
+                    compile(pattern)
+                } catch (e: Exception) {
+                    return null
+                }
+                if (options == null) options = regex.options else if (options != regex.options) return null
+                val groupCount = regex.toPattern().matcher("").groupCount()
+                if (groupCount == 0) return null
+                wrapperGroups[index] = nextGroup
+                nextGroup += groupCount + 1
+            }
+            return CombinedFieldMatcher(patterns, options.orEmpty(), wrapperGroups)
+        }
+    }
+}
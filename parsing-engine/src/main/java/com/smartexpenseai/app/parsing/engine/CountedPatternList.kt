@@ -0,0 +1,103 @@
+package com.smartexpenseai.app.parsing.engine
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+
+/**
+ * One first-match-wins pattern list (e.g. a bank's amount patterns) with hit statistics
+ * for rule authors ([RuleLoader.dumpPatternStats]).
+ *
+ * Patterns are always tried in file order. The winning pattern decides the extracted
+ * fields, and through them the sms_id and the parse_cache contents, so it must not depend
+ * on what a device has parsed before.
+ *
+ * Every evaluation counts an attempt and a hit or miss, whether [firstMatch] runs the
+ * patterns one by one or a CombinedFieldMatcher ran them as one regex ([record]). Time is
+ * measured only on every [TIMING_INTERVAL]th [firstMatch] call, which keeps
+ * System.nanoTime off most evaluations; combined evaluations are not timed.
+ *
+ * Thread-safe; counters are atomics.
+ */
+class CountedPatternList(
+    val name: String,
+    val patterns: List<String>
+) {
+
+    companion object {
+        const val TIMING_INTERVAL = 16L
+    }
+
+    /** Snapshot of one pattern's counters. */
+    data class PatternStat(
+        val list: String,
+        val pattern: String,
+        val fileIndex: Int,
+        val attempts: Long,
+        val hits: Long,
+        val timedAttempts: Long,
+        val timedNanos: Long
+    ) {
+        val isDead: Boolean get() = hits == 0L && attempts > 0L
+
+        /** Mean time per attempt over the timed calls; 0 when none was timed. */
+        val averageNanos: Long get() = if (timedAttempts == 0L) 0L else timedNanos / timedAttempts
+    }
+
+    private val size = patterns.size
+
+    private val attempts = AtomicLongArray(size)
+    private val hits = AtomicLongArray(size)
+    private val timedAttempts = AtomicLongArray(size)
+    private val timedNanos = AtomicLongArray(size)
+
+    private val calls = AtomicLong()
+
+    /**
+     * First non-null [evaluate] result over the patterns, in file order.
+     */
+    fun <T : Any> firstMatch(evaluate: (String) -> T?): T? {
+        if (size == 0) return null
+
+        val timed = calls.incrementAndGet() % TIMING_INTERVAL == 0L
+        for (index in 0 until size) {
+            val result = if (timed) timedEvaluate(index, evaluate) else evaluate(patterns[index])
+            attempts.incrementAndGet(index)
+            if (result != null) {
+                hits.incrementAndGet(index)
+                return result
+            }
+        }
+        return null
+    }
+
+    /**
+     * Counts an evaluation of this list done elsewhere (a CombinedFieldMatcher): an attempt
+     * on every pattern up to [winnerIndex] and a hit on it, or an attempt on every pattern
+     * when [winnerIndex] is null (nothing matched). The same counts [firstMatch] records.
+     */
+    fun record(winnerIndex: Int?) {
+        val last = winnerIndex ?: (size - 1)
+        for (index in 0..last) attempts.incrementAndGet(index)
+        if (winnerIndex != null) hits.incrementAndGet(winnerIndex)
+    }
+
+    fun stats(): List<PatternStat> = patterns.indices.map { index ->
+        PatternStat(
+            list = name,
+            pattern = patterns[index],
+            fileIndex = index,
+            attempts = attempts.get(index),
+            hits = hits.get(index),
+            timedAttempts = timedAttempts.get(index),
+            timedNanos = timedNanos.get(index)
+        )
+    }
+
+    private fun <T : Any> timedEvaluate(index: Int, evaluate: (String) -> T?): T? {
+        val start = System.nanoTime()
+        val result = evaluate(patterns[index])
+        timedNanos.addAndGet(index, System.nanoTime() - start)
+        timedAttempts.incrementAndGet(index)
+        return result
+    }
+}
@@ -0,0 +1,93 @@
+package com.smartexpenseai.app.parsing.engine
+
+/**
+ * Aho-Corasick automaton over a fixed set of literal keywords.
+ *
+ * Compiled to a dense transition table over the keywords' own alphabet, so stepping is
+ * one array read per input character and finds every keyword occurrence in a single pass.
+ * Characters that appear in no keyword send the automaton back to the root. Matching is
+ * exact; callers fold case (or otherwise normalize) the characters they feed in.
+ */
+class KeywordAutomaton(keywords: List<String>) {
+
+    val keywordCount: Int = keywords.size
+
+    // Column 0 is "character not in any keyword"
+    private val asciiColumns = IntArray(128)
+    private val otherColumns = HashMap<Char, Int>()
+    private val width: Int
+    private val transitions: IntArray
+    private val outputs: Array<IntArray>
+
+    init {
+        var columns = 1
+        keywords.forEach { keyword ->
+            keyword.forEach { c ->
+                if (c.code < 128) {
+                    if (asciiColumns[c.code] == 0) asciiColumns[c.code] = columns++
+                } else if (!otherColumns.containsKey(c)) {
+                    otherColumns[c] = columns++
+                }
+            }
+        }
+        width = columns
+
+        // 1. Trie
+        val children = arrayListOf(HashMap<Int, Int>())
+        val terminal = arrayListOf(ArrayList<Int>())
+        keywords.forEachIndexed { id, keyword ->
+            if (keyword.isEmpty()) return@forEachIndexed
+            var state = 0
+            keyword.forEach { c ->
+                val column = columnOf(c)
+                state = children[state][column] ?: run {
+                    children.add(HashMap())
+                    terminal.add(ArrayList())
+                    (children.size - 1).also { children[state][column] = it }
+                }
+            }
+            terminal[state].add(id)
+        }
+
+        // 2. Failure links in BFS order, folded into a full transition table
+        val stateCount = children.size
+        val fail = IntArray(stateCount)
+        transitions = IntArray(stateCount * width)
+        val merged = arrayOfNulls<IntArray>(stateCount)
+        merged[0] = terminal[0].toIntArray()
+
+        val queue = ArrayDeque<Int>()
+        for (column in 1 until width) {
+            val child = children[0][column] ?: continue
+            transitions[column] = child
+            fail[child] = 0
+            queue.addLast(child)
+        }
+        while (queue.isNotEmpty()) {
+            val state = queue.removeFirst()
+            merged[state] = (terminal[state] + merged[fail[state]]!!.asList()).toIntArray()
+            for (column in 1 until width) {
+                val child = children[state][column]
+                if (child == null) {
+                    transitions[state * width + column] = transitions[fail[state] * width + column]
+                } else {
+                    transitions[state * width + column] = child
+                    fail[child] = transitions[fail[state] * width + column]
+                    queue.addLast(child)
+                }
+            }
+        }
+        outputs = Array(stateCount) { merged[it] ?: IntArray(0) }
+    }
+
+    /** Start state. */
+    val root: Int get() = 0
+
+    fun step(state: Int, c: Char): Int = transitions[state * width + columnOf(c)]
+
+    /** Ids (indexes into the constructor list) of every keyword ending at [state]. */
+    fun matchesAt(state: Int): IntArray = outputs[state]
+
+    private fun columnOf(c: Char): Int =
+        if (c.code < 128) asciiColumns[c.code] else otherColumns[c] ?: 0
+}
@@ -0,0 +1,175 @@
+package com.smartexpenseai.app.parsing.engine
+
+import com.smartexpenseai.app.parsing.models.MerchantCategoryRule
+import java.util.BitSet
+import java.util.Locale
+
+/**
+ * All merchant category patterns compiled into one matcher.
+ *
+ * Keeps the semantics of walking [categories] in order and testing each pattern with
+ * containsMatchIn: the first category (then the first of its patterns) that matches wins.
+ * Every pattern gets a global rank in that order, and the lowest matching rank wins.
+ *
+ * Nearly all patterns are literals wrapped in ".*" ("SWIGGY.*", ".*PIZZA.*"). Those go
+ * into one [KeywordAutomaton], so a single pass over the merchant name finds every
+ * literal hit. The remaining patterns run as regexes, and only if:
+ * - they rank before the best literal hit, and
+ * - their required literal (e.g. "BAZAAR" for "BIG\s*BAZAAR.*") occurs in the name,
+ *   when such a literal can be derived from the pattern
+ *
+ * Built for one rules instance; thread-safe.
+ */
+class MerchantCategoryMatcher(val categories: List<MerchantCategoryRule>) {
+
+    class Match(val category: MerchantCategoryRule, val pattern: String)
+
+    private class RankedPattern(val categoryIndex: Int, val pattern: String)
+
+    private val ranked = ArrayList<RankedPattern>()
+    private val automaton: KeywordAutomaton
+
+    // Keyword id -> pattern rank, and whether a keyword hit is already a match
+    private val keywordRank: IntArray
+    private val keywordIsMatch: BooleanArray
+
+    // Rank -> compiled regex, for patterns that are not plain literals
+    private val regexes = HashMap<Int, Regex>()
+    private val unanchoredRanks = BitSet()
+
+    init {
+        val keywords = ArrayList<String>()
+        val ranks = ArrayList<Int>()
+        val isMatch = ArrayList<Boolean>()
+
+        categories.forEachIndexed { categoryIndex, category ->
+            category.patterns.forEach { pattern ->
+                val rank = ranked.size
+                ranked.add(RankedPattern(categoryIndex, pattern))
+
+                val core = stripWildcards(pattern)
+                // Non-ASCII lower case is left to the regex: IGNORE_CASE only folds ASCII
+                if (core.isNotEmpty() && !REGEX_SYNTAX.containsMatchIn(core) &&
+                    core.none { it.code >= 128 && it.isLowerCase() }
+                ) {
+                    keywords.add(core.uppercase(Locale.ROOT))
+                    ranks.add(rank)
+                    isMatch.add(true)
+                    return@forEach
+                }
+
+                regexes[rank] = try {
+                    Regex(pattern, RegexOption.IGNORE_CASE)
+                } catch (e: Exception) {
+                    // Same as MerchantCategoryRule.getCompiledPatterns: treat as a literal
+                    Regex(Regex.escape(pattern), RegexOption.IGNORE_CASE)
+                }
+                val anchor = requiredLiteral(core)
+                if (anchor.isNullOrEmpty()) {
+                    unanchoredRanks.set(rank)
+                } else {
+                    keywords.add(anchor.uppercase(Locale.ROOT))
+                    ranks.add(rank)
+                    isMatch.add(false)
+                }
+            }
+        }
+
+        automaton = KeywordAutomaton(keywords)
+        keywordRank = ranks.toIntArray()
+        keywordIsMatch = isMatch.toBooleanArray()
+    }
+
+    val patternCount: Int get() = ranked.size
+
+    /**
+     * Highest-priority category pattern found in [merchantName], or null.
+     * [merchantName] must already be upper-cased and trimmed (see MerchantRuleEngine).
+     */
+    fun match(merchantName: String): Match? {
+        var best = Int.MAX_VALUE
+        val candidates = unanchoredRanks.clone() as BitSet
+
+        var state = automaton.root
+        for (c in merchantName) {
+            state = automaton.step(state, c)
+            for (id in automaton.matchesAt(state)) {
+                val rank = keywordRank[id]
+                if (keywordIsMatch[id]) {
+                    if (rank < best) best = rank
+                } else {
+                    candidates.set(rank)
+                }
+            }
+        }
+
+        var rank = candidates.nextSetBit(0)
+        while (rank in 0 until best) {
+            if (regexes[rank]?.containsMatchIn(merchantName) == true) {
+                best = rank
+                break
+            }
+            rank = candidates.nextSetBit(rank + 1)
+        }
+
+        if (best == Int.MAX_VALUE) return null
+        val hit = ranked[best]
+        return Match(categories[hit.categoryIndex], hit.pattern)
+    }
+
+    private companion object {
+        val REGEX_SYNTAX = Regex("[\\\\^$.|?*+()\\[\\]{}]")
+        const val QUANTIFIERS = "*+?{"
+
+        // ".*PIZZA.*" -> "PIZZA"; leading/trailing ".*" change nothing under containsMatchIn
+        fun stripWildcards(pattern: String): String {
+            var core = pattern
+            while (core.startsWith(".*")) core = core.substring(2)
+            while (core.endsWith(".*") && !core.endsWith("\\.*")) core = core.dropLast(2)
+            return core
+        }
+
+        /**
+         * Longest literal run every match of [core] must contain, or null when the
+         * pattern uses anything beyond literals, escaped punctuation, \s with a
+         * quantifier, and ".*" gaps.
+         */
+        fun requiredLiteral(core: String): String? {
+            val runs = ArrayList<String>()
+            val run = StringBuilder()
+            var i = 0
+            while (i < core.length) {
+                val c = core[i]
+                when {
+                    c == '\\' && i + 1 < core.length && core[i + 1] == 's' -> {
+                        i += 2
+                        if (i < core.length && core[i] == '{') return null
+                        if (i < core.length && core[i] in QUANTIFIERS) i++
+                        runs.add(run.toString())
+                        run.setLength(0)
+                        continue
+                    }
+                    c == '\\' && i + 1 < core.length && !core[i + 1].isLetterOrDigit() -> {
+                        run.append(core[i + 1])
+                        i += 2
+                    }
+                    c == '.' && i + 1 < core.length && core[i + 1] == '*' -> {
+                        i += 2
+                        runs.add(run.toString())
+                        run.setLength(0)
+                        continue
+                    }
+                    REGEX_SYNTAX.matches(c.toString()) -> return null
+                    else -> {
+                        run.append(c)
+                        i++
+                    }
+                }
+                // A quantified literal is optional, so the run cannot be trusted
+                if (i < core.length && core[i] in QUANTIFIERS) return null
+            }
+            runs.add(run.toString())
+            return runs.maxByOrNull { it.length }
+        }
+    }
+}
@@ -9,7 +9,7 @@ package com.smartexpenseai.app.parsing.engine
  * that volatile text made every message look like a distinct merchant, so
  * duplicates never grouped and a deleted merchant never stayed deleted.
  *
- * Shared by [UnifiedSMSParser] (parse time) and the one-time re-normalization
+ * Shared by [SmsParseEngine] (parse time) and the one-time re-normalization
  * migration so both produce identical names.
  */
 object MerchantNameCleaner {
@@ -31,13 +31,17 @@ object MerchantNameCleaner {
         RegexOption.IGNORE_CASE
     )
 
+    private val WHITESPACE_REGEX = Regex("\\s+")
+    private val NON_VPA_CHAR_REGEX = Regex("[^A-Za-z0-9.@_\\s-]")
+    private val NON_NAME_CHAR_REGEX = Regex("[^A-Za-z0-9\\s&'-]")
+
     fun clean(merchant: String): String {
-        var collapsed = merchant.trim().replace(Regex("\\s+"), " ")
+        var collapsed = merchant.trim().replace(WHITESPACE_REGEX, " ")
 
         // UPI VPAs ("merchant@ybl") must keep their @ and dots or they collapse
         // into unreadable strings; return them as-is minus stray symbols.
         if (collapsed.contains("@")) {
-            return collapsed.replace(Regex("[^A-Za-z0-9.@_\\s-]"), "").trim()
+            return collapsed.replace(NON_VPA_CHAR_REGEX, "").trim()
         }
 
         // Cut the name at the first noise token so repeated messages share one name.
@@ -45,6 +49,6 @@ object MerchantNameCleaner {
             collapsed = collapsed.substring(0, it.range.first)
         }
 
-        return collapsed.replace(Regex("[^A-Za-z0-9\\s&'-]"), "").trim()
+        return collapsed.replace(NON_NAME_CHAR_REGEX, "").trim()
     }
 }
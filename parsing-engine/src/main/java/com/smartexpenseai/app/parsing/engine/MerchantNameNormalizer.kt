@@ -0,0 +1,129 @@
+package com.smartexpenseai.app.parsing.engine
+
+/**
+ * The app's merchant-name normalizations, in one place, with precompiled patterns.
+ *
+ * Each style reproduces what its callers used to compute inline, because the results
+ * are stored (`merchants.normalized_name`, transactions, aliases, exclusions) and have to
+ * keep matching existing rows:
+ * - [normalize]: the merchant key used by the repository and the messages screen
+ * - [normalizeForAlias]: [normalize] minus company suffixes (LTD, PRIVATE LIMITED, INC)
+ * - [stripSuffixes]: cut at the first "*#@-_" run; rule engine, filters, budgets
+ * - [aggressive]: [stripSuffixes] minus city names and company words, for grouping
+ * - [alphanumericKey]: lower case letters, digits and spaces only
+ * - [collapseUpper]: upper case with whitespace collapsed; parse-time normalized name
+ *
+ * Lists and sync normalize the same few hundred names over and over, so every style keeps
+ * a bounded raw -> result cache, and results are interned so equal names share one
+ * String instance across rows and styles.
+ *
+ * Thread-safe.
+ */
+object MerchantNameNormalizer {
+
+    private const val CACHE_SIZE = 1024
+
+    private val WHITESPACE_REGEX = Regex("\\s+")
+
+    // normalize
+    private val ORDER_SUFFIX_REGEX = Regex("\\*(ORDER|PAYMENT|TXN|TRANSACTION).*$")
+    private val HASH_NUMBER_REGEX = Regex("#\\d+.*$")
+    private val AT_SUFFIX_REGEX = Regex("@\\w+.*$")
+    private val DOUBLE_DASH_REGEX = Regex("-{2,}.*$")
+    private val DOUBLE_UNDERSCORE_REGEX = Regex("_{2,}.*$")
+
+    // normalizeForAlias
+    private val LTD_REGEX = Regex("\\s+(PVT\\s+)?LTD\\.?$")
+    private val LIMITED_REGEX = Regex("\\s+LIMITED$")
+    private val PRIVATE_LIMITED_REGEX = Regex("\\s+PRIVATE\\s+LIMITED$")
+    private val CORPORATE_SUFFIX_REGEX = Regex("\\s+(LLC|INC|CORP)\\.?$")
+
+    // stripSuffixes / aggressive
+    private val SPECIAL_SUFFIX_REGEX = Regex("[*#@\\-_]+.*")
+    private val CITY_REGEX = Regex("\\b(BANGALORE|MUMBAI|DELHI|CHENNAI|HYDERABAD|PUNE)\\b")
+    private val COMPANY_WORD_REGEX = Regex("\\b(PVT|LTD|LLC|INC|CORP)\\b")
+
+    // alphanumericKey
+    private val NON_ALPHANUMERIC_REGEX = Regex("[^a-zA-Z0-9\\s]")
+
+    private val normalizeCache = ResultCache()
+    private val aliasCache = ResultCache()
+    private val stripSuffixesCache = ResultCache()
+    private val aggressiveCache = ResultCache()
+    private val alphanumericCache = ResultCache()
+    private val collapseUpperCache = ResultCache()
+
+    /** "Swiggy*Order 123" -> "SWIGGY"; "AMAZON#4411" -> "AMAZON" */
+    fun normalize(name: String): String = normalizeCache.getOrPut(name) {
+        stripTransactionArtifacts(name).trim()
+    }
+
+    /** [normalize], then company suffixes removed: "ACME PVT LTD" -> "ACME" */
+    fun normalizeForAlias(name: String): String = aliasCache.getOrPut(name) {
+        // Not trimmed in between: "ACME LTD #12" keeps its LTD, as it always has
+        stripTransactionArtifacts(name)
+            .replace(LTD_REGEX, "")
+            .replace(LIMITED_REGEX, "")
+            .replace(PRIVATE_LIMITED_REGEX, "")
+            .replace(CORPORATE_SUFFIX_REGEX, "")
+            .trim()
+    }
+
+    /** "zomato-order 55" -> "ZOMATO" */
+    fun stripSuffixes(name: String): String = stripSuffixesCache.getOrPut(name) {
+        name.uppercase()
+            .replace(SPECIAL_SUFFIX_REGEX, "")
+            .replace(WHITESPACE_REGEX, " ")
+            .trim()
+    }
+
+    /** [stripSuffixes], then city names and company words removed */
+    fun aggressive(name: String): String = aggressiveCache.getOrPut(name) {
+        name.uppercase()
+            .replace(SPECIAL_SUFFIX_REGEX, "")
+            .replace(WHITESPACE_REGEX, " ")
+            .replace(CITY_REGEX, "")
+            .replace(COMPANY_WORD_REGEX, "")
+            .replace(WHITESPACE_REGEX, " ")
+            .trim()
+    }
+
+    /** "McDonald's #12" -> "mcdonalds 12" */
+    fun alphanumericKey(name: String): String = alphanumericCache.getOrPut(name) {
+        name.lowercase()
+            .replace(NON_ALPHANUMERIC_REGEX, "")
+            .replace(WHITESPACE_REGEX, " ")
+            .trim()
+    }
+
+    /** "Big  Bazaar " -> "BIG BAZAAR" */
+    fun collapseUpper(name: String): String = collapseUpperCache.getOrPut(name) {
+        collapseWhitespace(name.uppercase())
+    }
+
+    private fun stripTransactionArtifacts(name: String): String =
+        collapseWhitespace(name.uppercase())
+            .replace(ORDER_SUFFIX_REGEX, "")
+            .replace(HASH_NUMBER_REGEX, "")
+            .replace(AT_SUFFIX_REGEX, "")
+            .replace(DOUBLE_DASH_REGEX, "")
+            .replace(DOUBLE_UNDERSCORE_REGEX, "")
+
+    /** Runs of whitespace to one space, trimmed */
+    fun collapseWhitespace(text: String): String = text.replace(WHITESPACE_REGEX, " ").trim()
+
+    // Access-ordered LRU of raw name -> interned result
+    private class ResultCache {
+        private val entries = object : LinkedHashMap<String, String>(CACHE_SIZE, 0.75f, true) {
+            override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, String>?): Boolean =
+                size > CACHE_SIZE
+        }
+
+        fun getOrPut(raw: String, compute: () -> String): String {
+            synchronized(entries) { entries[raw] }?.let { return it }
+            val result = compute().intern()
+            synchronized(entries) { entries[raw] = result }
+            return result
+        }
+    }
+}
@@ -1,11 +1,9 @@
 package com.smartexpenseai.app.parsing.engine
 
-import android.content.Context
-import com.google.gson.Gson
+import com.smartexpenseai.app.parsing.generated.RuleBundle
 import com.smartexpenseai.app.parsing.models.CategorizationResult
 import com.smartexpenseai.app.parsing.models.MerchantRulesConfig
 import com.smartexpenseai.app.utils.logging.StructuredLogger
-import java.io.InputStreamReader
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -13,9 +11,10 @@ import javax.inject.Singleton
  * Rule-based engine for categorizing merchants using JSON-defined patterns
  *
  * This engine:
- * 1. Loads merchant categorization rules from merchant_rules.json
- * 2. Compiles regex patterns for efficient matching
- * 3. Categorizes merchants based on pattern matching with priority
+ * 1. Loads merchant categorization rules from merchant_rules.json (via the build-time [RuleBundle])
+ * 2. Compiles all patterns into one [MerchantCategoryMatcher] (single pass, priority-resolved)
+ * 3. Categorizes merchants based on pattern matching with priority, memoizing results in a
+ *    bounded LRU cache keyed by normalized merchant name
  * 4. Provides fallback to "Other" category for unmatched merchants
  *
  * Benefits over hardcoded rules:
@@ -25,19 +24,35 @@ import javax.inject.Singleton
  * - Single source of truth
  */
 @Singleton
-class MerchantRuleEngine @Inject constructor(
-    private val context: Context
-) {
+class MerchantRuleEngine @Inject constructor() {
 
-    private val logger = StructuredLogger("MERCHANT", "MerchantRuleEngine")
+    companion object {
+        private const val MAX_CACHED_RESULTS = 1024
+    }
 
-    private var rulesConfig: MerchantRulesConfig? = null
+    private val logger = StructuredLogger("MERCHANT", "MerchantRuleEngine")
 
     /**
-     * Lazy initialization flag
+     * Rules, their matcher and the results computed from them, published as one unit so
+     * [reload] can swap everything at once under concurrent [categorize] calls
      */
+    private class EngineState(
+        val rulesConfig: MerchantRulesConfig,
+        val matcher: MerchantCategoryMatcher
+    ) {
+        // Normalized merchant name -> result, least recently used evicted first.
+        // Guarded by its own monitor.
+        val resultCache = object : LinkedHashMap<String, CategorizationResult>(64, 0.75f, true) {
+            override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, CategorizationResult>?): Boolean =
+                size > MAX_CACHED_RESULTS
+        }
+    }
+
+    // Null until loaded, or while loading keeps failing (fallback categorization)
     @Volatile
-    private var isInitialized = false
+    private var state: EngineState? = null
+
+    private val isInitialized: Boolean get() = state != null
 
     /**
      * Initialize the rule engine by loading and compiling rules from JSON
@@ -53,48 +68,43 @@ class MerchantRuleEngine @Inject constructor(
             }
 
             try {
-                logger.info("initialize", "[INIT] Loading merchant rules from JSON...")
-
-                val inputStream = context.assets.open("merchant_rules.json")
-                val reader = InputStreamReader(inputStream)
-                val gson = Gson()
-
-                rulesConfig = gson.fromJson(reader, MerchantRulesConfig::class.java)
-                reader.close()
-
-                // Sort categories by priority (lower number = higher priority)
-                rulesConfig = rulesConfig?.copy(
-                    categories = rulesConfig?.categories?.sortedBy { it.priority } ?: emptyList()
-                )
-
-                logger.info(
-                    "initialize",
-                    "[SUCCESS] Loaded ${rulesConfig?.categories?.size ?: 0} categories with " +
-                    "${rulesConfig?.categories?.sumOf { it.patterns.size } ?: 0} total patterns"
-                )
-
-                // Pre-compile all regex patterns for better performance
-                rulesConfig?.categories?.forEach { category ->
-                    category.getCompiledPatterns() // Trigger compilation
-                    logger.debug(
-                        "initialize",
-                        "[CATEGORY] ${category.name}: ${category.patterns.size} patterns, priority ${category.priority}"
-                    )
-                }
-
-                isInitialized = true
-
+                state = loadState()
             } catch (e: Exception) {
                 logger.error(
                     "initialize",
                     "[ERROR] Failed to load merchant rules. Fallback to default categorization.",
                     e
                 )
-                // Keep isInitialized = false so fallback logic works
+                // Keep state null so fallback logic works
             }
         }
     }
 
+    private fun loadState(): EngineState {
+        logger.info("initialize", "[INIT] Loading merchant rules from generated bundle...")
+
+        // Generated from merchant_rules.json and validated at build time
+        val bundled = RuleBundle.merchantRules()
+
+        // Sort categories by priority (lower number = higher priority)
+        val rulesConfig = bundled.copy(categories = bundled.categories.sortedBy { it.priority })
+
+        logger.info(
+            "initialize",
+            "[SUCCESS] Loaded ${rulesConfig.categories.size} categories with " +
+            "${rulesConfig.categories.sumOf { it.patterns.size }} total patterns"
+        )
+
+        // Compile every pattern into one priority-resolving matcher
+        rulesConfig.categories.forEach { category ->
+            logger.debug(
+                "initialize",
+                "[CATEGORY] ${category.name}: ${category.patterns.size} patterns, priority ${category.priority}"
+            )
+        }
+        return EngineState(rulesConfig, MerchantCategoryMatcher(rulesConfig.categories))
+    }
+
     /**
      * Categorize a merchant name using the rule engine
      *
@@ -107,8 +117,10 @@ class MerchantRuleEngine @Inject constructor(
             initialize()
         }
 
-        // If still not initialized (loading failed), use fallback
-        if (rulesConfig == null) {
+        // If still not initialized (loading failed), use fallback. One read: a concurrent
+        // reload cannot mix old rules with a new cache.
+        val current = state
+        if (current == null) {
             logger.warn(
                 "categorize",
                 "[FALLBACK] Rules not loaded, using default categorization for: $merchantName"
@@ -118,38 +130,51 @@ class MerchantRuleEngine @Inject constructor(
 
         val normalizedMerchant = normalizeMerchantName(merchantName)
 
+        val resultCache = current.resultCache
+        synchronized(resultCache) { resultCache[normalizedMerchant] }?.let { return it }
+
         logger.debug(
             "categorize",
             "[MATCH] Categorizing merchant: '$merchantName' (normalized: '$normalizedMerchant')"
         )
 
-        // Try to match against all categories (sorted by priority)
-        for (category in rulesConfig!!.categories) {
-            if (category.matches(normalizedMerchant)) {
-                logger.info(
-                    "categorize",
-                    "[MATCHED] '${merchantName}' → ${category.name} (emoji: ${category.emoji})"
-                )
+        val result = categorizeNormalized(normalizedMerchant, merchantName, current.rulesConfig, current.matcher)
+        synchronized(resultCache) { resultCache[normalizedMerchant] = result }
+        return result
+    }
 
-                return CategorizationResult(
-                    categoryName = category.name,
-                    emoji = category.emoji,
-                    color = category.color,
-                    matchedPattern = findMatchedPattern(normalizedMerchant, category.patterns),
-                    confidence = 100,
-                    isFallback = false
-                )
-            }
+    private fun categorizeNormalized(
+        normalizedMerchant: String,
+        merchantName: String,
+        config: MerchantRulesConfig,
+        categoryMatcher: MerchantCategoryMatcher
+    ): CategorizationResult {
+        // One pass over all categories' patterns, highest priority wins
+        categoryMatcher.match(normalizedMerchant)?.let { match ->
+            val category = match.category
+            logger.info(
+                "categorize",
+                "[MATCHED] '${merchantName}' → ${category.name} (emoji: ${category.emoji})"
+            )
+
+            return CategorizationResult(
+                categoryName = category.name,
+                emoji = category.emoji,
+                color = category.color,
+                matchedPattern = match.pattern,
+                confidence = 100,
+                isFallback = false
+            )
         }
 
         // No match found - use fallback category
         logger.debug(
             "categorize",
-            "[NO_MATCH] No pattern matched for '$merchantName', using fallback: ${rulesConfig!!.fallbackCategory}"
+            "[NO_MATCH] No pattern matched for '$merchantName', using fallback: ${config.fallbackCategory}"
         )
 
         return CategorizationResult(
-            categoryName = rulesConfig!!.fallbackCategory,
+            categoryName = config.fallbackCategory,
             emoji = "📂",
             color = "#607d8b",
             matchedPattern = null,
@@ -162,25 +187,8 @@ class MerchantRuleEngine @Inject constructor(
      * Normalize merchant name for consistent matching
      * Same logic as existing normalization in the codebase
      */
-    private fun normalizeMerchantName(merchantName: String): String {
-        return merchantName.uppercase()
-            .replace(Regex("[*#@\\-_]+.*"), "") // Remove suffixes after special chars
-            .replace(Regex("\\s+"), " ") // Normalize spaces
-            .trim()
-    }
-
-    /**
-     * Find which specific pattern matched (for debugging/logging)
-     */
-    private fun findMatchedPattern(merchantName: String, patterns: List<String>): String? {
-        return patterns.find { pattern ->
-            try {
-                Regex(pattern, RegexOption.IGNORE_CASE).containsMatchIn(merchantName)
-            } catch (e: Exception) {
-                false
-            }
-        }
-    }
+    private fun normalizeMerchantName(merchantName: String): String =
+        MerchantNameNormalizer.stripSuffixes(merchantName)
 
     /**
      * Fallback categorization when rules can't be loaded
@@ -225,7 +233,7 @@ class MerchantRuleEngine @Inject constructor(
             initialize()
         }
 
-        return rulesConfig?.categories?.map { it.name } ?: emptyList()
+        return state?.rulesConfig?.categories?.map { it.name } ?: emptyList()
     }
 
     /**
@@ -236,28 +244,37 @@ class MerchantRuleEngine @Inject constructor(
             initialize()
         }
 
-        val category = rulesConfig?.categories?.find { it.name == categoryName }
+        val category = state?.rulesConfig?.categories?.find { it.name == categoryName }
         return category?.let { Triple(it.name, it.emoji, it.color) }
     }
 
     /**
-     * Reload rules from JSON (useful for hot-reloading during development)
+     * Reload rules (useful for hot-reloading during development). The new rules, matcher
+     * and an empty result cache replace the old ones in one step; calls already running
+     * finish on the old state. If loading fails, the old state stays.
      */
     fun reload() {
-        isInitialized = false
-        rulesConfig = null
-        initialize()
-        logger.info("reload", "[RELOAD] Merchant rules reloaded successfully")
+        synchronized(this) {
+            try {
+                state = loadState()
+                logger.info("reload", "[RELOAD] Merchant rules reloaded successfully")
+            } catch (e: Exception) {
+                logger.error("reload", "[ERROR] Failed to reload merchant rules, keeping current rules", e)
+            }
+        }
     }
 
     /**
      * Get rules statistics for debugging
      */
     fun getStatistics(): Map<String, Any> {
+        val current = state
+        val rulesConfig = current?.rulesConfig
         return mapOf(
-            "initialized" to isInitialized,
+            "initialized" to (current != null),
             "categories_count" to (rulesConfig?.categories?.size ?: 0),
             "total_patterns" to (rulesConfig?.categories?.sumOf { it.patterns.size } ?: 0),
+            "cached_results" to (current?.resultCache?.let { synchronized(it) { it.size } } ?: 0),
             "version" to (rulesConfig?.version ?: 0),
             "fallback_category" to (rulesConfig?.fallbackCategory ?: "Other")
         )
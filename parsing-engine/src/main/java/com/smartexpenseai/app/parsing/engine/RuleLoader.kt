@@ -0,0 +1,323 @@
+package com.smartexpenseai.app.parsing.engine
+
+import com.google.gson.Gson
+import com.google.gson.JsonParseException
+import com.smartexpenseai.app.parsing.models.BankRulesSchema
+import com.smartexpenseai.app.utils.logging.StructuredLogger
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+import java.security.MessageDigest
+import java.util.concurrent.atomic.AtomicReference
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Thread-safe loader for bank SMS parsing rules.
+ *
+ * Rules are published as immutable [RuleSnapshot]s (rules plus compiled patterns)
+ * through one atomic reference. A parse reads the current snapshot once, so a swap never
+ * affects a parse in flight; it finishes on the snapshot it started with.
+ *
+ * Rules come from a [RuleSource]. The bundled rules are the generated RuleBundle
+ * (rules/bank_rules.json at build time; no JSON read, no Gson). An override (same JSON
+ * schema, kept in app storage by the app's source) takes precedence when present and
+ * valid, so rule fixes can ship without an app update; [applyOverride] validates and
+ * swaps one in while parsing is running.
+ */
+@Singleton
+class RuleLoader @Inject constructor(
+    private val source: RuleSource
+) {
+    private val logger = StructuredLogger("SMS_PARSING", "RuleLoader")
+
+    // Current snapshot; null until the first load (or after clearCache)
+    private val snapshotRef = AtomicReference<RuleSnapshot?>(null)
+
+    // Single-flight loading, and serializes override writes with loads
+    private val loadMutex = Mutex()
+
+    companion object {
+        private const val SUPPORTED_VERSION = 1
+        private const val TAG = "RuleLoader"
+    }
+
+    private val bundledVersion = "${source.bundledChecksum.take(16)}-${source.buildId}"
+
+    /**
+     * Identifies the rules and the parser build applying them: changes whenever
+     * bank_rules.json or the override file changes, or the app is updated. Persisted parse
+     * outcomes are only reused under the same version.
+     */
+    suspend fun rulesVersion(): String =
+        loadSnapshot().getOrNull()?.version ?: bundledVersion
+
+    /**
+     * Current rules snapshot, loading it on first use (override file if valid, otherwise
+     * the bundle)
+     */
+    suspend fun loadSnapshot(): Result<RuleSnapshot> {
+        snapshotRef.get()?.let { return Result.success(it) }
+        return withContext(Dispatchers.IO) {
+            try {
+                loadMutex.withLock {
+                    // Another caller may have loaded the rules while this one waited
+                    snapshotRef.get()?.let { return@withContext Result.success(it) }
+
+                    val snapshot = loadOverrideSnapshot() ?: bundledSnapshot()
+                    snapshotRef.set(snapshot)
+                    Result.success(snapshot)
+                }
+            } catch (e: ValidationException) {
+                Result.failure(e)
+            } catch (e: Exception) {
+                Result.failure(RuleLoadException("Unexpected error loading rules: ${e.message}", e))
+            }
+        }
+    }
+
+    /**
+     * Load bank rules (the current snapshot's)
+     */
+    suspend fun loadRules(): Result<BankRulesSchema> = loadSnapshot().map { it.rules }
+
+    /**
+     * Load the rules and compile every pattern, for callers that can pay the cost up front
+     * (app start) so the first real parse does not. Snapshots compile all their patterns
+     * when built.
+     */
+    suspend fun warmUp() {
+        loadSnapshot()
+    }
+
+    /**
+     * Validate [json] as bank rules, store it as the override and make it the
+     * current snapshot. Parses already running finish on the previous snapshot.
+     * Returns the new [rulesVersion]; on failure nothing changes.
+     */
+    suspend fun applyOverride(json: String): Result<String> = withContext(Dispatchers.IO) {
+        try {
+            loadMutex.withLock {
+                val bytes = json.toByteArray(Charsets.UTF_8)
+                val snapshot = overrideSnapshot(bytes)
+                source.writeOverride(bytes)
+                snapshotRef.set(snapshot)
+                logger.info("applyOverride", "Bank rules override ${snapshot.version} is now active")
+                Result.success(snapshot.version)
+            }
+        } catch (e: ValidationException) {
+            Result.failure(e)
+        } catch (e: RegexCompilationException) {
+            Result.failure(e)
+        } catch (e: Exception) {
+            Result.failure(RuleLoadException("Could not apply rules override: ${e.message}", e))
+        }
+    }
+
+    /**
+     * Delete the override and go back to the bundled rules
+     */
+    suspend fun clearOverride() = withContext(Dispatchers.IO) {
+        loadMutex.withLock {
+            if (!source.deleteOverride()) {
+                logger.warn("clearOverride", "Could not delete rules override", null)
+            }
+            snapshotRef.set(bundledSnapshot())
+        }
+    }
+
+    /**
+     * Get a compiled regex for a rules pattern, from the current snapshot (compiled on
+     * demand if the pattern is not part of it)
+     */
+    fun getCompiledRegex(pattern: String): Regex =
+        snapshotRef.get()?.regex(pattern) ?: RuleSnapshot.compile(pattern)
+
+    /**
+     * Per-pattern attempts, hits and average time (from sampled per-pattern calls; "-" when
+     * none was timed) for every list that has been used, flagging dead patterns (tried but
+     * never matched). For rule authors.
+     */
+    fun dumpPatternStats(): String {
+        val snapshot = snapshotRef.get() ?: return "No pattern statistics yet"
+        val report = StringBuilder("Pattern statistics for rules ${snapshot.version} (DEAD = tried, never matched)\n")
+        var deadCount = 0
+        snapshot.patternLists.all().forEach { list ->
+            val stats = list.stats()
+            if (stats.none { it.attempts > 0 }) return@forEach
+            report.append(list.name).append('\n')
+            stats.forEach { stat ->
+                // Combined evaluations are not timed
+                val avg = if (stat.timedAttempts == 0L) "-" else "${stat.averageNanos / 1000}us"
+                if (stat.isDead) deadCount++
+                report.append("  [${stat.fileIndex}] ")
+                    .append("attempts=${stat.attempts} hits=${stat.hits} avg=$avg ")
+                    .append(if (stat.isDead) "DEAD " else "")
+                    .append(stat.pattern)
+                    .append('\n')
+            }
+        }
+        report.append("Dead patterns: $deadCount")
+        return report.toString()
+    }
+
+    /**
+     * Drop the current snapshot so the next load rebuilds it (and re-reads the override).
+     * Parses holding the old snapshot are unaffected.
+     */
+    fun clearCache() {
+        snapshotRef.set(null)
+    }
+
+    /**
+     * Get cache statistics for debugging
+     */
+    fun getCacheStats(): CacheStats {
+        val snapshot = snapshotRef.get()
+        return CacheStats(
+            rulesLoaded = snapshot != null,
+            compiledPatternsCount = snapshot?.compiledPatternCount ?: 0,
+            isValidated = snapshot != null,
+            version = snapshot?.version,
+            fromOverride = snapshot?.source == RuleSnapshot.Source.OVERRIDE
+        )
+    }
+
+    private fun bundledSnapshot(): RuleSnapshot {
+        // Build-time bundle: already validated by generateRuleBundle, re-checked here
+        // because it is cheap and guards against a stale generated file
+        val rules = source.bundledRules()
+        validateRules(rules)
+        return RuleSnapshot(rules, bundledVersion, RuleSnapshot.Source.BUNDLED)
+    }
+
+    // Override as a snapshot, or null when there is none or it is invalid
+    private fun loadOverrideSnapshot(): RuleSnapshot? {
+        return try {
+            val bytes = source.readOverride() ?: return null
+            overrideSnapshot(bytes).also {
+                logger.info("loadOverrideSnapshot", "Using bank rules override ${it.version}")
+            }
+        } catch (e: Exception) {
+            logger.warn("loadOverrideSnapshot", "Ignoring invalid bank rules override", e.message)
+            null
+        }
+    }
+
+    private fun overrideSnapshot(bytes: ByteArray): RuleSnapshot {
+        val rules = try {
+            Gson().fromJson(String(bytes, Charsets.UTF_8), BankRulesSchema::class.java)
+        } catch (e: JsonParseException) {
+            throw ValidationException("Rules override is not valid JSON: ${e.message}")
+        } ?: throw ValidationException("Rules override is empty")
+        try {
+            validateRules(rules)
+        } catch (e: NullPointerException) {
+            // Gson leaves missing required fields null
+            throw ValidationException("Rules override is missing required fields")
+        }
+        val checksum = MessageDigest.getInstance("SHA-256").digest(bytes)
+            .joinToString("") { "%02x".format(it) }
+        val version = "override-${checksum.take(16)}-${source.buildId}"
+        return try {
+            RuleSnapshot(rules, version, RuleSnapshot.Source.OVERRIDE)
+        } catch (e: NullPointerException) {
+            throw ValidationException("Rules override is missing required fields")
+        }
+    }
+
+    /**
+     * Validate the loaded rules schema. Mirrors validateBankRules in rule-bundle.gradle, so
+     * an override is held to the same checks as the bundled JSON (regexes are compiled
+     * when the snapshot is built). Gson leaves missing fields null whatever their Kotlin
+     * type, so required fields are checked with [present].
+     */
+    private fun validateRules(rules: BankRulesSchema) {
+        // Check version compatibility
+        if (rules.version != SUPPORTED_VERSION) {
+            throw ValidationException(
+                "Unsupported schema version: ${rules.version}. Expected: $SUPPORTED_VERSION"
+            )
+        }
+
+        // Ensure we have banks
+        if (rules.banks.isEmpty()) {
+            throw ValidationException("No banks defined in rules file")
+        }
+
+        // Validate each bank rule
+        rules.banks.forEach { bank ->
+            if (!present(bank.code) || bank.code.isBlank()) {
+                throw ValidationException("Bank code cannot be blank")
+            }
+            if (!present(bank.displayName) || bank.displayName.isBlank()) {
+                throw ValidationException("Bank ${bank.code} display name cannot be blank")
+            }
+            if (bank.senderPatterns.isEmpty()) {
+                throw ValidationException("Bank ${bank.code} has no sender patterns")
+            }
+            if (bank.patterns.amount.isEmpty()) {
+                throw ValidationException("Bank ${bank.code} has no amount patterns")
+            }
+            if (bank.patterns.merchant.isEmpty()) {
+                throw ValidationException("Bank ${bank.code} has no merchant patterns")
+            }
+
+            // Validate confidence weights sum to reasonable value
+            bank.confidenceWeights?.let { weights ->
+                val sum = weights.senderMatch + weights.amountExtraction +
+                         weights.merchantExtraction + weights.dateExtraction +
+                         weights.referenceNumberExtraction
+                if (sum < 0.9f || sum > 1.1f) {
+                    throw ValidationException(
+                        "Bank ${bank.code} confidence weights sum to $sum (should be ~1.0)"
+                    )
+                }
+            }
+        }
+
+        // Validate fallback patterns exist
+        if (rules.fallbackPatterns.amount.isEmpty()) {
+            throw ValidationException("No fallback amount patterns defined")
+        }
+        if (rules.fallbackPatterns.merchant.isEmpty()) {
+            throw ValidationException("No fallback merchant patterns defined")
+        }
+        if (!present(rules.fallbackPatterns.debitKeywords) || rules.fallbackPatterns.debitKeywords.any { !present(it) }) {
+            throw ValidationException("Fallback debit keywords missing")
+        }
+        if (!present(rules.fallbackPatterns.creditKeywords) || rules.fallbackPatterns.creditKeywords.any { !present(it) }) {
+            throw ValidationException("Fallback credit keywords missing")
+        }
+    }
+
+    // Runtime null check for values Kotlin types as non-null but Gson may leave null
+    private fun present(value: Any?): Boolean = value != null
+
+    /**
+     * Cache statistics for debugging
+     */
+    data class CacheStats(
+        val rulesLoaded: Boolean,
+        val compiledPatternsCount: Int,
+        val isValidated: Boolean,
+        val version: String? = null,
+        val fromOverride: Boolean = false
+    )
+}
+
+/**
+ * Exception thrown when rules fail to load
+ */
+class RuleLoadException(message: String, cause: Throwable? = null) : Exception(message, cause)
+
+/**
+ * Exception thrown when rules fail validation
+ */
+class ValidationException(message: String) : Exception(message)
+
+/**
+ * Exception thrown when regex compilation fails
+ */
+class RegexCompilationException(message: String, cause: Throwable? = null) : Exception(message, cause)
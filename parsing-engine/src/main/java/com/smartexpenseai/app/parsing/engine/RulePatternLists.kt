@@ -0,0 +1,80 @@
+package com.smartexpenseai.app.parsing.engine
+
+import com.smartexpenseai.app.parsing.models.BankRule
+import com.smartexpenseai.app.parsing.models.BankRulesSchema
+import java.util.IdentityHashMap
+
+/**
+ * [CountedPatternList]s for every bank's extraction fields and for the fallback
+ * patterns, built once per [RuleSnapshot].
+ */
+class RulePatternLists(val rules: BankRulesSchema) {
+
+    class FieldLists(
+        owner: String,
+        amount: List<String>,
+        merchant: List<String>,
+        date: List<String>,
+        transactionType: List<String>,
+        referenceNumber: List<String>
+    ) {
+        val amount = CountedPatternList("$owner.amount", amount)
+        val merchant = CountedPatternList("$owner.merchant", merchant)
+        val date = CountedPatternList("$owner.date", date)
+        val transactionType = CountedPatternList("$owner.transaction_type", transactionType)
+        val referenceNumber = CountedPatternList("$owner.reference_number", referenceNumber)
+
+        fun all(): List<CountedPatternList> = listOf(amount, merchant, date, transactionType, referenceNumber)
+    }
+
+    // BankRule is a data class; identity keeps lookups O(1) without hashing its lists
+    private val byBank = IdentityHashMap<BankRule, FieldLists>()
+
+    val fallback = FieldLists(
+        owner = "fallback",
+        amount = rules.fallbackPatterns.amount,
+        merchant = rules.fallbackPatterns.merchant,
+        date = emptyList(),
+        transactionType = emptyList(),
+        referenceNumber = rules.fallbackPatterns.referenceNumber.orEmpty()
+    )
+
+    init {
+        rules.banks.forEach { bank ->
+            byBank[bank] = FieldLists(
+                owner = bank.code,
+                amount = bank.patterns.amount,
+                merchant = bank.patterns.merchant,
+                date = bank.patterns.date.orEmpty(),
+                transactionType = bank.patterns.transactionType.orEmpty(),
+                referenceNumber = bank.patterns.referenceNumber.orEmpty()
+            )
+        }
+    }
+
+    /**
+     * Counts a CombinedFieldMatcher result over one field's [bankList] patterns followed
+     * by its [fallbackList] patterns (the order BankFieldExtractors combines them in):
+     * the bank list is tried in full before any fallback pattern.
+     */
+    fun recordCombined(
+        hit: CombinedFieldMatcher.Hit?,
+        bankList: CountedPatternList?,
+        fallbackList: CountedPatternList?
+    ) {
+        val bankSize = bankList?.patterns?.size ?: 0
+        val index = hit?.patternIndex
+        if (bankList != null && index != null && index < bankSize) {
+            bankList.record(index)
+            return
+        }
+        bankList?.record(null)
+        fallbackList?.record(index?.minus(bankSize))
+    }
+
+    /** Lists for [bank], or null for a sender that matched no bank. */
+    fun forBank(bank: BankRule?): FieldLists? = bank?.let { byBank[it] }
+
+    fun all(): List<CountedPatternList> =
+        rules.banks.flatMap { byBank.getValue(it).all() } + fallback.all()
+}
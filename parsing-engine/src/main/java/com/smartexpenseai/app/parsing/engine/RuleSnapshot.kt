@@ -0,0 +1,65 @@
+package com.smartexpenseai.app.parsing.engine
+
+import com.smartexpenseai.app.parsing.models.BankRulesSchema
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * One immutable, validated version of the bank rules together with every pattern they
+ * use, already compiled. [RuleLoader] publishes snapshots atomically; a parse takes the
+ * current snapshot once and uses only that, so swapping in new rules never disturbs a
+ * parse that is already running.
+ *
+ * Building a snapshot compiles every pattern, so an invalid pattern fails here with
+ * [RegexCompilationException] instead of while parsing.
+ */
+class RuleSnapshot(
+    val rules: BankRulesSchema,
+    /** Identifies these rules and the parser build; see [RuleLoader.rulesVersion]. */
+    val version: String,
+    val source: Source
+) {
+
+    enum class Source { BUNDLED, OVERRIDE }
+
+    private val compiled: Map<String, Regex>
+
+    // Patterns outside the rules (none today); compiled on demand, never part of [rules]
+    private val extraPatterns = ConcurrentHashMap<String, Regex>()
+
+    /** Counted extraction pattern lists (file order, hit statistics) for these rules. */
+    val patternLists: RulePatternLists
+
+    init {
+        val patterns = LinkedHashMap<String, Regex>()
+        fun add(list: List<String>?) = list?.forEach { pattern ->
+            if (pattern !in patterns) patterns[pattern] = compile(pattern)
+        }
+        rules.banks.forEach { bank ->
+            add(bank.senderPatterns)
+            add(bank.patterns.amount)
+            add(bank.patterns.merchant)
+            add(bank.patterns.date)
+            add(bank.patterns.transactionType)
+            add(bank.patterns.referenceNumber)
+        }
+        add(rules.fallbackPatterns.amount)
+        add(rules.fallbackPatterns.merchant)
+        add(rules.fallbackPatterns.referenceNumber)
+        compiled = patterns
+        patternLists = RulePatternLists(rules)
+    }
+
+    val compiledPatternCount: Int get() = compiled.size + extraPatterns.size
+
+    fun regex(pattern: String): Regex =
+        compiled[pattern] ?: extraPatterns.getOrPut(pattern) { compile(pattern) }
+
+    companion object {
+        fun compile(pattern: String): Regex =
+            try {
+                Regex(pattern, RegexOption.IGNORE_CASE)
+            } catch (e: Exception) {
+                throw RegexCompilationException("Failed to compile pattern: $pattern", e)
+            }
+    }
+}
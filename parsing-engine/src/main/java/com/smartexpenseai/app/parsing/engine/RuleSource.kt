@@ -0,0 +1,55 @@
+package com.smartexpenseai.app.parsing.engine
+
+import com.smartexpenseai.app.parsing.generated.RuleBundle
+import com.smartexpenseai.app.parsing.models.BankRulesSchema
+
+/**
+ * Where [RuleLoader] gets bank rules from: the rules bundled with the build, plus an
+ * optional override holding rules JSON in the bank_rules.json schema.
+ *
+ * Keeps the loader free of Android: the app stores the override in its files directory,
+ * JVM tools and benchmarks use [BundledRuleSource] as is.
+ */
+interface RuleSource {
+
+    /** Identifies the parser build (the app's version code); part of every rules version */
+    val buildId: String
+
+    /** SHA-256 (hex) of the JSON the bundled rules were generated from */
+    val bundledChecksum: String
+
+    fun bundledRules(): BankRulesSchema
+
+    /** Override rules JSON, or null when there is none */
+    fun readOverride(): ByteArray?
+
+    /** Store [bytes] as the override, replacing any previous one; never leaves a partial write */
+    fun writeOverride(bytes: ByteArray)
+
+    /** Remove the override. False if there is one and it could not be removed. */
+    fun deleteOverride(): Boolean
+}
+
+/**
+ * The generated [RuleBundle], with an override that only lives in memory
+ */
+open class BundledRuleSource(override val buildId: String) : RuleSource {
+
+    @Volatile
+    private var override: ByteArray? = null
+
+    override val bundledChecksum: String get() = RuleBundle.BANK_RULES_SHA256
+
+    override fun bundledRules(): BankRulesSchema = RuleBundle.bankRules()
+
+    override fun readOverride(): ByteArray? = override
+
+    override fun writeOverride(bytes: ByteArray) {
+        override = bytes.copyOf()
+    }
+
+    override fun deleteOverride(): Boolean {
+        override = null
+        return true
+    }
+}
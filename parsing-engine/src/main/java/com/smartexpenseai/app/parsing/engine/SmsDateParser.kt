@@ -0,0 +1,157 @@
+package com.smartexpenseai.app.parsing.engine
+
+import java.util.TimeZone
+
+/**
+ * Hand-written parser for the dates bank SMS carry ("04-07-25", "04/07/2025",
+ * "04.07.25", "04-Jul-25", "4 July 2025").
+ *
+ * Replaces a cascade of up to 22 SimpleDateFormat attempts with one left-to-right scan
+ * that accepts exactly what that cascade accepted:
+ * - day, separator, month, the same separator, year
+ * - numeric months with '-', '/' or '.'; month names (3-letter or full, any case)
+ *   with '-', '/' or ' '
+ * - a two-digit year is 20yy, any other digit count is read as written
+ * - spaces before a numeric field are skipped and text after the year (a time) is ignored
+ * - the day must exist in that month
+ *
+ * Unlike the old cascade, years outside [MIN_YEAR]..[MAX_YEAR] are rejected, so a
+ * typo such as "12-05-202" falls back to the SMS timestamp instead of 202 AD.
+ *
+ * Stateless and allocation-free; safe to call from any thread.
+ */
+object SmsDateParser {
+
+    /** Returned by [parse] when the text is not a date. */
+    const val NO_DATE = 0
+
+    /** Returned by [parseEpochMillis] when the text is not a date. */
+    const val NO_DATE_MILLIS = Long.MIN_VALUE
+
+    private const val MIN_YEAR = 1900
+    private const val MAX_YEAR = 2099
+    private const val MAX_FIELD_DIGITS = 9
+    private const val MILLIS_PER_DAY = 86_400_000L
+
+    private val MONTH_NAMES = arrayOf(
+        "january", "february", "march", "april", "may", "june",
+        "july", "august", "september", "october", "november", "december"
+    )
+
+    /**
+     * Date at the start of [text], packed as yyyyMMdd (20250704), or [NO_DATE].
+     */
+    fun parse(text: CharSequence): Int {
+        val length = text.length
+
+        // Day
+        var i = skipBlanks(text, 0)
+        val dayStart = i
+        var day = 0
+        while (i < length && isDigit(text[i]) && i - dayStart < MAX_FIELD_DIGITS) {
+            day = day * 10 + (text[i] - '0')
+            i++
+        }
+        if (i == dayStart || i >= length) return NO_DATE
+        val separator = text[i++]
+
+        // Month: digits (blanks before them allowed) or a month name (no blanks)
+        val digitsStart = skipBlanks(text, i)
+        var month = 0
+        if (digitsStart < length && isDigit(text[digitsStart])) {
+            if (separator != '-' && separator != '/' && separator != '.') return NO_DATE
+            i = digitsStart
+            val monthStart = i
+            while (i < length && isDigit(text[i]) && i - monthStart < MAX_FIELD_DIGITS) {
+                month = month * 10 + (text[i] - '0')
+                i++
+            }
+        } else {
+            if (separator != '-' && separator != '/' && separator != ' ') return NO_DATE
+            var matchedLength = 0
+            for (m in MONTH_NAMES.indices) {
+                val name = MONTH_NAMES[m]
+                val nameLength = when {
+                    matchesIgnoreCase(text, i, name, name.length) -> name.length
+                    matchesIgnoreCase(text, i, name, 3) -> 3
+                    else -> 0
+                }
+                if (nameLength > matchedLength) {
+                    matchedLength = nameLength
+                    month = m + 1
+                }
+            }
+            if (matchedLength == 0) return NO_DATE
+            i += matchedLength
+        }
+        if (i >= length || text[i] != separator) return NO_DATE
+        i++
+
+        // Year
+        i = skipBlanks(text, i)
+        val yearStart = i
+        var year = 0
+        while (i < length && isDigit(text[i]) && i - yearStart < MAX_FIELD_DIGITS) {
+            year = year * 10 + (text[i] - '0')
+            i++
+        }
+        val yearDigits = i - yearStart
+        if (yearDigits == 0 || (i < length && isDigit(text[i]))) return NO_DATE
+        if (yearDigits == 2) year += 2000
+
+        if (year < MIN_YEAR || year > MAX_YEAR) return NO_DATE
+        if (month < 1 || month > 12) return NO_DATE
+        if (day < 1 || day > daysInMonth(year, month)) return NO_DATE
+        return year * 10_000 + month * 100 + day
+    }
+
+    /**
+     * Local midnight of the date in [text] as epoch millis, or [NO_DATE_MILLIS].
+     */
+    fun parseEpochMillis(text: CharSequence, timeZone: TimeZone): Long {
+        val date = parse(text)
+        return if (date == NO_DATE) NO_DATE_MILLIS else toEpochMillis(date, timeZone)
+    }
+
+    /**
+     * Local midnight in [timeZone] of a packed yyyyMMdd date from [parse].
+     */
+    fun toEpochMillis(date: Int, timeZone: TimeZone): Long {
+        val utcMidnight = epochDay(date / 10_000, date / 100 % 100, date % 100) * MILLIS_PER_DAY
+        // Offset at local midnight, not at UTC midnight (they differ around DST changes)
+        val guess = utcMidnight - timeZone.getOffset(utcMidnight)
+        return utcMidnight - timeZone.getOffset(guess)
+    }
+
+    // Days since 1970-01-01 in the proleptic Gregorian calendar
+    private fun epochDay(year: Int, month: Int, day: Int): Long {
+        val y = if (month <= 2) year - 1 else year
+        val era = y / 400
+        val yearOfEra = y - era * 400
+        val dayOfYear = (153 * (if (month > 2) month - 3 else month + 9) + 2) / 5 + day - 1
+        val dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear
+        return era * 146_097L + dayOfEra - 719_468L
+    }
+
+    private fun daysInMonth(year: Int, month: Int): Int = when (month) {
+        2 -> if (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) 29 else 28
+        4, 6, 9, 11 -> 30
+        else -> 31
+    }
+
+    private fun skipBlanks(text: CharSequence, from: Int): Int {
+        var i = from
+        while (i < text.length && (text[i] == ' ' || text[i] == '\t')) i++
+        return i
+    }
+
+    private fun isDigit(c: Char): Boolean = c in '0'..'9'
+
+    private fun matchesIgnoreCase(text: CharSequence, from: Int, name: String, count: Int): Boolean {
+        if (from + count > text.length) return false
+        for (j in 0 until count) {
+            if (Character.toLowerCase(text[from + j]) != name[j]) return false
+        }
+        return true
+    }
+}
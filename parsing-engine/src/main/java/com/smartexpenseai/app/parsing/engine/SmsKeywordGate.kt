@@ -0,0 +1,131 @@
+package com.smartexpenseai.app.parsing.engine
+
+import com.smartexpenseai.app.parsing.models.BankRulesSchema
+import java.util.BitSet
+
+/**
+ * Single-pass keyword classification of an SMS body, run before any field extraction.
+ *
+ * One [KeywordAutomaton] holds the literal anchors of every [NonTransactionRule] plus the
+ * fallback debit/credit keywords. The body is walked once, driving two automaton states
+ * side by side:
+ * - the lower-cased body, for the rejection anchors and the card-reference keyword check
+ * - the lower-cased body with punctuation read as spaces, for the debit/credit fallback
+ *   (this is the view extractTransactionType used to build with a regex replace)
+ *
+ * A rejection regex only runs when one of its anchors occurs, so OTPs and promos are
+ * rejected after a single scan and ordinary transactions never touch those regexes.
+ *
+ * Built for one immutable [rules] instance; thread-safe.
+ */
+class SmsKeywordGate(
+    val rules: BankRulesSchema,
+    private val nonTransactionRules: List<NonTransactionRule>
+) {
+
+    /**
+     * A rejection rule. Every match of [pattern] must contain at least one of [anchors]
+     * (lower-case literals); otherwise the gate would skip messages the regex rejects.
+     */
+    class NonTransactionRule(
+        val reason: String,
+        val pattern: Regex,
+        val anchors: List<String>
+    )
+
+    class Result(
+        /** Reason of the first matching rejection rule, in rule order, or null. */
+        val nonTransactionReason: String?,
+        /** Any debit or credit keyword in the lower-cased body. */
+        val hasTransactionKeyword: Boolean,
+        /** "debit" / "credit" from the keyword fallback ("debit" when neither matches). */
+        val fallbackType: String
+    )
+
+    private val automaton: KeywordAutomaton
+    private val anchorRule: IntArray // keyword id -> rule index, for ids below firstDebitId
+    private val unanchoredRules = BitSet()
+    private val firstDebitId: Int
+    private val firstCreditId: Int
+    private val emptyKeywordIds: List<Int>
+
+    init {
+        val keywords = ArrayList<String>()
+        val ruleOfAnchor = ArrayList<Int>()
+        nonTransactionRules.forEachIndexed { ruleIndex, rule ->
+            if (rule.anchors.isEmpty()) unanchoredRules.set(ruleIndex)
+            rule.anchors.forEach { anchor ->
+                keywords.add(anchor)
+                ruleOfAnchor.add(ruleIndex)
+            }
+        }
+        anchorRule = ruleOfAnchor.toIntArray()
+        firstDebitId = keywords.size
+        keywords.addAll(rules.fallbackPatterns.debitKeywords)
+        firstCreditId = keywords.size
+        keywords.addAll(rules.fallbackPatterns.creditKeywords)
+
+        // String.contains("") is always true; keep that behaviour for empty keywords
+        emptyKeywordIds = keywords.indices.filter { keywords[it].isEmpty() }
+        automaton = KeywordAutomaton(keywords)
+    }
+
+    fun classify(body: String): Result {
+        val rawHits = BitSet(automaton.keywordCount)
+        val strippedHits = BitSet(automaton.keywordCount)
+        emptyKeywordIds.forEach {
+            rawHits.set(it)
+            strippedHits.set(it)
+        }
+
+        var rawState = automaton.root
+        var strippedState = automaton.root
+        for (c in body) {
+            val lower = Character.toLowerCase(c)
+            rawState = automaton.step(rawState, lower)
+            automaton.matchesAt(rawState).forEach { rawHits.set(it) }
+
+            strippedState = automaton.step(strippedState, strippedChar(c, lower))
+            automaton.matchesAt(strippedState).forEach { strippedHits.set(it) }
+        }
+
+        return Result(
+            nonTransactionReason = firstRejection(body, rawHits),
+            hasTransactionKeyword = rawHits.nextSetBit(firstDebitId).let { it >= 0 },
+            fallbackType = when {
+                hasHitIn(strippedHits, firstDebitId, firstCreditId) -> "debit"
+                hasHitIn(strippedHits, firstCreditId, automaton.keywordCount) -> "credit"
+                else -> "debit"
+            }
+        )
+    }
+
+    private fun firstRejection(body: String, rawHits: BitSet): String? {
+        val candidates = unanchoredRules.clone() as BitSet
+        var id = rawHits.nextSetBit(0)
+        while (id in 0 until firstDebitId) {
+            candidates.set(anchorRule[id])
+            id = rawHits.nextSetBit(id + 1)
+        }
+
+        var ruleIndex = candidates.nextSetBit(0)
+        while (ruleIndex >= 0) {
+            val rule = nonTransactionRules[ruleIndex]
+            if (rule.pattern.containsMatchIn(body)) return rule.reason
+            ruleIndex = candidates.nextSetBit(ruleIndex + 1)
+        }
+        return null
+    }
+
+    private fun hasHitIn(hits: BitSet, fromId: Int, toId: Int): Boolean {
+        val id = hits.nextSetBit(fromId)
+        return id in fromId until toId
+    }
+
+    // Mirrors body.replace(Regex("[^A-Za-z0-9\\s]"), " ").lowercase()
+    private fun strippedChar(c: Char, lower: Char): Char = when (c) {
+        in 'A'..'Z', in 'a'..'z', in '0'..'9' -> lower
+        ' ', '\t', '\n', '\u000B', '\u000C', '\r' -> c
+        else -> ' '
+    }
+}
@@ -0,0 +1,514 @@
+package com.smartexpenseai.app.parsing.engine
+
+import com.smartexpenseai.app.parsing.engine.SmsKeywordGate.NonTransactionRule
+import com.smartexpenseai.app.parsing.models.ConfidenceScore
+import com.smartexpenseai.app.utils.logging.StructuredLogger
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.launch
+import java.util.*
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * The SMS parsing pipeline on one [RuleSnapshot]: keyword gate, sender match, field
+ * extraction, validation and confidence score.
+ *
+ * Plain JVM code with no Android or database types, so it can be benchmarked and tested
+ * off-device. The app parses through UnifiedSMSParser, which takes the snapshot from
+ * [RuleLoader] and turns [Outcome.Success] into a TransactionEntity.
+ *
+ * Thread-safe.
+ */
+class SmsParseEngine(
+    private val confidenceCalculator: ConfidenceCalculator
+) {
+    private val logger = StructuredLogger("SMS_PARSING", "SmsParseEngine")
+
+    // Rebuilt only when a different rules snapshot is passed in
+    @Volatile
+    private var compiledRules: CompiledRules? = null
+
+    private class CompiledRules(
+        val snapshot: RuleSnapshot,
+        val senderIndex: BankSenderIndex,
+        val keywordGate: SmsKeywordGate,
+        val patternLists: RulePatternLists,
+        val fieldExtractors: BankFieldExtractors
+    )
+
+    /**
+     * How field patterns are evaluated.
+     * - [COMBINED]: each field's pattern list runs as one [CombinedFieldMatcher] (one or
+     *   two scans of the body per field); lists that cannot be combined use PER_PATTERN.
+     *   The winning pattern is counted into the counted lists.
+     * - [PER_PATTERN]: one find() per pattern through the counted lists
+     * Both give the same results and the same attempt/hit counts in
+     * [RuleLoader.dumpPatternStats]; only PER_PATTERN measures time per pattern.
+     */
+    enum class ExtractionMode { COMBINED, PER_PATTERN }
+
+    @Volatile
+    var extractionMode: ExtractionMode = ExtractionMode.COMBINED
+
+    companion object {
+        // Smallest chunk handed to a worker in parseBatch; below this, dispatch costs dominate
+        private const val MIN_BATCH_CHUNK = 16
+
+        // Alpha-month dates ("04-Jul-25") that the numeric bank date regexes miss
+        private val ALPHA_MONTH_DATE_REGEX = Regex(
+            "\\b(\\d{1,2}[-/ ](?:Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)[a-z]*[-/ ]\\d{2,4})\\b",
+            RegexOption.IGNORE_CASE
+        )
+
+        // Card identifier ("Card x1234" / "Card ending 1234" / "Card **1234") used to
+        // accept card-present transactions that carry no reference number
+        private val CARD_LAST4_REGEX = Regex(
+            "(?:card|crd)\\s*(?:no\\.?\\s*)?(?:number\\s*)?(?:ending(?:\\s+in)?\\s*|[xX*]+\\s*)?(\\d{4})\\b",
+            RegexOption.IGNORE_CASE
+        )
+
+        // SMS that mention amounts but are not completed transactions. Checked before
+        // extraction so future-autopay notices, UPI collect requests, bill reminders,
+        // OTPs and declined payments never enter the database.
+        // Anchors are literals every match must contain (see SmsKeywordGate): a regex
+        // only runs when one of its anchors is in the body, so keep them in sync.
+        private val NON_TRANSACTION_RULES = listOf(
+            NonTransactionRule(
+                "future autopay notice",
+                Regex("will\\s+be\\s+debited", RegexOption.IGNORE_CASE),
+                anchors = listOf("debited")
+            ),
+            NonTransactionRule(
+                "UPI collect request",
+                Regex("has\\s+requested|requested\\s+money|payment\\s+request|collect\\s+request", RegexOption.IGNORE_CASE),
+                anchors = listOf("request")
+            ),
+            NonTransactionRule(
+                "OTP message",
+                Regex("\\botp\\b|one\\s*time\\s*password", RegexOption.IGNORE_CASE),
+                anchors = listOf("otp", "password")
+            ),
+            NonTransactionRule(
+                "bill/due reminder",
+                Regex("payment\\s+due|min(?:imum)?\\s+(?:amount\\s+)?due|due\\s+on|is\\s+due", RegexOption.IGNORE_CASE),
+                anchors = listOf("due")
+            ),
+            NonTransactionRule(
+                "declined transaction",
+                Regex("insufficient\\s+balance|transaction\\s+(?:declined|failed)", RegexOption.IGNORE_CASE),
+                anchors = listOf("insufficient", "declined", "failed")
+            ),
+            // Promotional offers name an amount and a card but are not spends. Markers
+            // (voucher / coupon / reward points / "T&C" / "by doing N Trxns") do not
+            // appear in genuine debit alerts, so this will not drop real transactions.
+            NonTransactionRule(
+                "promotional offer",
+                Regex(
+                    "\\b(?:e-?voucher|voucher|gift\\s*card|coupon|reward\\s*points?)\\b" +
+                        "|\\bt&c\\b|\\bterms\\s+(?:and|&)\\s+conditions\\b" +
+                        "|\\bby\\s+doing\\s+\\d+\\s+(?:txn|trxn|transaction)s?\\b",
+                    RegexOption.IGNORE_CASE
+                ),
+                anchors = listOf("voucher", "gift", "coupon", "reward", "t&c", "terms", "doing")
+            )
+        )
+    }
+
+    /**
+     * Parse one SMS with the rules of [snapshot]
+     */
+    fun parse(
+        sender: String,
+        body: String,
+        timestamp: Long,
+        snapshot: RuleSnapshot
+    ): Outcome = parseWithRules(sender, body, timestamp, compiledRulesFor(snapshot))
+
+    /**
+     * Parse a batch of SMS in parallel, one chunk per CPU core on [Dispatchers.Default],
+     * all with the rules of [snapshot].
+     *
+     * [transform] runs on the worker thread right after each parse; results come back in
+     * input order. If it throws on a success, it is called again with [Outcome.Failed] for
+     * that message, so one bad result does not fail the batch. [onProgress] is called from
+     * worker threads as chunks finish.
+     */
+    suspend fun <T> parseBatch(
+        messages: List<SmsMessage>,
+        snapshot: RuleSnapshot,
+        onProgress: ((completed: Int, total: Int) -> Unit)? = null,
+        transform: (SmsMessage, Outcome) -> T
+    ): List<T> {
+        if (messages.isEmpty()) return emptyList()
+
+        val compiled = compiledRulesFor(snapshot)
+        val results = arrayOfNulls<Any?>(messages.size)
+        val completed = AtomicInteger()
+        val parallelism = Runtime.getRuntime().availableProcessors().coerceAtLeast(1)
+        val chunkSize = maxOf(MIN_BATCH_CHUNK, (messages.size + parallelism - 1) / parallelism)
+
+        coroutineScope {
+            for (start in messages.indices step chunkSize) {
+                val end = minOf(start + chunkSize, messages.size)
+                launch(Dispatchers.Default) {
+                    for (index in start until end) {
+                        ensureActive()
+                        val message = messages[index]
+                        val outcome = parseWithRules(message.sender, message.body, message.timestamp, compiled)
+                        results[index] = try {
+                            transform(message, outcome)
+                        } catch (e: Exception) {
+                            if (outcome is Outcome.Failed) throw e
+                            logger.error("parseBatch", "Could not convert parse result", e)
+                            transform(message, Outcome.Failed("Result conversion failed: ${e.message}"))
+                        }
+                    }
+                    val done = completed.addAndGet(end - start)
+                    onProgress?.invoke(done, messages.size)
+                }
+            }
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        return results.map { it as T }
+    }
+
+    private fun parseWithRules(
+        sender: String,
+        body: String,
+        timestamp: Long,
+        compiled: CompiledRules
+    ): Outcome {
+        try {
+            // 0. Reject non-transactional SMS early (future autopay notices, UPI collect
+            // requests, OTPs, bill reminders) - these contain amounts but are not spends.
+            // One keyword pass also yields the debit/credit keyword hits used below.
+            val keywordScan = compiled.keywordGate.classify(body)
+            keywordScan.nonTransactionReason?.let { reason ->
+                logger.debug("parseSMS", "Rejected non-transactional SMS ($reason): ${body.take(50)}...")
+                return Outcome.Failed("Non-transactional SMS: $reason")
+            }
+
+            // 1. Try to match sender to a bank (indexed, memoized per sender address)
+            val bankRule = compiled.senderIndex.resolve(sender)
+            val senderMatched = bankRule != null
+            val bankLists = compiled.patternLists.forBank(bankRule)
+            val fallbackLists = compiled.patternLists.fallback
+            val combined = if (extractionMode == ExtractionMode.COMBINED) {
+                compiled.fieldExtractors.forBank(bankRule)
+            } else {
+                null
+            }
+            val snapshot = compiled.snapshot
+
+            // 2. Extract transaction fields
+            // NOTE: merchant extraction uses the RAW body - UPI VPA patterns ("merchant@ybl")
+            // need the '@' that the old special-character stripping removed
+            // Banks that opt in get the hand-written amount scanner before the regexes
+            val scannedAmount = if (bankRule?.amountScanner == true) AmountScanner.scan(body) else null
+            val amount = scannedAmount?.let { body.substring(it.start, it.end) }
+                ?: extractAmount(body, snapshot, combined?.amount, bankLists, fallbackLists)
+            val merchant = extractMerchant(body, snapshot, combined?.merchant, bankLists, fallbackLists)
+            val bodyDate = extractDate(body, snapshot, combined?.date, bankLists)
+            val date = bodyDate ?: Date(timestamp)
+            val transactionType = extractTransactionType(body, snapshot, combined?.transactionType, bankLists, keywordScan)
+            var referenceNumber = extractReferenceNumber(body, snapshot, combined?.referenceNumber, bankLists, fallbackLists)
+
+            logger.debug("parseSMS", "Extracted referenceNumber: $referenceNumber for amount: $amount, merchant: $merchant")
+
+            // 3. Validate required fields (HARD REQUIREMENTS)
+            if (amount == null) {
+                logger.warn("parseSMS", "No amount found in SMS: ${body.take(50)}...")
+                return Outcome.Failed("Amount not found")
+            }
+
+            // Zero/negative amounts are noise (fee reversals of 0, malformed SMS)
+            val numericAmount = scannedAmount?.let { it.paise / 100.0 }
+                ?: amount.replace(",", "").toDoubleOrNull()
+            if (numericAmount == null || numericAmount <= 0.0) {
+                logger.warn("parseSMS", "Invalid amount '$amount' in SMS: ${body.take(50)}...")
+                return Outcome.Failed("Invalid amount: $amount")
+            }
+
+            // Card-present (POS) transactions frequently carry no reference number.
+            // If the SMS names a card AND uses an explicit debit/credit keyword,
+            // synthesize a pseudo-reference instead of rejecting it as promotional.
+            // IMPORTANT: derived from the SMS body hash, NOT the arrival timestamp,
+            // so the same SMS always produces the same ref and dedup keeps working
+            // across re-delivery and history rescans.
+            if (referenceNumber == null) {
+                val cardLast4 = CARD_LAST4_REGEX.find(body)?.groupValues?.get(1)
+                if (cardLast4 != null && keywordScan.hasTransactionKeyword) {
+                    val bodyHash = Integer.toHexString(body.trim().hashCode())
+                    referenceNumber = "CARD${cardLast4}H$bodyHash"
+                    logger.debug("parseSMS", "Card SMS without ref number - synthesized pseudo-ref $referenceNumber")
+                }
+            }
+
+            // CRITICAL: Reference number is MANDATORY for transaction SMS
+            if (referenceNumber == null) {
+                logger.warn("parseSMS", "No reference number found - likely promotional SMS: ${body.take(50)}...")
+                return Outcome.Failed("Reference number not found (required for transaction SMS)")
+            }
+
+            // 4. Calculate confidence score
+            val confidence = confidenceCalculator.calculate(
+                senderMatched = senderMatched,
+                bankRule = bankRule,
+                extractedAmount = amount,
+                extractedMerchant = merchant,
+                extractedDate = date.toString(),
+                extractedType = transactionType,
+                extractedReferenceNumber = referenceNumber,
+                smsBody = body
+            )
+
+            return Outcome.Success(
+                ParsedSms(
+                    amount = numericAmount,
+                    merchant = merchant,
+                    date = date,
+                    dateInBody = bodyDate != null,
+                    transactionType = transactionType,
+                    bankName = bankRule?.displayName,
+                    referenceNumber = referenceNumber
+                ),
+                confidence
+            )
+        } catch (e: Exception) {
+            logger.error("parseSMS", "Parse error", e)
+            return Outcome.Failed("Parse exception: ${e.message}")
+        }
+    }
+
+    /**
+     * Sender index, keyword gate, counted pattern lists and combined field matchers for
+     * [snapshot], built once per snapshot
+     */
+    private fun compiledRulesFor(snapshot: RuleSnapshot): CompiledRules =
+        compiledRules?.takeIf { it.snapshot === snapshot }
+            ?: CompiledRules(
+                snapshot = snapshot,
+                senderIndex = BankSenderIndex(snapshot.rules, snapshot::regex),
+                keywordGate = SmsKeywordGate(snapshot.rules, NON_TRANSACTION_RULES),
+                patternLists = snapshot.patternLists,
+                fieldExtractors = BankFieldExtractors(snapshot.rules, snapshot::regex)
+            ).also { compiledRules = it }
+
+    /**
+     * Extract amount from SMS body
+     */
+    private fun extractAmount(
+        body: String,
+        snapshot: RuleSnapshot,
+        combined: CombinedFieldMatcher?,
+        bankLists: RulePatternLists.FieldLists?,
+        fallbackLists: RulePatternLists.FieldLists
+    ): String? {
+        if (combined != null) {
+            val hit = combined.find(body)
+            snapshot.patternLists.recordCombined(hit, bankLists?.amount, fallbackLists.amount)
+            return hit?.value
+        }
+
+        // Try bank-specific patterns first, then fall back to generic patterns
+        return bankLists?.amount?.firstMatch { tryExtractWithPattern(body, snapshot, it) }
+            ?: fallbackLists.amount.firstMatch { tryExtractWithPattern(body, snapshot, it) }
+    }
+
+    /**
+     * Extract merchant from SMS body
+     */
+    private fun extractMerchant(
+        body: String,
+        snapshot: RuleSnapshot,
+        combined: CombinedFieldMatcher?,
+        bankLists: RulePatternLists.FieldLists?,
+        fallbackLists: RulePatternLists.FieldLists
+    ): String? {
+        // Try bank-specific patterns first, then fall back to generic patterns
+        val merchant = if (combined != null) {
+            val hit = combined.find(body)
+            snapshot.patternLists.recordCombined(hit, bankLists?.merchant, fallbackLists.merchant)
+            hit?.value
+        } else {
+            bankLists?.merchant?.firstMatch { tryExtractWithPattern(body, snapshot, it) }
+                ?: fallbackLists.merchant.firstMatch { tryExtractWithPattern(body, snapshot, it) }
+        }
+        return merchant?.let { cleanMerchantName(it) }
+    }
+
+    /**
+     * Extract date from SMS body
+     */
+    private fun extractDate(
+        body: String,
+        snapshot: RuleSnapshot,
+        combined: CombinedFieldMatcher?,
+        bankLists: RulePatternLists.FieldLists?
+    ): Date? {
+        // Try bank-specific date patterns (a hit needs a parseable date). The combined
+        // matcher only reports the first pattern that matches; if its text does not parse,
+        // the per-pattern path goes on to the later patterns.
+        val combinedHit = combined?.find(body)
+        combinedHit?.let { tryParseDate(it.value) }?.let {
+            snapshot.patternLists.recordCombined(combinedHit, bankLists?.date, null)
+            return it
+        }
+        if (combined != null && combinedHit == null) {
+            snapshot.patternLists.recordCombined(null, bankLists?.date, null)
+        } else {
+            // Counted by the per-pattern lists
+            bankLists?.date?.firstMatch { pattern ->
+                tryExtractWithPattern(body, snapshot, pattern)?.let { tryParseDate(it) }
+            }?.let { return it }
+        }
+
+        // Alpha-month dates ("04-Jul-25") - the per-bank regexes are numeric-only
+        ALPHA_MONTH_DATE_REGEX.find(body)?.groupValues?.get(1)?.let { dateStr ->
+            tryParseDate(dateStr)?.let { return it }
+        }
+
+        // None in the body; the caller falls back to the SMS timestamp
+        return null
+    }
+
+    /**
+     * Extract transaction type (debit/credit)
+     */
+    private fun extractTransactionType(
+        body: String,
+        snapshot: RuleSnapshot,
+        combined: CombinedFieldMatcher?,
+        bankLists: RulePatternLists.FieldLists?,
+        keywordScan: SmsKeywordGate.Result
+    ): String? {
+        // Try bank-specific type patterns (on the body with punctuation blanked out)
+        val typePatterns = bankLists?.transactionType
+        if (typePatterns != null && typePatterns.patterns.isNotEmpty()) {
+            val strippedBody = stripPunctuation(body)
+            val type = if (combined != null) {
+                val hit = combined.find(strippedBody)
+                snapshot.patternLists.recordCombined(hit, typePatterns, null)
+                hit?.value
+            } else {
+                typePatterns.firstMatch { tryExtractWithPattern(strippedBody, snapshot, it) }
+            }
+            if (type != null) {
+                // Handle BOB abbreviations (Dr. -> debit, Cr. -> credit)
+                val normalized = type.lowercase().trim('.', ' ')
+                return when (normalized) {
+                    "dr" -> "debit"
+                    "cr" -> "credit"
+                    else -> normalized
+                }
+            }
+        }
+
+        // Fallback keywords (debit first, default debit), matched in the keyword pass
+        return keywordScan.fallbackType
+    }
+
+    /**
+     * Same as body.replace(Regex("[^A-Za-z0-9\\s]"), " ").trim(), without the regex
+     */
+    private fun stripPunctuation(body: String): String {
+        val chars = CharArray(body.length)
+        for (i in body.indices) {
+            val c = body[i]
+            chars[i] = when (c) {
+                in 'A'..'Z', in 'a'..'z', in '0'..'9',
+                ' ', '\t', '\n', '\u000B', '\u000C', '\r' -> c
+                else -> ' '
+            }
+        }
+        return String(chars).trim()
+    }
+
+    /**
+     * Extract reference number from SMS body
+     */
+    private fun extractReferenceNumber(
+        body: String,
+        snapshot: RuleSnapshot,
+        combined: CombinedFieldMatcher?,
+        bankLists: RulePatternLists.FieldLists?,
+        fallbackLists: RulePatternLists.FieldLists
+    ): String? {
+        if (combined != null) {
+            val hit = combined.find(body)
+            snapshot.patternLists.recordCombined(hit, bankLists?.referenceNumber, fallbackLists.referenceNumber)
+            return hit?.value
+        }
+
+        // Try bank-specific patterns first, then fall back to generic patterns
+        return bankLists?.referenceNumber?.firstMatch { tryExtractWithPattern(body, snapshot, it) }
+            ?: fallbackLists.referenceNumber.firstMatch { tryExtractWithPattern(body, snapshot, it) }
+    }
+
+    /**
+     * Try to extract value using a regex pattern
+     */
+    private fun tryExtractWithPattern(body: String, snapshot: RuleSnapshot, pattern: String): String? {
+        return try {
+            val regex = snapshot.regex(pattern)
+            regex.find(body)?.groupValues?.get(1)?.trim()
+        } catch (e: Exception) {
+            logger.warn("tryExtractWithPattern", "Pattern match failed: $pattern")
+            null
+        }
+    }
+
+    /**
+     * Clean merchant name (remove extra spaces, special chars)
+     */
+    private fun cleanMerchantName(merchant: String): String {
+        val cleaned = MerchantNameCleaner.clean(merchant)
+        logger.debug("cleanMerchantName","$cleaned actual merchant name $merchant")
+        return cleaned
+    }
+
+    /**
+     * Parse a date string ("04-07-25", "04-Jul-2025", ...) to local midnight
+     */
+    private fun tryParseDate(dateStr: String): Date? {
+        val millis = SmsDateParser.parseEpochMillis(dateStr, TimeZone.getDefault())
+        return if (millis == SmsDateParser.NO_DATE_MILLIS) null else Date(millis)
+    }
+
+    /**
+     * One SMS for [parseBatch]
+     */
+    data class SmsMessage(
+        val sender: String,
+        val body: String,
+        val timestamp: Long
+    )
+
+    /**
+     * Fields of an SMS that passed validation. [date] is local midnight of the date in the
+     * body, or the SMS timestamp when the body has none ([dateInBody] false).
+     */
+    data class ParsedSms(
+        val amount: Double,
+        val merchant: String?,
+        val date: Date,
+        val dateInBody: Boolean,
+        val transactionType: String?,
+        val bankName: String?,
+        val referenceNumber: String
+    )
+
+    /**
+     * Result of parsing one SMS
+     */
+    sealed class Outcome {
+        data class Success(
+            val parsed: ParsedSms,
+            val confidence: ConfidenceScore
+        ) : Outcome()
+
+        data class Failed(val reason: String) : Outcome()
+    }
+}
@@ -34,7 +34,10 @@ data class BankRule(
     val patterns: TransactionPatterns,
 
     @SerializedName("confidence_weights")
-    val confidenceWeights: ConfidenceWeights? = null
+    val confidenceWeights: ConfidenceWeights? = null,
+
+    @SerializedName("amount_scanner")
+    val amountScanner: Boolean = false  // Try AmountScanner before the amount regexes
 )
 
 /**
@@ -0,0 +1,59 @@
+package com.smartexpenseai.app.utils.logging
+
+/**
+ * A structured logger that adds 'who' (className) and 'where' (methodName) to the log message.
+ *
+ * Lines go to [sink]: the app installs one that forwards to Timber (and so to its LogConfig
+ * and TimberFileTree setup). Until a sink is installed, and in JVM tools and benchmarks
+ * that never install one, nothing is logged and messages are not even formatted.
+ *
+ * @param featureTag The primary feature tag from LogConfig.FeatureTags.
+ * @param className The name of the class where the logger is used.
+ */
+class StructuredLogger(
+    private val featureTag: String,
+    private val className: String
+) {
+
+    enum class Level { DEBUG, INFO, WARN, ERROR }
+
+    /**
+     * Destination for formatted log lines
+     */
+    fun interface Sink {
+        fun log(level: Level, tag: String, message: String, throwable: Throwable?)
+    }
+
+    companion object {
+        @Volatile
+        var sink: Sink? = null
+    }
+
+    private fun formatMessage(where: String, what: Any, why: String? = null): String {
+        val builder = StringBuilder()
+        // Format: [ClassName.methodName] - Log message - Why: details
+        builder.append("[$className.$where] - $what")
+        why?.let { builder.append(" - Why: $it") }
+        return builder.toString()
+    }
+
+    fun info(where: String, what: Any, why: String? = null) {
+        sink?.log(Level.INFO, featureTag, formatMessage(where, what, why), null)
+    }
+
+    fun debug(where: String, what: Any, why: String? = null) {
+        sink?.log(Level.DEBUG, featureTag, formatMessage(where, what, why), null)
+    }
+
+    fun error(where: String, what: Any, throwable: Throwable? = null) {
+        sink?.log(Level.ERROR, featureTag, formatMessage(where, what, throwable?.message), throwable)
+    }
+
+    fun warn(where: String, what: Any, why: String? = null) {
+        sink?.log(Level.WARN, featureTag, formatMessage(where, what, why), null)
+    }
+
+    fun warnWithThrowable(where: String, what: Any, throwable: Throwable) {
+        sink?.log(Level.WARN, featureTag, formatMessage(where, what, throwable.message), throwable)
+    }
+}